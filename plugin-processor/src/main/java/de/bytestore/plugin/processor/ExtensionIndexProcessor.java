@@ -0,0 +1,253 @@
+package de.bytestore.plugin.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * ExtensionIndexProcessor writes a typed extension index for every class annotated with {@code org.pf4j.Extension}.
+ *
+ * In contrast to pf4j's {@code META-INF/extensions.idx}, which only lists class names, the typed index
+ * ({@value #INDEX_FILE}) maps every extension point to its implementations together with ordinal, scope (see
+ * {@code de.bytestore.plugin.extension.ExtensionScope}) and the plugins required by the extension. The extension
+ * points are taken from {@code @Extension(points = ...)} or, if not given, from every supertype extending
+ * {@code org.pf4j.ExtensionPoint}. The identifier of the plugin owning the extensions can be passed with the
+ * {@code -ApluginId=...} option.
+ *
+ * The processor runs next to the pf4j processor and doesn't claim the annotation. It only reads annotation mirrors,
+ * so it has no dependencies and is used by adding the plugin-processor module to the {@code annotationProcessor}
+ * configuration of a plugin.
+ *
+ * Every line of the index has the format {@code point<TAB>implementation<TAB>ordinal<TAB>scope<TAB>plugins}.
+ */
+@SupportedAnnotationTypes(ExtensionIndexProcessor.EXTENSION)
+@SupportedOptions(ExtensionIndexProcessor.PLUGIN_ID)
+public class ExtensionIndexProcessor extends AbstractProcessor {
+    /**
+     * The location of the typed extension index inside a plugin archive.
+     */
+    public static final String INDEX_FILE = "META-INF/plugin-extensions.idx";
+
+    /**
+     * The option carrying the identifier of the plugin owning the extensions.
+     */
+    public static final String PLUGIN_ID = "pluginId";
+
+    static final String EXTENSION = "org.pf4j.Extension";
+
+    static final String EXTENSION_POINT = "org.pf4j.ExtensionPoint";
+
+    static final String EXTENSION_SCOPE = "de.bytestore.plugin.extension.ExtensionScope";
+
+    static final String PROTOTYPE = "PROTOTYPE";
+
+    // Store Index Lines in Processing Order.
+    private final Set<String> linesIO = new LinkedHashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            this.write();
+
+            return false;
+        }
+
+        TypeElement extensionIO = processingEnv.getElementUtils().getTypeElement(EXTENSION);
+
+        if (extensionIO == null)
+            return false;
+
+        for (Element elementIO : roundEnv.getElementsAnnotatedWith(extensionIO)) {
+            if (elementIO.getKind() != ElementKind.CLASS)
+                continue;
+
+            this.index((TypeElement) elementIO);
+        }
+
+        return false;
+    }
+
+    /**
+     * Adds the index lines of an extension class.
+     *
+     * @param typeIO the class annotated with {@code @Extension}
+     */
+    private void index(TypeElement typeIO) {
+        AnnotationMirror annotationIO = this.getAnnotation(typeIO, EXTENSION);
+        Map<String, Object> valuesIO = this.getValues(annotationIO);
+
+        int ordinalIO = valuesIO.get("ordinal") instanceof Integer ? (Integer) valuesIO.get("ordinal") : 0;
+        List<String> pointsIO = this.getTypes(valuesIO.get("points"));
+        List<String> pluginsIO = this.getStrings(valuesIO.get("plugins"));
+
+        // Use every Extension Point of the Class if no Points are declared.
+        if (pointsIO.isEmpty())
+            this.collectPoints(typeIO.asType(), pointsIO);
+
+        if (pointsIO.isEmpty()) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Extension does not implement an extension point, skipping typed index.", typeIO);
+
+            return;
+        }
+
+        String scopeIO = this.getScope(typeIO);
+        String implementationIO = processingEnv.getElementUtils().getBinaryName(typeIO).toString();
+
+        for (String pointIO : pointsIO) {
+            linesIO.add(pointIO + "\t" + implementationIO + "\t" + ordinalIO + "\t" + scopeIO + "\t" + String.join(",", pluginsIO));
+        }
+    }
+
+    /**
+     * Retrieves the scope of an extension class from its {@code @ExtensionScope} annotation.
+     *
+     * @param typeIO the extension class
+     * @return the name of the scope, {@value #PROTOTYPE} if not annotated
+     */
+    private String getScope(TypeElement typeIO) {
+        Object valueIO = this.getValues(this.getAnnotation(typeIO, EXTENSION_SCOPE)).get("value");
+
+        // Enum Constants are passed as Variable Elements.
+        return valueIO instanceof VariableElement constantIO ? constantIO.getSimpleName().toString() : PROTOTYPE;
+    }
+
+    /**
+     * Collects the binary names of all supertypes of a type that extend {@code ExtensionPoint}.
+     *
+     * @param typeIO   the type to be inspected
+     * @param pointsIO the list receiving the extension points
+     */
+    private void collectPoints(TypeMirror typeIO, List<String> pointsIO) {
+        TypeMirror pointIO = processingEnv.getElementUtils().getTypeElement(EXTENSION_POINT).asType();
+
+        for (TypeMirror superIO : processingEnv.getTypeUtils().directSupertypes(typeIO)) {
+            if (superIO.getKind() != TypeKind.DECLARED)
+                continue;
+
+            TypeElement elementIO = (TypeElement) ((DeclaredType) superIO).asElement();
+            String nameIO = processingEnv.getElementUtils().getBinaryName(elementIO).toString();
+
+            if (nameIO.equals(EXTENSION_POINT) || !processingEnv.getTypeUtils().isAssignable(processingEnv.getTypeUtils().erasure(superIO), pointIO))
+                continue;
+
+            if (!pointsIO.contains(nameIO))
+                pointsIO.add(nameIO);
+
+            this.collectPoints(superIO, pointsIO);
+        }
+    }
+
+    /**
+     * Writes the collected index lines into the class output.
+     */
+    private void write() {
+        if (linesIO.isEmpty())
+            return;
+
+        String pluginIO = processingEnv.getOptions().get(PLUGIN_ID);
+
+        try {
+            FileObject fileIO = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_FILE);
+
+            try (Writer writerIO = fileIO.openWriter()) {
+                writerIO.write("# Generated by " + getClass().getName() + "\n");
+
+                if (pluginIO != null && !pluginIO.isBlank())
+                    writerIO.write("# pluginId=" + pluginIO.trim() + "\n");
+
+                for (String lineIO : linesIO) {
+                    writerIO.write(lineIO + "\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write " + INDEX_FILE + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the mirror of an annotation of an element.
+     *
+     * @param elementIO the annotated element
+     * @param nameIO    the fully qualified name of the annotation
+     * @return the annotation mirror, or null if the element is not annotated
+     */
+    private AnnotationMirror getAnnotation(Element elementIO, String nameIO) {
+        for (AnnotationMirror mirrorIO : elementIO.getAnnotationMirrors()) {
+            if (((TypeElement) mirrorIO.getAnnotationType().asElement()).getQualifiedName().contentEquals(nameIO))
+                return mirrorIO;
+        }
+
+        return null;
+    }
+
+    /**
+     * Retrieves the explicitly set values of an annotation by attribute name.
+     *
+     * @param mirrorIO the annotation mirror
+     * @return the attribute values
+     */
+    private Map<String, Object> getValues(AnnotationMirror mirrorIO) {
+        Map<String, Object> valuesIO = new HashMap<>();
+
+        if (mirrorIO != null)
+            mirrorIO.getElementValues().forEach((keyIO, valueIO) -> valuesIO.put(keyIO.getSimpleName().toString(), valueIO.getValue()));
+
+        return valuesIO;
+    }
+
+    /**
+     * Converts an array attribute of class literals into binary class names.
+     *
+     * @param valueIO the attribute value
+     * @return the binary class names
+     */
+    private List<String> getTypes(Object valueIO) {
+        List<String> typesIO = new ArrayList<>();
+
+        if (valueIO instanceof List<?> listIO) {
+            for (Object entryIO : listIO) {
+                Object typeIO = ((AnnotationValue) entryIO).getValue();
+
+                if (typeIO instanceof DeclaredType declaredIO)
+                    typesIO.add(processingEnv.getElementUtils().getBinaryName((TypeElement) declaredIO.asElement()).toString());
+            }
+        }
+
+        return typesIO;
+    }
+
+    /**
+     * Converts an array attribute of Strings into a list.
+     *
+     * @param valueIO the attribute value
+     * @return the Strings of the attribute
+     */
+    private List<String> getStrings(Object valueIO) {
+        List<String> stringsIO = new ArrayList<>();
+
+        if (valueIO instanceof List<?> listIO) {
+            for (Object entryIO : listIO) {
+                stringsIO.add(String.valueOf(((AnnotationValue) entryIO).getValue()));
+            }
+        }
+
+        return stringsIO;
+    }
+}
@@ -0,0 +1,115 @@
+package de.bytestore.plugin.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * PluginViewIndexProcessor writes an index of every class annotated with {@code de.bytestore.plugin.bean.PluginView}.
+ *
+ * The index ({@value #INDEX_FILE}) lists the binary class name of every plugin view, one per line, so the
+ * {@code de.bytestore.plugin.configuration.PluginViewScanner} only has to read the index files instead of scanning
+ * the classpath. Plugin views which are not annotated with {@code @ViewController} are reported as warning and left
+ * out of the index.
+ *
+ * The processor is used by adding the plugin-processor module to the {@code annotationProcessor} configuration of a
+ * module.
+ */
+@SupportedAnnotationTypes(PluginViewIndexProcessor.PLUGIN_VIEW)
+public class PluginViewIndexProcessor extends AbstractProcessor {
+    /**
+     * The location of the plugin view index inside an archive.
+     */
+    public static final String INDEX_FILE = "META-INF/plugin-views.idx";
+
+    static final String PLUGIN_VIEW = "de.bytestore.plugin.bean.PluginView";
+
+    static final String VIEW_CONTROLLER = "io.jmix.flowui.view.ViewController";
+
+    // Store View Classes in Processing Order.
+    private final Set<String> viewsIO = new LinkedHashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            this.write();
+
+            return false;
+        }
+
+        TypeElement viewIO = processingEnv.getElementUtils().getTypeElement(PLUGIN_VIEW);
+
+        if (viewIO == null)
+            return false;
+
+        for (Element elementIO : roundEnv.getElementsAnnotatedWith(viewIO)) {
+            if (elementIO.getKind() != ElementKind.CLASS)
+                continue;
+
+            if (!this.isAnnotated(elementIO, VIEW_CONTROLLER)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Class is annotated with @PluginView but is not a JMIX ViewController, skipping view index.", elementIO);
+
+                continue;
+            }
+
+            viewsIO.add(processingEnv.getElementUtils().getBinaryName((TypeElement) elementIO).toString());
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks whether an element is annotated with the given annotation.
+     *
+     * @param elementIO the element
+     * @param nameIO    the fully qualified name of the annotation
+     * @return true if the element is annotated, false otherwise
+     */
+    private boolean isAnnotated(Element elementIO, String nameIO) {
+        for (AnnotationMirror mirrorIO : elementIO.getAnnotationMirrors()) {
+            if (((TypeElement) mirrorIO.getAnnotationType().asElement()).getQualifiedName().contentEquals(nameIO))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Writes the collected view classes into the class output.
+     */
+    private void write() {
+        if (viewsIO.isEmpty())
+            return;
+
+        try {
+            FileObject fileIO = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_FILE);
+
+            try (Writer writerIO = fileIO.openWriter()) {
+                writerIO.write("# Generated by " + getClass().getName() + "\n");
+
+                for (String viewIO : viewsIO) {
+                    writerIO.write(viewIO + "\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write " + INDEX_FILE + ": " + e.getMessage());
+        }
+    }
+}
@@ -1,9 +1,10 @@
 package de.bytestore.plugin;
 
+import de.bytestore.plugin.configuration.HostContextExports;
+import de.bytestore.plugin.configuration.JmixSpringPluginManager;
 import org.pf4j.PluginWrapper;
 import org.pf4j.spring.SpringPlugin;
 import org.springframework.context.ApplicationContext;
-import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
 /**
  * Represents a Jmix plugin built on top of the SpringPlugin implementation.
@@ -18,59 +19,86 @@ import org.springframework.context.annotation.AnnotationConfigApplicationContext
  * - Initializes the plugin with a provided PluginWrapper instance.
  * - Overrides the method to create a Spring application context for the plugin.
  *
- * Note: The actual application context creation logic should be implemented
- * in place of returning a null value in the overridden method.
+ * Configuration classes and packages are collected by a {@link PluginContextBuilder}, the context is
+ * refreshed once when it is first requested:
+ *
+ * <pre>
+ * getContextBuilder().register(FirstConfig.class, SecondConfig.class).scan("com.example.plugin");
+ * </pre>
  */
 public class JmixPlugin extends SpringPlugin {
-    // Store Annotation Config Context.
-    private final AnnotationConfigApplicationContext contextIO = new AnnotationConfigApplicationContext();
+    // Store Builder of the Plugin Context.
+    private final PluginContextBuilder builderIO;
 
     public JmixPlugin(PluginWrapper wrapper) {
         super(wrapper);
+
+        this.builderIO = new PluginContextBuilder(wrapper.getPluginClassLoader());
     }
 
     /**
      * Creates and returns the application context for the plugin. This allows
      * the plugin to establish its own Spring application context, enabling
      * dependency injection, bean management, and integration with the Jmix framework.
-     * The method must be implemented to provide the actual application context
-     * relevant to the plugin's functionality.
+     * The context contains every class and package collected by the {@link PluginContextBuilder}
+     * and is refreshed exactly once. If host beans are exported (see {@link HostContextExports}),
+     * the host application context or the exported beans become the parent of the context.
      *
-     * @return the application context specific to the plugin, or null if the
-     *         application context creation is not implemented.
+     * @return the refreshed application context specific to the plugin.
      */
     @Override
     protected ApplicationContext createApplicationContext() {
-        contextIO.setClassLoader(getWrapper().getPluginClassLoader());
+        if (getWrapper().getPluginManager() instanceof JmixSpringPluginManager managerIO && managerIO.getApplicationContext() != null) {
+            HostContextExports exportsIO = managerIO.getContextExports();
+
+            // Use Host Context or exported Host Beans as Parent.
+            if (exportsIO.isExportAll())
+                builderIO.parent(managerIO.getApplicationContext());
+            else if (exportsIO.isEnabled())
+                builderIO.parent(exportsIO.getBeanFactory(managerIO.getApplicationContext()));
+        }
+
+        return builderIO.build();
+    }
 
-        return contextIO;
+    /**
+     * Retrieves the builder collecting the configuration classes and packages of the plugin context.
+     * Everything added before the context is first requested is registered with a single refresh.
+     *
+     * @return the context builder of this plugin
+     */
+    public PluginContextBuilder getContextBuilder() {
+        return builderIO;
     }
 
     /**
-     * Registers the provided class into the application context and refreshes the context.
-     * This method allows for dynamically adding new configurations or beans to the plugin's
-     * Spring application context during runtime.
+     * Registers the provided class into the application context of the plugin.
+     * The class is collected by the context builder and registered when the context is created by
+     * {@link #createApplicationContext()}, together with the host parent and exports, so this method
+     * has to be called before the context is first requested.
      *
      * @param classIO the class to be registered within the application context. It is expected
      *                to define configurations, beans, or other components necessary for
      *                the plugin's functionality.
+     * @deprecated collect classes via {@link #getContextBuilder()} instead.
      */
+    @Deprecated
     public void register(Class classIO) {
-        contextIO.register(classIO);
-        contextIO.refresh();
+        builderIO.register(classIO);
     }
 
     /**
-     * Scans the specified base package and refreshes the application context.
-     * This method utilizes the `scan` functionality of the Spring
-     * `AnnotationConfigApplicationContext` to load components, beans, or configurations
-     * from the provided package into the application context.
+     * Adds the specified base package to the application context of the plugin.
+     * The package is collected by the context builder and scanned when the context is created by
+     * {@link #createApplicationContext()}, together with the host parent and exports, so this method
+     * has to be called before the context is first requested.
      *
      * @param packageIO the base package to be scanned for components and configurations.
+     * @deprecated collect packages via {@link #getContextBuilder()} instead.
      */
+    @Deprecated
     public void scan(String packageIO) {
-        contextIO.scan(packageIO);
-        contextIO.refresh();
+        builderIO.scan(packageIO);
     }
 
     /**
@@ -0,0 +1,254 @@
+package de.bytestore.plugin;
+
+import org.pf4j.PluginRuntimeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.*;
+
+/**
+ * PluginContextBuilder collects the configuration classes and packages of a plugin and creates its
+ * Spring {@link AnnotationConfigApplicationContext} with a single refresh.
+ *
+ * Packages are resolved via the plugin-local {@code META-INF/spring.components} candidate index (as written
+ * by {@code spring-context-indexer}) if the plugin archive contains one, so only the indexed components are
+ * registered instead of scanning the packages on the classpath. Only the resources of the plugin classloader
+ * itself are read, an index of the host application is never used for plugins. Without an index the packages
+ * are scanned as before.
+ *
+ * The context can get the host application context or a bean factory of exported host beans (see
+ * {@link de.bytestore.plugin.configuration.HostContextExports}) as parent, so host beans are injected into
+ * plugin components when the context is created.
+ *
+ * Once built, the context is returned on every call of {@link #build()} until it is closed (e.g. when the
+ * plugin is stopped), then a new context with the same classes and packages is created.
+ */
+public class PluginContextBuilder {
+    private static final Logger log = LoggerFactory.getLogger(PluginContextBuilder.class);
+
+    /**
+     * The location of the Spring candidate component index inside a plugin archive.
+     */
+    public static final String COMPONENTS_INDEX = "META-INF/spring.components";
+
+    // Store Classloader of the Plugin.
+    private final ClassLoader loaderIO;
+
+    // Store registered Classes in Registration Order.
+    private final Set<Class<?>> classesIO = new LinkedHashSet<>();
+
+    // Store scanned Packages in Registration Order.
+    private final Set<String> packagesIO = new LinkedHashSet<>();
+
+    private AnnotationConfigApplicationContext contextIO;
+
+    private ApplicationContext parentIO;
+
+    private BeanFactory parentFactoryIO;
+
+    private boolean indexed = true;
+
+    private boolean pending;
+
+    /**
+     * Constructs a new PluginContextBuilder for the given plugin classloader.
+     *
+     * @param loaderIO the classloader of the plugin, used by the context and to read the component index
+     */
+    public PluginContextBuilder(ClassLoader loaderIO) {
+        this.loaderIO = loaderIO;
+    }
+
+    /**
+     * Adds component or configuration classes to the context. Classes already added are ignored.
+     *
+     * @param classesIO the classes to be registered
+     * @return this builder
+     */
+    public synchronized PluginContextBuilder register(Class<?>... classesIO) {
+        for (Class<?> classIO : classesIO) {
+            pending |= this.classesIO.add(classIO);
+        }
+
+        return this;
+    }
+
+    /**
+     * Adds base packages whose components are registered in the context. Packages already added are ignored.
+     *
+     * @param packagesIO the base packages to be scanned
+     * @return this builder
+     */
+    public synchronized PluginContextBuilder scan(String... packagesIO) {
+        for (String packageIO : packagesIO) {
+            pending |= this.packagesIO.add(packageIO);
+        }
+
+        return this;
+    }
+
+    /**
+     * Sets the parent context of the plugin context, e.g. the host application context.
+     *
+     * @param parentIO the parent context, or null for none
+     * @return this builder
+     */
+    public synchronized PluginContextBuilder parent(ApplicationContext parentIO) {
+        this.parentIO = parentIO;
+        this.parentFactoryIO = null;
+
+        return this;
+    }
+
+    /**
+     * Sets the parent bean factory of the plugin context, e.g. a factory holding exported host beans.
+     *
+     * @param parentFactoryIO the parent bean factory, or null for none
+     * @return this builder
+     */
+    public synchronized PluginContextBuilder parent(BeanFactory parentFactoryIO) {
+        this.parentFactoryIO = parentFactoryIO;
+        this.parentIO = null;
+
+        return this;
+    }
+
+    /**
+     * Enables or disables the use of the plugin-local candidate component index.
+     *
+     * @param indexed true to prefer the {@code META-INF/spring.components} index of the plugin, false to always scan
+     * @return this builder
+     */
+    public synchronized PluginContextBuilder indexed(boolean indexed) {
+        this.indexed = indexed;
+
+        return this;
+    }
+
+    /**
+     * Creates and refreshes the context with all collected classes and packages, or returns the already
+     * refreshed context if it is still active.
+     *
+     * @return the refreshed application context of the plugin
+     * @throws IllegalStateException if classes or packages were added after the active context was refreshed
+     */
+    public synchronized AnnotationConfigApplicationContext build() {
+        if (contextIO != null && contextIO.isActive()) {
+            if (pending)
+                throw new IllegalStateException("The plugin context has already been refreshed, register classes and packages before it is created.");
+
+            return contextIO;
+        }
+
+        AnnotationConfigApplicationContext createdIO = parentFactoryIO != null ? new AnnotationConfigApplicationContext(new DefaultListableBeanFactory(parentFactoryIO)) : new AnnotationConfigApplicationContext();
+
+        createdIO.setClassLoader(loaderIO);
+
+        if (parentIO != null)
+            createdIO.setParent(parentIO);
+
+        if (!classesIO.isEmpty())
+            createdIO.register(classesIO.toArray(new Class<?>[0]));
+
+        if (!packagesIO.isEmpty()) {
+            List<Class<?>> componentsIO = indexed ? this.findIndexedComponents() : null;
+
+            // Register indexed Components or scan Packages.
+            if (componentsIO != null) {
+                log.debug("Registering {} indexed components of packages {}.", componentsIO.size(), packagesIO);
+
+                if (!componentsIO.isEmpty())
+                    createdIO.register(componentsIO.toArray(new Class<?>[0]));
+            } else
+                createdIO.scan(packagesIO.toArray(new String[0]));
+        }
+
+        createdIO.refresh();
+
+        this.contextIO = createdIO;
+        this.pending = false;
+
+        return createdIO;
+    }
+
+    /**
+     * Retrieves the last built context.
+     *
+     * @return the last built context, or null if the context has not been built yet
+     */
+    public synchronized AnnotationConfigApplicationContext getContext() {
+        return contextIO;
+    }
+
+    /**
+     * Reads the candidate component index of the plugin archive and loads every indexed component
+     * inside the collected packages.
+     *
+     * @return the indexed components of the collected packages, or null if the plugin has no index
+     */
+    private List<Class<?>> findIndexedComponents() {
+        if (!(loaderIO instanceof URLClassLoader))
+            return null;
+
+        Properties indexIO = new Properties();
+
+        try {
+            // Only read Resources of the Plugin itself.
+            Enumeration<URL> urlsIO = ((URLClassLoader) loaderIO).findResources(COMPONENTS_INDEX);
+
+            if (!urlsIO.hasMoreElements())
+                return null;
+
+            while (urlsIO.hasMoreElements()) {
+                try (InputStream streamIO = urlsIO.nextElement().openStream()) {
+                    indexIO.load(streamIO);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to read component index of plugin, scanning packages instead.", e);
+
+            return null;
+        }
+
+        List<Class<?>> componentsIO = new ArrayList<>();
+
+        for (String nameIO : new TreeSet<>(indexIO.stringPropertyNames())) {
+            List<String> stereotypesIO = Arrays.asList(indexIO.getProperty(nameIO).split(","));
+
+            if (!stereotypesIO.contains(Component.class.getName()) || !this.isScanned(nameIO))
+                continue;
+
+            try {
+                componentsIO.add(Class.forName(nameIO, false, loaderIO));
+            } catch (ClassNotFoundException | LinkageError e) {
+                throw new PluginRuntimeException(e, "Cannot load indexed component '{}'", nameIO);
+            }
+        }
+
+        return componentsIO;
+    }
+
+    /**
+     * Checks whether a class belongs to one of the collected packages or their sub packages.
+     *
+     * @param nameIO the fully qualified class name
+     * @return true if the class is inside a collected package, false otherwise
+     */
+    private boolean isScanned(String nameIO) {
+        for (String packageIO : packagesIO) {
+            if (nameIO.startsWith(packageIO + "."))
+                return true;
+        }
+
+        return false;
+    }
+}
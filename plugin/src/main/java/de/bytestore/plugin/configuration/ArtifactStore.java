@@ -0,0 +1,565 @@
+package de.bytestore.plugin.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * ArtifactStore keeps plugin archives by their SHA-256 content hash, so an archive fetched or uploaded before is
+ * neither downloaded nor written again.
+ *
+ * Archives are copied into the store as {@code <sha256>.jar}, made read-only and handed out with
+ * {@link #copyTo(Path, Path)} as hard link if the target is on the same file system, otherwise as copy. Identical
+ * archives are stored once. As a handed out link shares its content with the stored archive, every lookup hashes the
+ * stored archive again and drops it if it was written in place meanwhile.
+ *
+ * Releases are recorded by their URL, their SHA-512 checksum if known and the ETag and Last-Modified header of the
+ * archive, so a reinstall or an update to a release already fetched is served from the store, and replaced archives
+ * can be kept for a rollback. A release without checksum is only served after the server confirmed it unchanged
+ * (see {@link #getReleaseValidators(String)}).
+ *
+ * The store is bounded by its total size. The least recently used archives are removed first; access times are
+ * kept in an index file rather than the file times, as hard linked archives share their file times with the
+ * installed plugins.
+ *
+ * A disabled store keeps nothing and finds nothing.
+ */
+public class ArtifactStore {
+    private static final Logger log = LoggerFactory.getLogger(ArtifactStore.class);
+
+    /**
+     * The name of the index file inside the store directory.
+     */
+    public static final String INDEX_FILE = "artifacts.properties";
+
+    private static final String SUFFIX = ".jar";
+
+    // Store Directory of the Archives.
+    private final Path directoryIO;
+
+    private final long maxSize;
+
+    private final boolean enabled;
+
+    // Store last Access by Hash in Access Order.
+    private final LinkedHashMap<String, Long> accessIO = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Store Hash, Checksum, ETag and Last-Modified of Releases by URL.
+    private final Map<String, String[]> releasesIO = new HashMap<>();
+
+    private boolean loaded;
+
+    /**
+     * Constructs a new ArtifactStore.
+     *
+     * @param directoryIO the directory of the stored archives
+     * @param maxSize     the maximum total size of the stored archives in bytes
+     * @param enabled     whether archives are stored
+     */
+    public ArtifactStore(Path directoryIO, long maxSize, boolean enabled) {
+        this.directoryIO = directoryIO;
+        this.maxSize = maxSize;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Stores a copy of an archive. The archive itself is left in place.
+     *
+     * @param fileIO the archive
+     * @return the stored archive, or the given archive if the store is disabled
+     * @throws IOException if the archive cannot be stored
+     */
+    public Path put(Path fileIO) throws IOException {
+        return this.put(fileIO, PluginFingerprint.hash(fileIO));
+    }
+
+    /**
+     * Stores a copy of an archive with a known SHA-256 hash. The archive itself is left in place.
+     *
+     * @param fileIO the archive
+     * @param hashIO the hex encoded SHA-256 hash of the archive
+     * @return the stored archive, or the given archive if the store is disabled
+     * @throws IOException if the archive cannot be stored or was modified while it was copied
+     */
+    public synchronized Path put(Path fileIO, String hashIO) throws IOException {
+        if (!enabled)
+            return fileIO;
+
+        this.load();
+
+        Path storedIO = this.getFile(hashIO);
+
+        if (!Files.exists(storedIO)) {
+            Path tempIO = directoryIO.resolve(hashIO + ".tmp");
+
+            Files.copy(fileIO, tempIO, StandardCopyOption.REPLACE_EXISTING);
+
+            // Never store an Archive under a Hash it doesn't have.
+            String copiedIO = PluginFingerprint.hash(tempIO);
+
+            if (!copiedIO.equals(hashIO)) {
+                Files.deleteIfExists(tempIO);
+
+                throw new IOException("Archive '" + fileIO + "' was modified while it was stored (expected " + hashIO + " but got " + copiedIO + ")");
+            }
+
+            protect(tempIO);
+
+            PluginDownloader.move(tempIO, storedIO);
+
+            log.debug("Stored artifact {} ({} bytes).", hashIO, Files.size(storedIO));
+        }
+
+        this.touch(hashIO);
+        this.gc(hashIO);
+
+        return storedIO;
+    }
+
+    /**
+     * Stores the content of an archive.
+     *
+     * @param contentIO the content of the archive
+     * @return the stored archive, or null if the store is disabled
+     * @throws IOException if the archive cannot be stored
+     */
+    public synchronized Path put(byte[] contentIO) throws IOException {
+        if (!enabled)
+            return null;
+
+        this.load();
+
+        String hashIO = HexFormat.of().formatHex(PluginDownloader.createDigest("SHA-256").digest(contentIO));
+        Path storedIO = this.getFile(hashIO);
+
+        if (!Files.exists(storedIO)) {
+            Path tempIO = directoryIO.resolve(hashIO + ".tmp");
+
+            Files.deleteIfExists(tempIO);
+            Files.write(tempIO, contentIO);
+
+            protect(tempIO);
+
+            PluginDownloader.move(tempIO, storedIO);
+
+            log.debug("Stored artifact {} ({} bytes).", hashIO, contentIO.length);
+        }
+
+        this.touch(hashIO);
+        this.gc(hashIO);
+
+        return storedIO;
+    }
+
+    /**
+     * Stores a downloaded release and records it by its URL.
+     *
+     * @param fileIO     the verified archive
+     * @param urlIO      the URL of the release
+     * @param hashIO     the hex encoded SHA-256 hash of the archive
+     * @param sha512IO   the hex encoded SHA-512 checksum of the archive
+     * @param etagIO     the ETag header of the archive, or null
+     * @param modifiedIO the Last-Modified header of the archive, or null
+     * @throws IOException if the archive cannot be stored
+     */
+    public synchronized void putRelease(Path fileIO, String urlIO, String hashIO, String sha512IO, String etagIO, String modifiedIO) throws IOException {
+        if (!enabled)
+            return;
+
+        this.put(fileIO, hashIO);
+
+        releasesIO.put(urlIO, new String[]{hashIO, sha512IO, etagIO, modifiedIO});
+
+        this.store();
+    }
+
+    /**
+     * Finds a stored archive by its SHA-256 hash. The archive is hashed again, an archive which was written in place
+     * (e.g. through a hard link handed out before) is removed from the store.
+     *
+     * @param hashIO the hex encoded SHA-256 hash
+     * @return the stored archive, or null if it is not stored or no longer matches its hash
+     */
+    public synchronized Path find(String hashIO) {
+        if (!enabled)
+            return null;
+
+        this.load();
+
+        Path storedIO = this.getFile(hashIO);
+
+        if (!Files.exists(storedIO)) {
+            accessIO.remove(hashIO);
+
+            return null;
+        }
+
+        if (!this.verify(hashIO, storedIO)) {
+            log.warn("Artifact {} was modified in place, removing it from store.", hashIO);
+
+            try {
+                Files.deleteIfExists(storedIO);
+            } catch (IOException e) {
+                log.warn("Unable to remove artifact {}.", hashIO, e);
+            }
+
+            accessIO.remove(hashIO);
+            releasesIO.values().removeIf(releaseIO -> releaseIO[0].equals(hashIO));
+
+            this.store();
+
+            return null;
+        }
+
+        this.touch(hashIO);
+        this.store();
+
+        return storedIO;
+    }
+
+    /**
+     * Finds the stored archive of a release.
+     *
+     * A release without checksum is matched by its URL only, which is only safe once the server confirmed the
+     * release unchanged with the validators of {@link #getReleaseValidators(String)}.
+     *
+     * @param urlIO    the URL of the release
+     * @param sha512IO the expected SHA-512 checksum, or null to match by URL only
+     * @return the stored archive, or null if the release is not stored or its checksum differs
+     */
+    public synchronized Path findRelease(String urlIO, String sha512IO) {
+        if (!enabled)
+            return null;
+
+        this.load();
+
+        String[] releaseIO = releasesIO.get(urlIO);
+
+        if (releaseIO == null || (sha512IO != null && !sha512IO.equalsIgnoreCase(releaseIO[1])))
+            return null;
+
+        return this.find(releaseIO[0]);
+    }
+
+    /**
+     * Retrieves the validators of a stored release, to ask the server whether the release changed since it was
+     * stored (If-None-Match and If-Modified-Since).
+     *
+     * @param urlIO the URL of the release
+     * @return the ETag and Last-Modified header (each may be null), or null if the release isn't stored or has no
+     * validators
+     */
+    public synchronized String[] getReleaseValidators(String urlIO) {
+        if (!enabled)
+            return null;
+
+        this.load();
+
+        String[] releaseIO = releasesIO.get(urlIO);
+
+        if (releaseIO == null || (releaseIO[2] == null && releaseIO[3] == null))
+            return null;
+
+        return new String[]{releaseIO[2], releaseIO[3]};
+    }
+
+    /**
+     * Hands out a stored archive, as hard link if possible and otherwise as writable copy. An existing target is
+     * replaced. A hard link shares the read-only content of the stored archive, it has to be replaced rather than
+     * written in place.
+     *
+     * @param storedIO the stored archive
+     * @param targetIO the target file
+     * @throws IOException if the archive cannot be linked or copied
+     */
+    public void copyTo(Path storedIO, Path targetIO) throws IOException {
+        Files.deleteIfExists(targetIO);
+
+        try {
+            Files.createLink(targetIO, storedIO);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(storedIO, targetIO, StandardCopyOption.REPLACE_EXISTING);
+
+            // Copies don't share the Content, keep them writable.
+            targetIO.toFile().setWritable(true, true);
+        }
+    }
+
+    /**
+     * Removes the least recently used archives until the store fits its maximum size, as well as releases whose
+     * archive was removed and leftovers of interrupted writes.
+     */
+    public synchronized void gc() {
+        if (!enabled)
+            return;
+
+        this.load();
+        this.gc(null);
+    }
+
+    /**
+     * Removes the least recently used archives until the store fits its maximum size, except the given archive.
+     *
+     * @param keepIO the hash of the archive to be kept, or null
+     */
+    private void gc(String keepIO) {
+        long sizeIO = 0;
+        Map<String, Long> sizesIO = new HashMap<>();
+
+        for (String hashIO : new ArrayList<>(accessIO.keySet())) {
+            try {
+                long fileSize = Files.size(this.getFile(hashIO));
+
+                sizesIO.put(hashIO, fileSize);
+                sizeIO += fileSize;
+            } catch (IOException e) {
+                accessIO.remove(hashIO);
+            }
+        }
+
+        // Remove least recently used Archives first.
+        Iterator<String> iteratorIO = accessIO.keySet().iterator();
+
+        while (sizeIO > maxSize && iteratorIO.hasNext()) {
+            String hashIO = iteratorIO.next();
+
+            if (hashIO.equals(keepIO))
+                continue;
+
+            try {
+                Files.deleteIfExists(this.getFile(hashIO));
+
+                sizeIO -= sizesIO.get(hashIO);
+
+                iteratorIO.remove();
+
+                log.debug("Removed artifact {} from store.", hashIO);
+            } catch (IOException e) {
+                log.warn("Unable to remove artifact {}.", hashIO, e);
+            }
+        }
+
+        releasesIO.values().removeIf(releaseIO -> !accessIO.containsKey(releaseIO[0]));
+
+        this.store();
+    }
+
+    /**
+     * Retrieves the total size of the stored archives.
+     *
+     * @return the size in bytes
+     */
+    public synchronized long getSize() {
+        if (!enabled)
+            return 0;
+
+        this.load();
+
+        long sizeIO = 0;
+
+        for (String hashIO : accessIO.keySet()) {
+            try {
+                sizeIO += Files.size(this.getFile(hashIO));
+            } catch (IOException ignored) {
+            }
+        }
+
+        return sizeIO;
+    }
+
+    /**
+     * Retrieves the number of stored archives.
+     *
+     * @return the number of archives
+     */
+    public synchronized int getCount() {
+        if (!enabled)
+            return 0;
+
+        this.load();
+
+        return accessIO.size();
+    }
+
+    /**
+     * Checks whether archives are stored.
+     *
+     * @return true if the store is enabled, false otherwise
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Retrieves the directory of the stored archives.
+     *
+     * @return the store directory
+     */
+    public Path getDirectory() {
+        return directoryIO;
+    }
+
+    /**
+     * Records an access of an archive.
+     *
+     * @param hashIO the hash of the archive
+     */
+    private void touch(String hashIO) {
+        accessIO.put(hashIO, System.currentTimeMillis());
+    }
+
+    /**
+     * Loads the index once, archives missing from the index are added by their file time.
+     */
+    private void load() {
+        if (loaded)
+            return;
+
+        this.loaded = true;
+
+        try {
+            Files.createDirectories(directoryIO);
+        } catch (IOException e) {
+            log.warn("Unable to create artifact store '{}'.", directoryIO, e);
+
+            return;
+        }
+
+        Properties indexIO = new Properties();
+        Path indexFile = directoryIO.resolve(INDEX_FILE);
+
+        if (Files.exists(indexFile)) {
+            try (Reader readerIO = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+                indexIO.load(readerIO);
+            } catch (IOException e) {
+                log.warn("Unable to read artifact index, rebuilding it.", e);
+            }
+        }
+
+        List<Map.Entry<String, Long>> entriesIO = new ArrayList<>();
+
+        try (Stream<Path> filesIO = Files.list(directoryIO)) {
+            for (Path fileIO : filesIO.toList()) {
+                String nameIO = fileIO.getFileName().toString();
+
+                // Remove Leftovers of interrupted Writes.
+                if (nameIO.endsWith(".tmp")) {
+                    Files.deleteIfExists(fileIO);
+
+                    continue;
+                }
+
+                if (!nameIO.endsWith(SUFFIX))
+                    continue;
+
+                String hashIO = nameIO.substring(0, nameIO.length() - SUFFIX.length());
+                String accessedIO = indexIO.getProperty("artifact." + hashIO);
+
+                entriesIO.add(Map.entry(hashIO, accessedIO != null ? Long.parseLong(accessedIO) : Files.getLastModifiedTime(fileIO).toMillis()));
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Unable to list artifact store '{}'.", directoryIO, e);
+        }
+
+        entriesIO.sort(Map.Entry.comparingByValue());
+        entriesIO.forEach(entryIO -> accessIO.put(entryIO.getKey(), entryIO.getValue()));
+
+        for (String keyIO : indexIO.stringPropertyNames()) {
+            if (!keyIO.startsWith("release."))
+                continue;
+
+            String urlIO = keyIO.substring("release.".length());
+            String[] releaseIO = indexIO.getProperty(keyIO).split(" ", 2);
+
+            if (accessIO.containsKey(releaseIO[0]))
+                releasesIO.put(urlIO, new String[]{releaseIO[0], releaseIO.length > 1 ? releaseIO[1] : null, indexIO.getProperty("etag." + urlIO), indexIO.getProperty("modified." + urlIO)});
+        }
+
+        log.debug("Loaded {} artifacts from '{}'.", accessIO.size(), directoryIO);
+    }
+
+    /**
+     * Writes the index, replacing the previous index atomically.
+     */
+    private void store() {
+        Properties indexIO = new Properties();
+
+        accessIO.forEach((hashIO, accessedIO) -> indexIO.setProperty("artifact." + hashIO, String.valueOf(accessedIO)));
+        releasesIO.forEach((urlIO, releaseIO) -> {
+            indexIO.setProperty("release." + urlIO, releaseIO[1] != null ? releaseIO[0] + " " + releaseIO[1] : releaseIO[0]);
+
+            if (releaseIO[2] != null)
+                indexIO.setProperty("etag." + urlIO, releaseIO[2]);
+
+            if (releaseIO[3] != null)
+                indexIO.setProperty("modified." + urlIO, releaseIO[3]);
+        });
+
+        try {
+            Path tempIO = Files.createTempFile(directoryIO, ".index", ".tmp");
+
+            try (Writer writerIO = Files.newBufferedWriter(tempIO, StandardCharsets.UTF_8)) {
+                indexIO.store(writerIO, "Artifact store");
+            }
+
+            PluginDownloader.move(tempIO, directoryIO.resolve(INDEX_FILE));
+        } catch (IOException e) {
+            log.warn("Unable to write artifact index.", e);
+        }
+    }
+
+    /**
+     * Resolves the file of a stored archive.
+     *
+     * @param hashIO the hash of the archive
+     * @return the archive file
+     */
+    private Path getFile(String hashIO) {
+        return directoryIO.resolve(hashIO + SUFFIX);
+    }
+
+    /**
+     * Checks whether a stored archive still matches its hash.
+     *
+     * @param hashIO   the hash of the archive
+     * @param storedIO the stored archive
+     * @return true if the content matches the hash, false otherwise
+     */
+    private boolean verify(String hashIO, Path storedIO) {
+        try {
+            return hashIO.equals(PluginFingerprint.hash(storedIO));
+        } catch (RuntimeException e) {
+            log.warn("Unable to verify artifact {}.", hashIO, e);
+
+            return false;
+        }
+    }
+
+    /**
+     * Makes a stored archive read-only, so writing a handed out hard link in place fails instead of silently
+     * changing the stored content. Only done on POSIX file systems, read-only files can't be deleted on Windows.
+     *
+     * @param fileIO the stored archive
+     */
+    private static void protect(Path fileIO) {
+        PosixFileAttributeView viewIO = Files.getFileAttributeView(fileIO, PosixFileAttributeView.class);
+
+        if (viewIO == null)
+            return;
+
+        try {
+            viewIO.setPermissions(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.GROUP_READ, PosixFilePermission.OTHERS_READ));
+        } catch (IOException e) {
+            log.debug("Unable to make artifact '{}' read-only.", fileIO, e);
+        }
+    }
+}
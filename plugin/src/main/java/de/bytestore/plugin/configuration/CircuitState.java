@@ -0,0 +1,21 @@
+package de.bytestore.plugin.configuration;
+
+/**
+ * The states of the circuit breaker guarding the extensions of a plugin, see {@link ExtensionGuard}.
+ */
+public enum CircuitState {
+    /**
+     * Calls are passed to the extensions.
+     */
+    CLOSED,
+
+    /**
+     * The plugin failed too often, calls return a fallback without reaching the extensions.
+     */
+    OPEN,
+
+    /**
+     * The open duration elapsed, a single trial call decides whether the circuit is closed again.
+     */
+    HALF_OPEN
+}
@@ -0,0 +1,79 @@
+package de.bytestore.plugin.configuration;
+
+import org.pf4j.VersionManager;
+import org.pf4j.update.PluginInfo;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * CompatibleReleaseFilter keeps only the releases whose version constraint is satisfied by the version of the
+ * application. The result is computed once per version constraint.
+ *
+ * Two filters are equal if they check against the same version with the same version manager, so a
+ * {@link TimedUpdateRepository} is only reused while its releases were filtered for the current version.
+ */
+public class CompatibleReleaseFilter implements Predicate<PluginInfo.PluginRelease> {
+    // Store Version Manager checking the Constraints.
+    private final VersionManager managerIO;
+
+    // Store Version of the Application.
+    private final String versionIO;
+
+    // Store Results by Version Constraint.
+    private final Map<String, Boolean> resultsIO = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new CompatibleReleaseFilter.
+     *
+     * @param managerIO the version manager checking the version constraints
+     * @param versionIO the version of the application
+     */
+    public CompatibleReleaseFilter(VersionManager managerIO, String versionIO) {
+        this.managerIO = managerIO;
+        this.versionIO = versionIO;
+    }
+
+    /**
+     * Checks whether the release is compatible with the version of the application.
+     *
+     * @param releaseIO the release to be checked
+     * @return true if the release is kept, false otherwise
+     */
+    @Override
+    public boolean test(PluginInfo.PluginRelease releaseIO) {
+        return resultsIO.computeIfAbsent(releaseIO.requires != null ? releaseIO.requires : "", requiresIO -> managerIO.checkVersionConstraint(versionIO, requiresIO));
+    }
+
+    /**
+     * Retrieves the version of the application the releases are checked against.
+     *
+     * @return the version of the application
+     */
+    public String getVersion() {
+        return versionIO;
+    }
+
+    /**
+     * Checks whether the other object is a filter checking against the same version with the same version manager.
+     *
+     * @param objectIO the object to be compared
+     * @return true if both filters keep the same releases, false otherwise
+     */
+    @Override
+    public boolean equals(Object objectIO) {
+        return objectIO instanceof CompatibleReleaseFilter otherIO && managerIO == otherIO.managerIO && versionIO.equals(otherIO.versionIO);
+    }
+
+    /**
+     * Computes the hash code from the version manager and the version.
+     *
+     * @return the hash code of the filter
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(System.identityHashCode(managerIO), versionIO);
+    }
+}
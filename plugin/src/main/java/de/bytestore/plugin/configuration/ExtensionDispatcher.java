@@ -0,0 +1,248 @@
+package de.bytestore.plugin.configuration;
+
+import org.pf4j.PluginRuntimeException;
+import org.pf4j.PluginState;
+import org.pf4j.PluginStateEvent;
+import org.pf4j.PluginStateListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ExtensionDispatcher invokes methods of extensions generically, by {@link Method} or by name, without
+ * {@link Method#invoke(Object, Object...)}.
+ *
+ * Every method is resolved once into a {@link MethodHandle} adapted to the shape {@code (Object, Object[])Object},
+ * so all calls go through {@link MethodHandle#invokeExact(Object...)} without the access checks of reflection. The
+ * handles are read from a map and are no constants for the JIT, so a call is not inlined like a direct call.
+ * Methods looked up by name are matched by name and the runtime types of the arguments and cached as well.
+ * Exceptions thrown by the invoked method are passed to the caller unwrapped.
+ *
+ * Handles are cached per class and method, resolved methods per class, name and argument types. The entries of all
+ * classes defined by the classloader of a plugin, and all entries resolved for arguments of such classes, are
+ * evicted when the plugin is stopped or unloaded, so the cache never keeps a plugin classloader alive.
+ */
+public class ExtensionDispatcher implements PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(ExtensionDispatcher.class);
+
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    // Store Handles by Class and Method.
+    private final Map<Class<?>, Map<Method, MethodHandle>> handlesIO = new ConcurrentHashMap<>();
+
+    // Store resolved Methods by Class, Name and Argument Types.
+    private final Map<Class<?>, Map<List<Object>, Method>> methodsIO = new ConcurrentHashMap<>();
+
+    /**
+     * Invokes a method on an extension.
+     *
+     * @param targetIO the extension
+     * @param methodIO the method to be invoked, declared by the class of the extension or one of its supertypes
+     * @param argsIO   the arguments, or null if the method has no parameters
+     * @return the result of the method, or null for void methods
+     * @throws Throwable the exception thrown by the method
+     */
+    public Object invoke(Object targetIO, Method methodIO, Object[] argsIO) throws Throwable {
+        Object[] argumentsIO = argsIO != null ? argsIO : NO_ARGUMENTS;
+
+        return (Object) this.getHandle(targetIO.getClass(), methodIO).invokeExact(targetIO, argumentsIO);
+    }
+
+    /**
+     * Invokes a public method of an extension by name. The method is selected by name and the runtime types of
+     * the arguments, preferring exact parameter types over assignable ones.
+     *
+     * @param targetIO the extension
+     * @param nameIO   the name of the method
+     * @param argsIO   the arguments
+     * @return the result of the method, or null for void methods
+     * @throws PluginRuntimeException if no matching method exists or the method threw a checked exception
+     */
+    public Object invoke(Object targetIO, String nameIO, Object... argsIO) {
+        Method methodIO = this.resolve(targetIO.getClass(), nameIO, argsIO != null ? argsIO : NO_ARGUMENTS);
+
+        try {
+            return this.invoke(targetIO, methodIO, argsIO);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new PluginRuntimeException(e, "Method '{}' of extension '{}' failed", nameIO, targetIO.getClass().getName());
+        }
+    }
+
+    /**
+     * Retrieves the cached handle of a method of a class, adapted to {@code (Object, Object[])Object}.
+     *
+     * @param typeIO   the class of the invoked object
+     * @param methodIO the method
+     * @return the adapted method handle
+     */
+    MethodHandle getHandle(Class<?> typeIO, Method methodIO) {
+        Map<Method, MethodHandle> classIO = handlesIO.get(typeIO);
+
+        if (classIO == null)
+            classIO = handlesIO.computeIfAbsent(typeIO, keyIO -> new ConcurrentHashMap<>());
+
+        MethodHandle handleIO = classIO.get(methodIO);
+
+        if (handleIO == null)
+            handleIO = classIO.computeIfAbsent(methodIO, keyIO -> this.createHandle(typeIO, keyIO));
+
+        return handleIO;
+    }
+
+    /**
+     * Creates the handle of a method and adapts it to {@code (Object, Object[])Object}. Methods of non-public
+     * classes are replaced by the same method of a public supertype if possible.
+     *
+     * @param typeIO   the class of the invoked object
+     * @param methodIO the method
+     * @return the adapted method handle
+     */
+    private MethodHandle createHandle(Class<?> typeIO, Method methodIO) {
+        Method publicIO = ClassUtils.getPubliclyAccessibleMethodIfPossible(methodIO, typeIO);
+
+        try {
+            if (!Modifier.isPublic(publicIO.getDeclaringClass().getModifiers()) || !Modifier.isPublic(publicIO.getModifiers()))
+                publicIO.trySetAccessible();
+
+            MethodHandle handleIO = MethodHandles.lookup().unreflect(publicIO).asFixedArity();
+
+            // Ignore Target of static Methods.
+            if (Modifier.isStatic(publicIO.getModifiers()))
+                handleIO = MethodHandles.dropArguments(handleIO, 0, Object.class);
+
+            return handleIO.asType(handleIO.type().generic()).asSpreader(Object[].class, publicIO.getParameterCount());
+        } catch (IllegalAccessException e) {
+            throw new PluginRuntimeException(e, "Cannot access method '{}' of '{}'", methodIO.getName(), typeIO.getName());
+        }
+    }
+
+    /**
+     * Resolves a public method of a class by name and the runtime types of the arguments.
+     *
+     * @param typeIO the class of the invoked object
+     * @param nameIO the name of the method
+     * @param argsIO the arguments
+     * @return the matching method
+     * @throws PluginRuntimeException if no matching method exists
+     */
+    Method resolve(Class<?> typeIO, String nameIO, Object[] argsIO) {
+        Object[] keyIO = new Object[argsIO.length + 1];
+
+        keyIO[0] = nameIO;
+
+        for (int indexIO = 0; indexIO < argsIO.length; indexIO++) {
+            keyIO[indexIO + 1] = argsIO[indexIO] != null ? argsIO[indexIO].getClass() : null;
+        }
+
+        Map<List<Object>, Method> classIO = methodsIO.computeIfAbsent(typeIO, typeKeyIO -> new ConcurrentHashMap<>());
+
+        return classIO.computeIfAbsent(Arrays.asList(keyIO), signatureIO -> {
+            Method matchIO = null;
+
+            for (Method methodIO : typeIO.getMethods()) {
+                if (!methodIO.getName().equals(nameIO) || methodIO.getParameterCount() != argsIO.length || !this.isApplicable(methodIO, argsIO))
+                    continue;
+
+                // Prefer exact Parameter Types.
+                if (this.isExact(methodIO, argsIO))
+                    return methodIO;
+
+                if (matchIO == null)
+                    matchIO = methodIO;
+            }
+
+            if (matchIO == null)
+                throw new PluginRuntimeException("No method '{}' with {} arguments found on '{}'", nameIO, argsIO.length, typeIO.getName());
+
+            return matchIO;
+        });
+    }
+
+    /**
+     * Checks whether the arguments can be passed to the parameters of a method.
+     *
+     * @param methodIO the method
+     * @param argsIO   the arguments
+     * @return true if every argument is assignable to its parameter, false otherwise
+     */
+    private boolean isApplicable(Method methodIO, Object[] argsIO) {
+        Class<?>[] typesIO = methodIO.getParameterTypes();
+
+        for (int indexIO = 0; indexIO < typesIO.length; indexIO++) {
+            if (!ClassUtils.isAssignableValue(typesIO[indexIO], argsIO[indexIO]))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks whether the runtime types of the arguments equal the parameter types of a method.
+     *
+     * @param methodIO the method
+     * @param argsIO   the arguments
+     * @return true if every parameter type matches its argument exactly, false otherwise
+     */
+    private boolean isExact(Method methodIO, Object[] argsIO) {
+        Class<?>[] typesIO = methodIO.getParameterTypes();
+
+        for (int indexIO = 0; indexIO < typesIO.length; indexIO++) {
+            if (argsIO[indexIO] == null || ClassUtils.resolvePrimitiveIfNecessary(typesIO[indexIO]) != argsIO[indexIO].getClass())
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Evicts the cached handles and methods of all classes defined by the given classloader. Methods of other
+     * classes resolved for arguments of such classes, e.g. a host extension called with a plugin type, are evicted
+     * as well.
+     *
+     * @param loaderIO the classloader of a plugin
+     */
+    public void evict(ClassLoader loaderIO) {
+        if (loaderIO == null)
+            return;
+
+        handlesIO.keySet().removeIf(typeIO -> typeIO.getClassLoader() == loaderIO);
+        methodsIO.keySet().removeIf(typeIO -> typeIO.getClassLoader() == loaderIO);
+
+        // Evict Methods resolved for Argument Types of the Plugin.
+        methodsIO.values().forEach(classIO -> classIO.keySet().removeIf(signatureIO -> signatureIO.stream().anyMatch(partIO -> partIO instanceof Class<?> typeIO && typeIO.getClassLoader() == loaderIO)));
+    }
+
+    /**
+     * Retrieves the number of classes with cached handles.
+     *
+     * @return the number of cached classes
+     */
+    public int size() {
+        return handlesIO.size();
+    }
+
+    /**
+     * Evicts the entries of a plugin once it is stopped or unloaded.
+     *
+     * @param event the plugin state event
+     */
+    @Override
+    public void pluginStateChanged(PluginStateEvent event) {
+        if (event.getPluginState() == PluginState.STOPPED || event.getPluginState() == PluginState.UNLOADED) {
+            this.evict(event.getPlugin().getPluginClassLoader());
+
+            log.debug("Evicted extension handles of plugin '{}'.", event.getPlugin().getPluginId());
+        }
+    }
+}
@@ -0,0 +1,618 @@
+package de.bytestore.plugin.configuration;
+
+import de.bytestore.plugin.extension.CallerThread;
+import org.pf4j.PluginManager;
+import org.pf4j.PluginState;
+import org.pf4j.PluginStateEvent;
+import org.pf4j.PluginStateListener;
+import org.pf4j.PluginWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ExtensionGuard isolates the extensions of every plugin with a bulkhead and a circuit breaker.
+ *
+ * Extensions implementing at least one interface are wrapped into a JDK proxy passing every call through the guard
+ * of the owning plugin:
+ * <ul>
+ *     <li>The bulkhead limits the concurrent calls into a plugin. Calls exceeding the limit are rejected at once
+ *     instead of waiting for a permit.</li>
+ *     <li>Calls are executed on a bounded pool of the guard with the context classloader and the security context
+ *     of the caller, the caller waits at most for the timeout and then receives the fallback while the call is
+ *     interrupted. A plugin keeps its bulkhead permit until the call really returned, so hanging calls can't
+ *     occupy more than its share of the pool.</li>
+ *     <li>Calls throwing an exception or exceeding the timeout count as failures. After the configured number of
+ *     consecutive failures the circuit opens and every call returns a fallback without reaching the plugin. Once
+ *     the open duration elapsed, a single trial call closes the circuit again or keeps it open.</li>
+ * </ul>
+ *
+ * Extension points annotated with {@link CallerThread} (e.g. {@code PluginConfigExtensionPoint}, which needs the
+ * Vaadin session of the caller) are executed on the calling thread instead. Those calls can't be timed out, a call
+ * exceeding the timeout only counts as failure once it returned. The same applies to all calls if the timeout is 0
+ * or less. Calls are passed to the extension through the {@link ExtensionDispatcher}, exceptions are rethrown
+ * unchanged.
+ *
+ * The fallback of a rejected call is an empty mutable collection or map, an empty {@link Optional}, the default value
+ * of primitives or null. The guard of a plugin is reset whenever the plugin is started, stopped or unloaded. Guarding
+ * is disabled by default, in which case the extensions are returned unchanged.
+ */
+public class ExtensionGuard implements PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(ExtensionGuard.class);
+
+    // Store Fallback Values of primitive Return Types.
+    private static final Map<Class<?>, Object> PRIMITIVES = Map.of(boolean.class, false, char.class, '\0', byte.class, (byte) 0, short.class, (short) 0, int.class, 0, long.class, 0L, float.class, 0f, double.class, 0d);
+
+    // Store Plugin Manager owning the Extensions.
+    private final PluginManager managerIO;
+
+    // Store Dispatcher invoking the Extensions.
+    private final ExtensionDispatcher dispatcherIO;
+
+    // Store Guard of every Plugin.
+    private final Map<String, PluginGuard> guardsIO = new ConcurrentHashMap<>();
+
+    // Store owning Plugin of every Extension Class.
+    private final Map<Class<?>, String> ownersIO = new ConcurrentHashMap<>();
+
+    private volatile boolean enabled;
+
+    private volatile int maxConcurrentCalls = 16;
+
+    private volatile long timeout = 2000;
+
+    private volatile int failureThreshold = 5;
+
+    private volatile long openDuration = 30000;
+
+    private volatile int maxThreads = 32;
+
+    // Store Pool executing guarded Calls, created on first Use.
+    private volatile ThreadPoolExecutor executorIO;
+
+    /**
+     * Constructs a new ExtensionGuard.
+     *
+     * @param managerIO    the plugin manager owning the extensions
+     * @param dispatcherIO the dispatcher invoking the extensions
+     */
+    public ExtensionGuard(PluginManager managerIO, ExtensionDispatcher dispatcherIO) {
+        this.managerIO = managerIO;
+        this.dispatcherIO = dispatcherIO;
+    }
+
+    /**
+     * Wraps the extensions of an extension point into guarding proxies. If guarding is disabled,
+     * the given list is returned unchanged.
+     *
+     * @param typeIO       the extension point
+     * @param extensionsIO the extensions to be wrapped
+     * @param <T>          the type of the extension point
+     * @return the guarded extensions
+     */
+    public <T> List<T> guard(Class<T> typeIO, List<T> extensionsIO) {
+        if (!enabled || !typeIO.isInterface())
+            return extensionsIO;
+
+        List<T> guardedIO = new ArrayList<>(extensionsIO.size());
+
+        for (T extensionIO : extensionsIO) {
+            guardedIO.add(this.guard(typeIO, extensionIO));
+        }
+
+        return guardedIO;
+    }
+
+    /**
+     * Wraps a single extension into a guarding proxy. Extensions that are already guarded are returned as they are.
+     *
+     * @param typeIO      the extension point
+     * @param extensionIO the extension to be wrapped
+     * @param <T>         the type of the extension point
+     * @return the guarded extension
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T guard(Class<T> typeIO, T extensionIO) {
+        if (extensionIO == null || !typeIO.isInterface() || Proxy.isProxyClass(extensionIO.getClass()) && Proxy.getInvocationHandler(extensionIO) instanceof Handler)
+            return extensionIO;
+
+        ClassLoader loaderIO = extensionIO.getClass().getClassLoader() != null ? extensionIO.getClass().getClassLoader() : typeIO.getClassLoader();
+        Class<?>[] interfacesIO = ClassUtils.getAllInterfacesForClass(extensionIO.getClass(), loaderIO);
+
+        if (interfacesIO.length == 0)
+            interfacesIO = new Class<?>[]{typeIO};
+
+        try {
+            return (T) Proxy.newProxyInstance(loaderIO, interfacesIO, new Handler(this.getOwner(extensionIO), extensionIO));
+        } catch (IllegalArgumentException e) {
+            log.debug("Cannot guard extension '{}'", extensionIO.getClass().getName(), e);
+
+            return extensionIO;
+        }
+    }
+
+    /**
+     * Retrieves the plugin owning an extension, looked up once per class. Instrumentation proxies are defined by the
+     * classloader of the extension and therefore resolve to the same plugin.
+     *
+     * @param extensionIO the extension
+     * @return the identifier of the owning plugin, or {@link ExtensionMetrics#SYSTEM} for extensions of the host
+     */
+    private String getOwner(Object extensionIO) {
+        return ownersIO.computeIfAbsent(extensionIO.getClass(), keyIO -> {
+            PluginWrapper pluginIO = managerIO.whichPlugin(keyIO);
+
+            return pluginIO != null ? pluginIO.getPluginId() : ExtensionMetrics.SYSTEM;
+        });
+    }
+
+    /**
+     * Retrieves the guard of a plugin, created on first access.
+     *
+     * @param pluginId the unique identifier of the plugin
+     * @return the guard of the plugin
+     */
+    private PluginGuard getGuard(String pluginId) {
+        return guardsIO.computeIfAbsent(pluginId, idIO -> new PluginGuard(maxConcurrentCalls));
+    }
+
+    /**
+     * Retrieves the circuit state of a plugin.
+     *
+     * @param pluginId the unique identifier of the plugin
+     * @return the circuit state, {@link CircuitState#CLOSED} if the extensions of the plugin weren't called yet
+     */
+    public CircuitState getState(String pluginId) {
+        PluginGuard guardIO = guardsIO.get(pluginId);
+
+        return guardIO == null ? CircuitState.CLOSED : guardIO.getState(openDuration);
+    }
+
+    /**
+     * Retrieves the number of consecutive failures of a plugin.
+     *
+     * @param pluginId the unique identifier of the plugin
+     * @return the consecutive failures
+     */
+    public int getFailures(String pluginId) {
+        PluginGuard guardIO = guardsIO.get(pluginId);
+
+        return guardIO == null ? 0 : guardIO.failures;
+    }
+
+    /**
+     * Retrieves the number of calls of a plugin rejected by the bulkhead or the open circuit.
+     *
+     * @param pluginId the unique identifier of the plugin
+     * @return the rejected calls
+     */
+    public long getRejected(String pluginId) {
+        PluginGuard guardIO = guardsIO.get(pluginId);
+
+        return guardIO == null ? 0 : guardIO.rejected.sum();
+    }
+
+    /**
+     * Closes the circuit of a plugin and forgets its failures.
+     *
+     * @param pluginId the unique identifier of the plugin
+     */
+    public void reset(String pluginId) {
+        guardsIO.remove(pluginId);
+    }
+
+    /**
+     * Resets the guard of a plugin whenever it is started, stopped or unloaded.
+     *
+     * @param event the plugin state event
+     */
+    @Override
+    public void pluginStateChanged(PluginStateEvent event) {
+        PluginState stateIO = event.getPluginState();
+
+        if (stateIO == PluginState.STARTED || stateIO == PluginState.STOPPED || stateIO == PluginState.UNLOADED) {
+            String pluginId = event.getPlugin().getPluginId();
+
+            this.reset(pluginId);
+
+            ownersIO.entrySet().removeIf(entryIO -> entryIO.getValue().equals(pluginId));
+        }
+    }
+
+    /**
+     * Retrieves the pool executing guarded calls, created on first use. The pool doesn't queue, a call finding
+     * every thread busy is rejected like a call exceeding the bulkhead.
+     *
+     * @return the pool of the guard
+     */
+    private ThreadPoolExecutor getExecutor() {
+        ThreadPoolExecutor currentIO = executorIO;
+
+        if (currentIO == null) {
+            synchronized (this) {
+                currentIO = executorIO;
+
+                if (currentIO == null) {
+                    AtomicInteger counterIO = new AtomicInteger();
+
+                    this.executorIO = currentIO = new ThreadPoolExecutor(0, maxThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnableIO -> {
+                        Thread threadIO = new Thread(runnableIO, "plugin-extension-" + counterIO.incrementAndGet());
+
+                        threadIO.setDaemon(true);
+
+                        return threadIO;
+                    });
+                }
+            }
+        }
+
+        return currentIO;
+    }
+
+    /**
+     * Checks whether a method has to be called on the calling thread, see {@link CallerThread}.
+     *
+     * @param methodIO the called method
+     * @return true if the method is called on the calling thread, false otherwise
+     */
+    private boolean isCallerThread(Method methodIO) {
+        return timeout <= 0 || methodIO.isAnnotationPresent(CallerThread.class) || methodIO.getDeclaringClass().isAnnotationPresent(CallerThread.class);
+    }
+
+    /**
+     * Stops the pool executing guarded calls, running calls are interrupted.
+     */
+    public synchronized void shutdown() {
+        if (executorIO != null)
+            executorIO.shutdownNow();
+
+        this.executorIO = null;
+    }
+
+    /**
+     * Creates the fallback value of a rejected call.
+     *
+     * @param typeIO the return type of the called method
+     * @return the fallback value
+     */
+    static Object getFallback(Class<?> typeIO) {
+        if (typeIO.isPrimitive())
+            return PRIMITIVES.get(typeIO);
+
+        if (typeIO == Optional.class)
+            return Optional.empty();
+
+        if (typeIO.isAssignableFrom(ArrayList.class))
+            return new ArrayList<>();
+
+        if (typeIO.isAssignableFrom(HashSet.class))
+            return new HashSet<>();
+
+        if (typeIO.isAssignableFrom(HashMap.class))
+            return new HashMap<>();
+
+        return null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+        this.maxConcurrentCalls = Math.max(maxConcurrentCalls, 1);
+
+        guardsIO.clear();
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = Math.max(failureThreshold, 1);
+    }
+
+    public long getOpenDuration() {
+        return openDuration;
+    }
+
+    public void setOpenDuration(long openDuration) {
+        this.openDuration = openDuration;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public synchronized void setMaxThreads(int maxThreads) {
+        this.maxThreads = Math.max(maxThreads, 1);
+
+        if (executorIO != null)
+            executorIO.setMaximumPoolSize(this.maxThreads);
+    }
+
+    /**
+     * The invocation handler of guarding proxies.
+     */
+    private class Handler implements InvocationHandler {
+        private final String pluginId;
+
+        private final Object target;
+
+        Handler(String pluginId, Object target) {
+            this.pluginId = pluginId;
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                // Compare Proxies by their Targets.
+                if (method.getName().equals("equals"))
+                    return args[0] != null && Proxy.isProxyClass(args[0].getClass()) && Proxy.getInvocationHandler(args[0]) instanceof Handler handlerIO ? target.equals(handlerIO.target) : target.equals(args[0]);
+
+                return dispatcherIO.invoke(target, method, args);
+            }
+
+            PluginGuard guardIO = getGuard(pluginId);
+            int permitIO = guardIO.tryAcquire(openDuration);
+
+            if (permitIO == PluginGuard.REJECTED) {
+                log.debug("Rejected call of {}#{} of plugin '{}', circuit is {}.", method.getDeclaringClass().getName(), method.getName(), pluginId, guardIO.getState(openDuration));
+
+                return getFallback(method.getReturnType());
+            }
+
+            if (isCallerThread(method))
+                return this.invokeDirect(guardIO, permitIO, method, args);
+
+            return this.invokeTimed(guardIO, permitIO, method, args);
+        }
+
+        /**
+         * Calls the extension on the calling thread, a call exceeding the timeout counts as failure once it returned.
+         *
+         * @param guardIO  the guard of the plugin
+         * @param permitIO the permit of the call
+         * @param method   the called method
+         * @param args     the arguments of the call
+         * @return the result of the call
+         * @throws Throwable the exception of the extension
+         */
+        private Object invokeDirect(PluginGuard guardIO, int permitIO, Method method, Object[] args) throws Throwable {
+            long startIO = System.nanoTime();
+            boolean failedIO = true;
+
+            try {
+                Object resultIO = dispatcherIO.invoke(target, method, args);
+
+                failedIO = timeout > 0 && TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startIO) > timeout;
+
+                if (failedIO)
+                    log.warn("Call of {}#{} of plugin '{}' exceeded the timeout of {} ms.", method.getDeclaringClass().getName(), method.getName(), pluginId, timeout);
+
+                return resultIO;
+            } finally {
+                guardIO.permits.release();
+
+                if (guardIO.record(permitIO, failedIO, failureThreshold))
+                    log.warn("Opened circuit of plugin '{}' after {} consecutive failures.", pluginId, failureThreshold);
+            }
+        }
+
+        /**
+         * Calls the extension on the pool of the guard and waits at most for the timeout. The permit is released
+         * once the call returned, a call exceeding the timeout is interrupted and answered with the fallback. The
+         * context classloader and the security context of the caller are passed to the pool thread, so secured
+         * services called by the extension see the authentication of the caller.
+         *
+         * @param guardIO  the guard of the plugin
+         * @param permitIO the permit of the call
+         * @param method   the called method
+         * @param args     the arguments of the call
+         * @return the result of the call, or the fallback if it was rejected or timed out
+         * @throws Throwable the exception of the extension
+         */
+        private Object invokeTimed(PluginGuard guardIO, int permitIO, Method method, Object[] args) throws Throwable {
+            ClassLoader contextIO = Thread.currentThread().getContextClassLoader();
+            SecurityContext securityIO = SecurityContextHolder.getContext();
+            FutureTask<Object> taskIO = new FutureTask<>(() -> {
+                Thread threadIO = Thread.currentThread();
+                ClassLoader previousIO = threadIO.getContextClassLoader();
+
+                // Keep the Context Classloader and the Security Context of the Caller.
+                threadIO.setContextClassLoader(contextIO);
+                SecurityContextHolder.setContext(securityIO);
+
+                try {
+                    return dispatcherIO.invoke(target, method, args);
+                } catch (Exception | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new UndeclaredThrowableException(e);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                    threadIO.setContextClassLoader(previousIO);
+                }
+            });
+
+            try {
+                getExecutor().execute(() -> {
+                    try {
+                        taskIO.run();
+                    } finally {
+                        guardIO.permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                guardIO.permits.release();
+                guardIO.rejected.increment();
+
+                // Let another Call try a half open Circuit.
+                if (permitIO == PluginGuard.TRIAL)
+                    guardIO.trial.set(false);
+
+                log.debug("Rejected call of {}#{} of plugin '{}', no guard thread available.", method.getDeclaringClass().getName(), method.getName(), pluginId);
+
+                return getFallback(method.getReturnType());
+            }
+
+            boolean failedIO = true;
+
+            try {
+                Object resultIO = taskIO.get(timeout, TimeUnit.MILLISECONDS);
+
+                failedIO = false;
+
+                return resultIO;
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            } catch (TimeoutException e) {
+                taskIO.cancel(true);
+
+                log.warn("Call of {}#{} of plugin '{}' exceeded the timeout of {} ms, returning fallback.", method.getDeclaringClass().getName(), method.getName(), pluginId, timeout);
+
+                return getFallback(method.getReturnType());
+            } catch (InterruptedException e) {
+                taskIO.cancel(true);
+
+                Thread.currentThread().interrupt();
+
+                return getFallback(method.getReturnType());
+            } finally {
+                if (guardIO.record(permitIO, failedIO, failureThreshold))
+                    log.warn("Opened circuit of plugin '{}' after {} consecutive failures.", pluginId, failureThreshold);
+            }
+        }
+    }
+
+    /**
+     * The bulkhead and circuit breaker of a single plugin.
+     */
+    private static class PluginGuard {
+        static final int REJECTED = 0;
+
+        static final int PASSED = 1;
+
+        static final int TRIAL = 2;
+
+        private final Semaphore permits;
+
+        private final AtomicBoolean trial = new AtomicBoolean();
+
+        private final LongAdder rejected = new LongAdder();
+
+        private volatile CircuitState state = CircuitState.CLOSED;
+
+        private volatile int failures;
+
+        private volatile long openedAt;
+
+        PluginGuard(int permitsIO) {
+            this.permits = new Semaphore(permitsIO);
+        }
+
+        /**
+         * Retrieves the current circuit state, an open circuit becomes half open once the open duration elapsed.
+         *
+         * @param openDuration the open duration in milliseconds
+         * @return the circuit state
+         */
+        CircuitState getState(long openDuration) {
+            if (state == CircuitState.OPEN && System.currentTimeMillis() - openedAt >= openDuration)
+                return CircuitState.HALF_OPEN;
+
+            return state;
+        }
+
+        /**
+         * Tries to pass a call into the plugin. A half open circuit only lets a single trial call pass.
+         *
+         * @param openDuration the open duration in milliseconds
+         * @return {@link #PASSED} or {@link #TRIAL} if the call may pass, {@link #REJECTED} if it must return the fallback
+         */
+        int tryAcquire(long openDuration) {
+            CircuitState stateIO = this.getState(openDuration);
+
+            if (stateIO == CircuitState.OPEN || stateIO == CircuitState.HALF_OPEN && !trial.compareAndSet(false, true)) {
+                rejected.increment();
+
+                return REJECTED;
+            }
+
+            if (!permits.tryAcquire()) {
+                if (stateIO == CircuitState.HALF_OPEN)
+                    trial.set(false);
+
+                rejected.increment();
+
+                return REJECTED;
+            }
+
+            return stateIO == CircuitState.HALF_OPEN ? TRIAL : PASSED;
+        }
+
+        /**
+         * Records the outcome of a call. Only the trial call decides about a half open circuit, outcomes of calls
+         * started before the circuit opened are ignored while it is open. The bulkhead permit is released
+         * separately, once the call really returned.
+         *
+         * @param permitIO         the permit returned by {@link #tryAcquire(long)}
+         * @param failedIO         whether the call failed or exceeded the timeout
+         * @param failureThreshold the consecutive failures opening the circuit
+         * @return true if the circuit was opened by this call, false otherwise
+         */
+        synchronized boolean record(int permitIO, boolean failedIO, int failureThreshold) {
+            if (permitIO == TRIAL) {
+                trial.set(false);
+
+                state = failedIO ? CircuitState.OPEN : CircuitState.CLOSED;
+                failures = failedIO ? failures + 1 : 0;
+                openedAt = System.currentTimeMillis();
+
+                return false;
+            }
+
+            if (state != CircuitState.CLOSED)
+                return false;
+
+            failures = failedIO ? failures + 1 : 0;
+
+            if (failures < failureThreshold)
+                return false;
+
+            state = CircuitState.OPEN;
+            openedAt = System.currentTimeMillis();
+
+            return true;
+        }
+    }
+}
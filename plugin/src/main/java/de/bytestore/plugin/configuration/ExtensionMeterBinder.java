@@ -0,0 +1,91 @@
+package de.bytestore.plugin.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExtensionMeterBinder publishes the invocations recorded by {@link ExtensionMetrics} through Micrometer.
+ *
+ * Every method of an extension point of a plugin gets a timer named {@value #METER} with the tags {@code plugin},
+ * {@code point}, {@code method} and {@code outcome} ({@code success} or {@code error}), publishing a percentile
+ * histogram. The count of the {@code error} timer is the error count of the method.
+ *
+ * The {@link MeterRegistry} is looked up lazily from the host context, so the binder can be created before the
+ * registry exists. This class must only be loaded if Micrometer is present, see
+ * {@link ExtensionMetrics#isMicrometerPresent()}.
+ */
+public class ExtensionMeterBinder {
+    /**
+     * The name of the timers of extension invocations.
+     */
+    public static final String METER = "plugin.extension.invocations";
+
+    // Store Host Context holding the Meter Registry.
+    private final ApplicationContext contextIO;
+
+    // Store Timers by Plugin, Extension Point, Method and Outcome.
+    private final Map<String, Timer> timersIO = new ConcurrentHashMap<>();
+
+    // Store resolved Meter Registry.
+    private volatile MeterRegistry registryIO;
+
+    private volatile boolean resolved;
+
+    /**
+     * Constructs a new ExtensionMeterBinder.
+     *
+     * @param contextIO the host context holding the meter registry
+     */
+    public ExtensionMeterBinder(ApplicationContext contextIO) {
+        this.contextIO = contextIO;
+    }
+
+    /**
+     * Records a single invocation into the timer of the method.
+     *
+     * @param pluginId the unique identifier of the plugin
+     * @param pointIO  the name of the extension point
+     * @param methodIO the name of the method
+     * @param nanosIO  the duration of the invocation in nanoseconds
+     * @param failedIO whether the invocation threw an exception
+     */
+    public void record(String pluginId, String pointIO, String methodIO, long nanosIO, boolean failedIO) {
+        MeterRegistry meterRegistry = this.getRegistry();
+
+        if (meterRegistry == null)
+            return;
+
+        String outcomeIO = failedIO ? "error" : "success";
+
+        timersIO.computeIfAbsent(pluginId + "\u0000" + pointIO + "\u0000" + methodIO + "\u0000" + outcomeIO, keyIO -> Timer.builder(METER)
+                .description("Invocations of plugin extensions")
+                .tag("plugin", pluginId)
+                .tag("point", pointIO)
+                .tag("method", methodIO)
+                .tag("outcome", outcomeIO)
+                .publishPercentileHistogram()
+                .register(meterRegistry)).record(nanosIO, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Retrieves the meter registry of the host context. The lookup is repeated until the host context is active,
+     * afterwards a missing registry is remembered.
+     *
+     * @return the meter registry, or null if the host has none
+     */
+    private MeterRegistry getRegistry() {
+        if (registryIO != null || resolved)
+            return registryIO;
+
+        registryIO = contextIO.getBeanProvider(MeterRegistry.class).getIfAvailable();
+        resolved = !(contextIO instanceof ConfigurableApplicationContext configurableIO) || configurableIO.isActive();
+
+        return registryIO;
+    }
+}
@@ -0,0 +1,422 @@
+package de.bytestore.plugin.configuration;
+
+import org.pf4j.PluginManager;
+import org.pf4j.PluginState;
+import org.pf4j.PluginStateEvent;
+import org.pf4j.PluginStateListener;
+import org.pf4j.PluginWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ExtensionMetrics records invocations of extensions by wrapping them into instrumentation proxies.
+ *
+ * Every extension implementing at least one interface is wrapped into a JDK proxy implementing all interfaces of the
+ * extension. The proxy counts calls and errors and records the latency of every method into a fixed bucket histogram,
+ * per plugin id, extension point and method. If Micrometer is present, the invocations are additionally published
+ * through an {@link ExtensionMeterBinder}. Methods of {@link Object} are passed through without being recorded.
+ *
+ * Calls are passed to the extension through the {@link ExtensionDispatcher}. Extensions of extension points that are
+ * classes instead of interfaces can't be proxied and are returned as they are.
+ * Instrumentation is disabled by default, in which case the extensions are returned unchanged.
+ */
+public class ExtensionMetrics implements PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(ExtensionMetrics.class);
+
+    /**
+     * The plugin id used for extensions provided by the host application.
+     */
+    public static final String SYSTEM = "system";
+
+    /**
+     * The upper bounds of the latency histogram buckets in milliseconds, the last bucket is unbounded.
+     */
+    public static final long[] BUCKETS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000};
+
+    // Store Plugin Manager owning the Extensions.
+    private final PluginManager managerIO;
+
+    // Store Dispatcher invoking the Extensions.
+    private final ExtensionDispatcher dispatcherIO;
+
+    // Store Statistics by Plugin, Extension Point and Method.
+    private final Map<String, MethodStatistic> statisticsIO = new ConcurrentHashMap<>();
+
+    // Store owning Plugin of every Extension Class.
+    private final Map<Class<?>, String> ownersIO = new ConcurrentHashMap<>();
+
+    // Store Binder publishing to Micrometer.
+    private volatile ExtensionMeterBinder meterBinder;
+
+    private volatile boolean enabled;
+
+    /**
+     * Constructs new ExtensionMetrics.
+     *
+     * @param managerIO    the plugin manager owning the extensions
+     * @param dispatcherIO the dispatcher invoking the extensions
+     */
+    public ExtensionMetrics(PluginManager managerIO, ExtensionDispatcher dispatcherIO) {
+        this.managerIO = managerIO;
+        this.dispatcherIO = dispatcherIO;
+    }
+
+    /**
+     * Checks whether Micrometer is present on the classpath of the addon. The check doesn't touch any Micrometer
+     * type, so it can be called before an {@link ExtensionMeterBinder} is loaded.
+     *
+     * @return true if Micrometer is present, false otherwise
+     */
+    public static boolean isMicrometerPresent() {
+        return ClassUtils.isPresent("io.micrometer.core.instrument.MeterRegistry", ExtensionMetrics.class.getClassLoader());
+    }
+
+    /**
+     * Wraps the extensions of an extension point into instrumentation proxies. If instrumentation is disabled,
+     * the given list is returned unchanged.
+     *
+     * @param typeIO       the extension point
+     * @param extensionsIO the extensions to be wrapped
+     * @param <T>          the type of the extension point
+     * @return the instrumented extensions
+     */
+    public <T> List<T> instrument(Class<T> typeIO, List<T> extensionsIO) {
+        if (!enabled || !typeIO.isInterface())
+            return extensionsIO;
+
+        List<T> instrumentedIO = new ArrayList<>(extensionsIO.size());
+
+        for (T extensionIO : extensionsIO) {
+            instrumentedIO.add(this.instrument(typeIO, extensionIO));
+        }
+
+        return instrumentedIO;
+    }
+
+    /**
+     * Wraps a single extension into an instrumentation proxy. Extensions that are already instrumented are
+     * returned as they are.
+     *
+     * @param typeIO      the extension point
+     * @param extensionIO the extension to be wrapped
+     * @param <T>         the type of the extension point
+     * @return the instrumented extension
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T instrument(Class<T> typeIO, T extensionIO) {
+        if (extensionIO == null || !typeIO.isInterface() || Proxy.isProxyClass(extensionIO.getClass()) && Proxy.getInvocationHandler(extensionIO) instanceof Handler)
+            return extensionIO;
+
+        Class<?> classIO = extensionIO.getClass();
+        ClassLoader loaderIO = classIO.getClassLoader() != null ? classIO.getClassLoader() : typeIO.getClassLoader();
+        Class<?>[] interfacesIO = ClassUtils.getAllInterfacesForClass(classIO, loaderIO);
+
+        if (interfacesIO.length == 0)
+            interfacesIO = new Class<?>[]{typeIO};
+
+        try {
+            return (T) Proxy.newProxyInstance(loaderIO, interfacesIO, new Handler(this.getOwner(classIO), typeIO.getName(), extensionIO));
+        } catch (IllegalArgumentException e) {
+            log.debug("Cannot instrument extension '{}'", classIO.getName(), e);
+
+            return extensionIO;
+        }
+    }
+
+    /**
+     * Retrieves the plugin owning an extension class, looked up once per class.
+     *
+     * @param classIO the extension class
+     * @return the identifier of the owning plugin, or {@link #SYSTEM} for extensions of the host
+     */
+    private String getOwner(Class<?> classIO) {
+        return ownersIO.computeIfAbsent(classIO, keyIO -> {
+            PluginWrapper pluginIO = managerIO.whichPlugin(keyIO);
+
+            return pluginIO != null ? pluginIO.getPluginId() : SYSTEM;
+        });
+    }
+
+    /**
+     * Retrieves the statistic of a method of an extension point of a plugin, created on first access.
+     *
+     * @param pluginId the unique identifier of the plugin
+     * @param pointIO  the name of the extension point
+     * @param methodIO the name of the method
+     * @return the method statistic
+     */
+    MethodStatistic getStatistic(String pluginId, String pointIO, String methodIO) {
+        return statisticsIO.computeIfAbsent(pluginId + "\u0000" + pointIO + "\u0000" + methodIO, keyIO -> new MethodStatistic(pluginId, pointIO, methodIO));
+    }
+
+    /**
+     * Retrieves a snapshot of all recorded statistics, ordered by plugin, extension point and method.
+     *
+     * @return the list of statistics
+     */
+    public List<Statistic> getStatistics() {
+        List<Statistic> snapshotIO = new ArrayList<>();
+
+        statisticsIO.values().forEach(statisticIO -> snapshotIO.add(statisticIO.snapshot()));
+
+        snapshotIO.sort(Comparator.comparing(Statistic::getPluginId).thenComparing(Statistic::getPoint).thenComparing(Statistic::getMethod));
+
+        return snapshotIO;
+    }
+
+    /**
+     * Retrieves a snapshot of the recorded statistics of a single plugin.
+     *
+     * @param pluginId the unique identifier of the plugin
+     * @return the list of statistics of the plugin
+     */
+    public List<Statistic> getStatistics(String pluginId) {
+        return this.getStatistics().stream().filter(statisticIO -> statisticIO.getPluginId().equals(pluginId)).toList();
+    }
+
+    /**
+     * Drops all recorded statistics.
+     */
+    public void reset() {
+        statisticsIO.clear();
+    }
+
+    /**
+     * Forgets the owners of extension classes of unloaded plugins, so their classloaders can be collected.
+     *
+     * @param event the plugin state event
+     */
+    @Override
+    public void pluginStateChanged(PluginStateEvent event) {
+        if (event.getPluginState() == PluginState.UNLOADED || event.getPluginState() == PluginState.STOPPED)
+            ownersIO.entrySet().removeIf(entryIO -> entryIO.getValue().equals(event.getPlugin().getPluginId()));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public ExtensionMeterBinder getMeterBinder() {
+        return meterBinder;
+    }
+
+    public void setMeterBinder(ExtensionMeterBinder meterBinder) {
+        this.meterBinder = meterBinder;
+    }
+
+    /**
+     * The invocation handler of instrumentation proxies.
+     */
+    private class Handler implements InvocationHandler {
+        private final String pluginId;
+
+        private final String point;
+
+        private final Object target;
+
+        // Store Statistic of every invoked Method.
+        private final Map<Method, MethodStatistic> methodsIO = new ConcurrentHashMap<>();
+
+        Handler(String pluginId, String point, Object target) {
+            this.pluginId = pluginId;
+            this.point = point;
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                // Compare Proxies by Identity of their Targets.
+                if (method.getName().equals("equals"))
+                    return args[0] != null && Proxy.isProxyClass(args[0].getClass()) && Proxy.getInvocationHandler(args[0]) instanceof Handler handlerIO ? target.equals(handlerIO.target) : target.equals(args[0]);
+
+                return dispatcherIO.invoke(target, method, args);
+            }
+
+            MethodStatistic statisticIO = methodsIO.get(method);
+
+            if (statisticIO == null)
+                statisticIO = methodsIO.computeIfAbsent(method, methodIO -> getStatistic(pluginId, point, methodIO.getName()));
+
+            long startIO = System.nanoTime();
+            boolean failedIO = false;
+
+            try {
+                return dispatcherIO.invoke(target, method, args);
+            } catch (Throwable e) {
+                failedIO = true;
+
+                throw e;
+            } finally {
+                statisticIO.record(System.nanoTime() - startIO, failedIO, meterBinder);
+            }
+        }
+    }
+
+    /**
+     * The live statistic of a single method of an extension point of a plugin.
+     */
+    static class MethodStatistic {
+        private final String pluginId;
+
+        private final String point;
+
+        private final String method;
+
+        private final LongAdder calls = new LongAdder();
+
+        private final LongAdder errors = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+        private final LongAdder[] buckets = new LongAdder[BUCKETS.length + 1];
+
+        MethodStatistic(String pluginId, String point, String method) {
+            this.pluginId = pluginId;
+            this.point = point;
+            this.method = method;
+
+            Arrays.setAll(buckets, indexIO -> new LongAdder());
+        }
+
+        /**
+         * Records a single invocation.
+         *
+         * @param nanosIO  the duration of the invocation in nanoseconds
+         * @param failedIO whether the invocation threw an exception
+         * @param binderIO the binder publishing to Micrometer, or null
+         */
+        void record(long nanosIO, boolean failedIO, ExtensionMeterBinder binderIO) {
+            calls.increment();
+            totalNanos.add(nanosIO);
+            maxNanos.accumulate(nanosIO);
+
+            if (failedIO)
+                errors.increment();
+
+            long millisIO = TimeUnit.NANOSECONDS.toMillis(nanosIO);
+            int bucketIO = 0;
+
+            while (bucketIO < BUCKETS.length && millisIO >= BUCKETS[bucketIO])
+                bucketIO++;
+
+            buckets[bucketIO].increment();
+
+            if (binderIO != null)
+                binderIO.record(pluginId, point, method, nanosIO, failedIO);
+        }
+
+        /**
+         * Creates an immutable snapshot of the statistic.
+         *
+         * @return the snapshot
+         */
+        Statistic snapshot() {
+            long[] countsIO = new long[buckets.length];
+
+            Arrays.setAll(countsIO, indexIO -> buckets[indexIO].sum());
+
+            return new Statistic(pluginId, point, method, calls.sum(), errors.sum(), totalNanos.sum(), maxNanos.get(), countsIO);
+        }
+    }
+
+    /**
+     * An immutable snapshot of the invocations of a single method of an extension point of a plugin.
+     */
+    public static class Statistic {
+        private final String pluginId;
+
+        private final String point;
+
+        private final String method;
+
+        private final long calls;
+
+        private final long errors;
+
+        private final long totalNanos;
+
+        private final long maxNanos;
+
+        private final long[] buckets;
+
+        Statistic(String pluginId, String point, String method, long calls, long errors, long totalNanos, long maxNanos, long[] buckets) {
+            this.pluginId = pluginId;
+            this.point = point;
+            this.method = method;
+            this.calls = calls;
+            this.errors = errors;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.buckets = buckets;
+        }
+
+        public String getPluginId() {
+            return pluginId;
+        }
+
+        public String getPoint() {
+            return point;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * Retrieves the mean latency of the method.
+         *
+         * @return the mean latency in milliseconds, or 0 without calls
+         */
+        public double getMeanMillis() {
+            return calls == 0 ? 0 : totalNanos / (double) calls / 1_000_000d;
+        }
+
+        /**
+         * Retrieves the number of calls per histogram bucket, see {@link #BUCKETS}. The last entry counts calls
+         * exceeding the largest bound.
+         *
+         * @return the calls per bucket
+         */
+        public long[] getBuckets() {
+            return buckets.clone();
+        }
+
+        @Override
+        public String toString() {
+            return pluginId + "/" + point + "#" + method + "[calls=" + calls + ", errors=" + errors + ", mean=" + String.format(Locale.ROOT, "%.3f", getMeanMillis()) + "ms, max=" + TimeUnit.NANOSECONDS.toMillis(maxNanos) + "ms]";
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package de.bytestore.plugin.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * HostContextExports controls which beans of the host application are visible to the Spring contexts of plugins.
+ *
+ * The exports are a whitelist of bean names or fully qualified bean types. The exported beans are collected
+ * once into a plain {@link DefaultListableBeanFactory}, which is used as parent bean factory of every plugin
+ * context, so plugins get host beans injected at creation time instead of looking them up via
+ * {@link de.bytestore.plugin.AutowireLoader}. Being a bean factory instead of a context, the exports never
+ * start, stop or destroy the host beans. The single entry {@code *} exports the whole host context.
+ *
+ * Without exports, plugin contexts have no parent, like before.
+ */
+public class HostContextExports {
+    private static final Logger log = LoggerFactory.getLogger(HostContextExports.class);
+
+    /**
+     * The export entry making the whole host context the parent of plugin contexts.
+     */
+    public static final String EXPORT_ALL = "*";
+
+    // Store exported Bean Names or Types.
+    private final List<String> exportsIO;
+
+    // Store Host Context the Factory was created for.
+    private ApplicationContext hostIO;
+
+    // Store Factory holding exported Beans.
+    private DefaultListableBeanFactory factoryIO;
+
+    /**
+     * Constructs new HostContextExports.
+     *
+     * @param exportsIO the exported bean names or fully qualified bean types, or {@code *} to export everything
+     */
+    public HostContextExports(List<String> exportsIO) {
+        this.exportsIO = Collections.unmodifiableList(new ArrayList<>(exportsIO));
+    }
+
+    /**
+     * Checks whether any host bean is exported.
+     *
+     * @return true if plugin contexts get a parent, false otherwise
+     */
+    public boolean isEnabled() {
+        return !exportsIO.isEmpty();
+    }
+
+    /**
+     * Checks whether the whole host context is exported.
+     *
+     * @return true if the host context is used as parent of plugin contexts, false otherwise
+     */
+    public boolean isExportAll() {
+        return exportsIO.contains(EXPORT_ALL);
+    }
+
+    /**
+     * Retrieves the exported bean names or types.
+     *
+     * @return the unmodifiable list of exports
+     */
+    public List<String> getExports() {
+        return exportsIO;
+    }
+
+    /**
+     * Retrieves the bean factory holding the exported beans of the given host context. The factory is created
+     * on first access and reused for every plugin context of the same host context.
+     *
+     * @param hostIO the application context of the host
+     * @return the bean factory with the exported host beans
+     */
+    public synchronized BeanFactory getBeanFactory(ApplicationContext hostIO) {
+        if (factoryIO != null && this.hostIO == hostIO)
+            return factoryIO;
+
+        DefaultListableBeanFactory createdIO = new DefaultListableBeanFactory();
+
+        for (String exportIO : exportsIO) {
+            List<String> namesIO = this.resolve(hostIO, exportIO);
+
+            if (namesIO.isEmpty())
+                log.warn("Exported host bean '{}' not found.", exportIO);
+
+            for (String nameIO : namesIO) {
+                if (!createdIO.containsSingleton(nameIO))
+                    createdIO.registerSingleton(nameIO, hostIO.getBean(nameIO));
+            }
+        }
+
+        log.info("Exporting {} host beans to plugin contexts.", createdIO.getSingletonCount());
+
+        this.hostIO = hostIO;
+        this.factoryIO = createdIO;
+
+        return createdIO;
+    }
+
+    /**
+     * Resolves an export entry to the names of matching host beans. Entries that are loadable classes
+     * are resolved by type, all other entries by bean name.
+     *
+     * @param hostIO   the application context of the host
+     * @param exportIO the bean name or fully qualified bean type
+     * @return the names of the exported beans
+     */
+    private List<String> resolve(ApplicationContext hostIO, String exportIO) {
+        ClassLoader loaderIO = hostIO.getClassLoader();
+
+        if (ClassUtils.isPresent(exportIO, loaderIO)) {
+            Class<?> typeIO = ClassUtils.resolveClassName(exportIO, loaderIO);
+
+            return List.of(BeanFactoryUtils.beanNamesForTypeIncludingAncestors(hostIO, typeIO));
+        }
+
+        return hostIO.containsBean(exportIO) ? List.of(exportIO) : Collections.emptyList();
+    }
+}
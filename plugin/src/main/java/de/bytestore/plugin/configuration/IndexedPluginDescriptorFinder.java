@@ -0,0 +1,309 @@
+package de.bytestore.plugin.configuration;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.pf4j.DefaultPluginDescriptor;
+import org.pf4j.PluginDependency;
+import org.pf4j.PluginDescriptor;
+import org.pf4j.PluginDescriptorFinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * IndexedPluginDescriptorFinder is a {@link PluginDescriptorFinder} that keeps a persistent index of
+ * plugin descriptors in the plugins home directory, so unchanged plugin archives don't have to be
+ * opened on every start to read their {@code plugin.properties} or manifest.
+ *
+ * Every entry of the index is keyed by the plugin path and carries the size, modification time and
+ * SHA-256 hash of the path together with id, version, requires, dependencies and plugin class of the
+ * descriptor. An entry is used as long as size and modification time match; if they differ the content
+ * hash decides whether the archive really changed. Only then the wrapped finder reads the archive.
+ *
+ * The index is disabled by default, in which case every call is passed to the wrapped finder.
+ * Independent of the index, descriptors read ahead by {@link #prefetch(Path)} are kept in memory
+ * until the plugin is loaded.
+ */
+public class IndexedPluginDescriptorFinder implements PluginDescriptorFinder {
+    private static final Logger log = LoggerFactory.getLogger(IndexedPluginDescriptorFinder.class);
+
+    /**
+     * The name of the index file inside the plugins home directory.
+     */
+    public static final String INDEX_FILE = ".plugin-index.json";
+
+    private final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+
+    // Store Finder reading the Archives.
+    private final PluginDescriptorFinder finderIO;
+
+    // Store Path of the Index File.
+    private final Path indexIO;
+
+    // Store Index Entries by normalized Plugin Path.
+    private final Map<String, Entry> entriesIO = new HashMap<>();
+
+    // Store prefetched Descriptors by normalized Plugin Path.
+    private final Map<String, Prefetched> prefetchedIO = new HashMap<>();
+
+    private boolean enabled;
+
+    private boolean loaded;
+
+    private boolean dirty;
+
+    /**
+     * Constructs a new IndexedPluginDescriptorFinder.
+     *
+     * @param finderIO the finder used to read descriptors of new or changed plugins
+     * @param indexIO  the path of the index file
+     */
+    public IndexedPluginDescriptorFinder(PluginDescriptorFinder finderIO, Path indexIO) {
+        this.finderIO = finderIO;
+        this.indexIO = indexIO;
+    }
+
+    @Override
+    public boolean isApplicable(Path pluginPath) {
+        return finderIO.isApplicable(pluginPath);
+    }
+
+    /**
+     * Finds the descriptor of a plugin, preferring the index entry of the path if the path is unchanged.
+     *
+     * @param pluginPath the path of the plugin archive or directory
+     * @return the descriptor of the plugin
+     */
+    @Override
+    public synchronized PluginDescriptor find(Path pluginPath) {
+        Prefetched prefetchIO = prefetchedIO.remove(key(pluginPath));
+
+        // Use prefetched Descriptor once if the Path is unchanged.
+        if (prefetchIO != null && prefetchIO.fingerprint.isUnmodified(pluginPath))
+            return prefetchIO.descriptor;
+
+        if (!enabled)
+            return finderIO.find(pluginPath);
+
+        this.load();
+
+        String keyIO = key(pluginPath);
+        PluginFingerprint statIO = PluginFingerprint.stat(pluginPath);
+        Entry entryIO = entriesIO.get(keyIO);
+
+        // Use Entry if Size and Modification Time match.
+        if (entryIO != null && entryIO.size == statIO.getSize() && entryIO.modified == statIO.getModified())
+            return entryIO.toDescriptor();
+
+        String hashIO = PluginFingerprint.hash(pluginPath);
+
+        // Use Entry if only touched.
+        if (entryIO != null && hashIO.equals(entryIO.hash)) {
+            entryIO.size = statIO.getSize();
+            entryIO.modified = statIO.getModified();
+            dirty = true;
+
+            return entryIO.toDescriptor();
+        }
+
+        log.debug("Reading descriptor of changed plugin '{}'", pluginPath);
+
+        PluginDescriptor descriptorIO = finderIO.find(pluginPath);
+
+        entriesIO.put(keyIO, Entry.of(descriptorIO, new PluginFingerprint(statIO.getSize(), statIO.getModified(), hashIO)));
+        dirty = true;
+
+        return descriptorIO;
+    }
+
+    /**
+     * Reads the descriptor of a plugin ahead of loading it and keeps it in memory, so the next
+     * {@link #find(Path)} of the unchanged path doesn't read the archive or the index again.
+     *
+     * @param pluginPath the path of the plugin archive or directory
+     * @return the descriptor of the plugin
+     */
+    public synchronized PluginDescriptor prefetch(Path pluginPath) {
+        PluginDescriptor descriptorIO = this.find(pluginPath);
+
+        prefetchedIO.put(key(pluginPath), new Prefetched(PluginFingerprint.stat(pluginPath), descriptorIO));
+
+        return descriptorIO;
+    }
+
+    /**
+     * Retrieves the indexed fingerprint (including the content hash) of a plugin path.
+     *
+     * @param pluginPath the path of the plugin archive or directory
+     * @return the indexed fingerprint, or null if the index is disabled or the path is not indexed
+     */
+    public synchronized PluginFingerprint getFingerprint(Path pluginPath) {
+        if (!enabled)
+            return null;
+
+        this.load();
+
+        Entry entryIO = entriesIO.get(key(pluginPath));
+
+        return entryIO == null ? null : new PluginFingerprint(entryIO.size, entryIO.modified, entryIO.hash);
+    }
+
+    /**
+     * Writes the index file if entries were added or changed. Entries of paths that no longer exist are dropped.
+     * The file is written to a temporary file first and then moved into place.
+     */
+    public synchronized void flush() {
+        if (!enabled || !dirty)
+            return;
+
+        entriesIO.keySet().removeIf(keyIO -> Files.notExists(Paths.get(keyIO)));
+
+        try {
+            Files.createDirectories(indexIO.toAbsolutePath().getParent());
+
+            Path tempIO = indexIO.resolveSibling(INDEX_FILE + ".tmp");
+
+            try (Writer writerIO = Files.newBufferedWriter(tempIO, StandardCharsets.UTF_8)) {
+                gson.toJson(entriesIO, writerIO);
+            }
+
+            Files.move(tempIO, indexIO, StandardCopyOption.REPLACE_EXISTING);
+
+            dirty = false;
+
+            log.debug("Wrote plugin descriptor index with {} entries.", entriesIO.size());
+        } catch (IOException e) {
+            log.warn("Unable to write plugin descriptor index '{}'.", indexIO, e);
+        }
+    }
+
+    /**
+     * Reads the index file once. A missing or unreadable index is treated as empty.
+     */
+    private void load() {
+        if (loaded)
+            return;
+
+        loaded = true;
+
+        if (Files.notExists(indexIO))
+            return;
+
+        try (Reader readerIO = Files.newBufferedReader(indexIO, StandardCharsets.UTF_8)) {
+            Map<String, Entry> readIO = gson.fromJson(readerIO, new TypeToken<Map<String, Entry>>() {
+            }.getType());
+
+            if (readIO != null)
+                entriesIO.putAll(readIO);
+
+            log.info("Read plugin descriptor index with {} entries.", entriesIO.size());
+        } catch (Exception e) {
+            log.warn("Unable to read plugin descriptor index '{}', rebuilding it.", indexIO, e);
+        }
+    }
+
+    /**
+     * Creates the index key of a plugin path.
+     *
+     * @param pluginPath the path of the plugin archive or directory
+     * @return the absolute, normalized path as String
+     */
+    private String key(Path pluginPath) {
+        return pluginPath.toAbsolutePath().normalize().toString();
+    }
+
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * A descriptor read ahead of loading together with the fingerprint of its path.
+     */
+    private static class Prefetched {
+        private final PluginFingerprint fingerprint;
+
+        private final PluginDescriptor descriptor;
+
+        Prefetched(PluginFingerprint fingerprint, PluginDescriptor descriptor) {
+            this.fingerprint = fingerprint;
+            this.descriptor = descriptor;
+        }
+    }
+
+    /**
+     * A single entry of the descriptor index.
+     */
+    static class Entry {
+        long size;
+        long modified;
+        String hash;
+        String id;
+        String version;
+        String requires;
+        List<String> dependencies;
+        String pluginClass;
+        String description;
+        String provider;
+        String license;
+
+        /**
+         * Creates an entry from a descriptor and the fingerprint of its path.
+         *
+         * @param descriptorIO  the descriptor read from the archive
+         * @param fingerprintIO the fingerprint of the archive
+         * @return the new entry
+         */
+        static Entry of(PluginDescriptor descriptorIO, PluginFingerprint fingerprintIO) {
+            Entry entryIO = new Entry();
+
+            entryIO.size = fingerprintIO.getSize();
+            entryIO.modified = fingerprintIO.getModified();
+            entryIO.hash = fingerprintIO.getHash();
+            entryIO.id = descriptorIO.getPluginId();
+            entryIO.version = descriptorIO.getVersion();
+            entryIO.requires = descriptorIO.getRequires();
+            entryIO.pluginClass = descriptorIO.getPluginClass();
+            entryIO.description = descriptorIO.getPluginDescription();
+            entryIO.provider = descriptorIO.getProvider();
+            entryIO.license = descriptorIO.getLicense();
+            entryIO.dependencies = new ArrayList<>();
+
+            for (PluginDependency dependencyIO : descriptorIO.getDependencies()) {
+                entryIO.dependencies.add(dependencyIO.getPluginId() + (dependencyIO.isOptional() ? "?" : "") + "@" + dependencyIO.getPluginVersionSupport());
+            }
+
+            return entryIO;
+        }
+
+        /**
+         * Creates a new descriptor from this entry.
+         *
+         * @return the plugin descriptor
+         */
+        PluginDescriptor toDescriptor() {
+            DefaultPluginDescriptor descriptorIO = new DefaultPluginDescriptor(id, description, pluginClass, version, requires == null ? "*" : requires, provider, license);
+
+            if (dependencies != null)
+                dependencies.forEach(dependencyIO -> descriptorIO.addDependency(new PluginDependency(dependencyIO)));
+
+            return descriptorIO;
+        }
+    }
+}
@@ -1,11 +1,30 @@
 package de.bytestore.plugin.configuration;
 
+import org.pf4j.PluginDependency;
 import org.pf4j.PluginManager;
+import org.pf4j.PluginRuntimeException;
+import org.pf4j.PluginState;
+import org.pf4j.PluginStateEvent;
+import org.pf4j.PluginStateListener;
+import org.pf4j.PluginWrapper;
+import org.pf4j.VersionManager;
+import org.pf4j.update.PluginInfo;
 import org.pf4j.update.UpdateManager;
 import org.pf4j.update.UpdateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 
 /**
@@ -22,18 +41,1023 @@ import java.util.List;
  * - Using a PluginManager only: In this case, repositories may be initialized later.
  * - Specifying a repositories.json file path: Used to initialize repositories from a configuration file.
  * - Providing a list of UpdateRepository objects for direct repository setup.
+ *
+ * Repositories are refreshed in parallel, a {@link TimedUpdateRepository} keeps its last good index if it fails
+ * and reports how long its last refresh took.
+ *
+ * The update state of all plugins is kept in an immutable snapshot, computed once after every refresh and whenever
+ * plugins are loaded or unloaded. All update queries ({@link #hasPluginUpdate(String)},
+ * {@link #getLastPluginRelease(String)}, {@link #getUpdates()}) are answered from the snapshot.
+ *
+ * If a {@link PluginDownloader} is set, releases are downloaded by it (streamed, verified while downloading and
+ * resumable) instead of the downloader of the repository. Updates are applied as transaction by
+ * {@link #updatePlugins(Map)}: all releases are downloaded in parallel first, then the plugins are swapped and
+ * restarted together and rolled back if any of them fails. If an {@link ArtifactStore} is set, the archive of an
+ * updated plugin is kept in the store before it is replaced.
  */
-public class JMIXUpdateManager extends UpdateManager {
+public class JMIXUpdateManager extends UpdateManager implements PluginStateListener, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(JMIXUpdateManager.class);
+
+    // Store Executor fetching the Repositories.
+    private final ExecutorService executorIO;
+
+    private final long refreshTimeout;
+
+    private volatile long lastRefreshDuration = -1;
+
+    // Store Plugin Manager owning the installed Plugins.
+    private final PluginManager managerIO;
+
+    // Store Update Status by Plugin Id with the Generation it was computed for, or null if never computed.
+    private volatile Snapshot snapshotIO;
+
+    // Store Generation of the Update State, increased whenever the Snapshot is outdated.
+    private final AtomicLong generationIO = new AtomicLong();
+
+    // Store Repositories replaced without waiting for a running Refresh, adopted by the next Refresh.
+    private final AtomicReference<List<UpdateRepository>> replacedIO = new AtomicReference<>();
+
+    // Store Lock computing the Snapshot, separate from the Refresh Lock.
+    private final Object snapshotLock = new Object();
+
+    // Store Downloader of the Releases, or null to use the Downloader of the Repository.
+    private volatile PluginDownloader downloaderIO;
+
+    // Store Executor downloading the Releases, created with the Downloader.
+    private volatile ExecutorService downloadExecutorIO;
+
+    // Store Store keeping replaced Archives, or null.
+    private volatile ArtifactStore artifactStoreIO;
 
     public JMIXUpdateManager(PluginManager pluginManager) {
         super(pluginManager);
+
+        this.managerIO = pluginManager;
+        this.executorIO = createPool(4, "plugin-repository-");
+        this.refreshTimeout = 30000;
     }
 
     public JMIXUpdateManager(PluginManager pluginManager, Path repositoriesJson) {
         super(pluginManager, repositoriesJson);
+
+        this.managerIO = pluginManager;
+        this.executorIO = createPool(4, "plugin-repository-");
+        this.refreshTimeout = 30000;
     }
 
     public JMIXUpdateManager(PluginManager pluginManager, List<UpdateRepository> repos) {
+        this(pluginManager, repos, 4, 30000);
+    }
+
+    /**
+     * Constructs a new JMIXUpdateManager refreshing the repositories in parallel.
+     *
+     * @param pluginManager  the plugin manager
+     * @param repos          the update repositories
+     * @param threadsIO      the maximum number of repositories fetched at the same time
+     * @param refreshTimeout the maximum time in milliseconds a refresh waits for all repositories
+     */
+    public JMIXUpdateManager(PluginManager pluginManager, List<UpdateRepository> repos, int threadsIO, long refreshTimeout) {
         super(pluginManager, repos);
+
+        this.managerIO = pluginManager;
+        this.executorIO = createPool(Math.max(threadsIO, 1), "plugin-repository-");
+        this.refreshTimeout = refreshTimeout;
+    }
+
+    /**
+     * Creates a bounded pool of daemon threads which are released when idle.
+     *
+     * @param threadsIO the maximum number of threads
+     * @param prefixIO  the name prefix of the threads
+     * @return the thread pool
+     */
+    private static ExecutorService createPool(int threadsIO, String prefixIO) {
+        AtomicInteger counterIO = new AtomicInteger();
+        ThreadPoolExecutor poolIO = new ThreadPoolExecutor(threadsIO, threadsIO, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnableIO -> {
+            Thread threadIO = new Thread(runnableIO, prefixIO + counterIO.incrementAndGet());
+
+            threadIO.setDaemon(true);
+
+            return threadIO;
+        });
+
+        poolIO.allowCoreThreadTimeOut(true);
+
+        return poolIO;
+    }
+
+    /**
+     * Refreshes all repositories in parallel. The refresh waits at most for the configured refresh timeout,
+     * repositories which didn't finish in time or failed keep their last good index.
+     */
+    @Override
+    public synchronized void refresh() {
+        long startIO = System.nanoTime();
+
+        this.adoptRepositories();
+
+        // Read repositories.json, clear Release Cache and mark Repositories as stale.
+        super.refresh();
+
+        // Read the Repositories once, they may be replaced while fetching.
+        List<UpdateRepository> repositoriesIO = repositories;
+
+        if (repositoriesIO == null || repositoriesIO.isEmpty()) {
+            this.invalidate();
+
+            return;
+        }
+
+        long generation = generationIO.get();
+
+        this.fetch(repositoriesIO);
+
+        this.publish(generation);
+        this.lastRefreshDuration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startIO);
+
+        log.info("Refreshed {} repositories in {} ms.", repositoriesIO.size(), lastRefreshDuration);
+    }
+
+    /**
+     * Refreshes the repositories accepted by the given filter in parallel, e.g. all repositories which are not
+     * backing off after a failure. Other repositories keep their index.
+     *
+     * @param filterIO the filter selecting the repositories to be refreshed
+     * @return the number of refreshed repositories
+     */
+    public synchronized int refresh(Predicate<UpdateRepository> filterIO) {
+        this.adoptRepositories();
+
+        // Read the Repositories once, they may be replaced while fetching.
+        List<UpdateRepository> repositoriesIO = repositories;
+
+        if (repositoriesIO == null || repositoriesIO.isEmpty())
+            return 0;
+
+        long startIO = System.nanoTime();
+        List<UpdateRepository> dueIO = new ArrayList<>();
+
+        for (UpdateRepository repositoryIO : repositoriesIO) {
+            if (filterIO.test(repositoryIO)) {
+                repositoryIO.refresh();
+
+                dueIO.add(repositoryIO);
+            }
+        }
+
+        if (dueIO.isEmpty())
+            return 0;
+
+        long generation = generationIO.get();
+
+        this.fetch(dueIO);
+
+        this.publish(generation);
+        this.lastRefreshDuration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startIO);
+
+        log.debug("Refreshed {} of {} repositories in {} ms.", dueIO.size(), repositoriesIO.size(), lastRefreshDuration);
+
+        return dueIO.size();
+    }
+
+    /**
+     * Fetches the given repositories in parallel and waits at most for the refresh timeout.
+     *
+     * @param repositoriesIO the repositories to be fetched
+     */
+    private void fetch(List<UpdateRepository> repositoriesIO) {
+        List<Callable<Boolean>> tasksIO = new ArrayList<>(repositoriesIO.size());
+
+        for (UpdateRepository repositoryIO : repositoriesIO) {
+            tasksIO.add(() -> {
+                if (repositoryIO instanceof TimedUpdateRepository timedIO)
+                    return timedIO.fetch();
+
+                // Load Index of other Repositories eagerly.
+                repositoryIO.getPlugins();
+
+                return true;
+            });
+        }
+
+        try {
+            List<Future<Boolean>> futuresIO = executorIO.invokeAll(tasksIO, refreshTimeout, TimeUnit.MILLISECONDS);
+
+            for (int indexIO = 0; indexIO < futuresIO.size(); indexIO++) {
+                if (futuresIO.get(indexIO).isCancelled())
+                    log.warn("Repository '{}' didn't refresh within {} ms, keeping last index.", repositoriesIO.get(indexIO).getId(), refreshTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Replaces the repositories without refreshing them. Known indexes are used until the repositories are
+     * refreshed, e.g. in the background. Unlike {@link #setRepositories(List)}, this doesn't wait for a running
+     * refresh: the repositories are handed over to the next refresh, which adopts them holding the refresh lock.
+     *
+     * @param repositoriesIO the update repositories
+     */
+    public void replaceRepositories(List<UpdateRepository> repositoriesIO) {
+        replacedIO.set(repositoriesIO);
+
+        this.invalidate();
+    }
+
+    /**
+     * Sets the repositories and refreshes them, waiting for a running refresh.
+     *
+     * @param repositoriesIO the update repositories
+     */
+    @Override
+    public void setRepositories(List<UpdateRepository> repositoriesIO) {
+        replacedIO.set(repositoriesIO);
+
+        this.refresh();
+    }
+
+    /**
+     * Retrieves the repositories, including repositories replaced but not adopted by a refresh yet.
+     *
+     * @return the update repositories
+     */
+    @Override
+    public List<UpdateRepository> getRepositories() {
+        List<UpdateRepository> repositoriesIO = replacedIO.get();
+
+        return repositoriesIO != null ? repositoriesIO : super.getRepositories();
+    }
+
+    /**
+     * Retrieves the current repositories without reading repositories.json.
+     *
+     * @return the update repositories, or null if there are none
+     */
+    private List<UpdateRepository> getCurrentRepositories() {
+        List<UpdateRepository> repositoriesIO = replacedIO.get();
+
+        return repositoriesIO != null ? repositoriesIO : repositories;
+    }
+
+    /**
+     * Adopts replaced repositories as repositories of pf4j. Called holding the refresh lock, so a running refresh
+     * never sees the repositories change.
+     */
+    private void adoptRepositories() {
+        List<UpdateRepository> repositoriesIO = replacedIO.get();
+
+        if (repositoriesIO != null) {
+            this.repositories = repositoriesIO;
+
+            // Clear after writing the Field, Readers seeing no Replacement see the adopted Repositories.
+            replacedIO.compareAndSet(repositoriesIO, null);
+        }
+    }
+
+    /**
+     * Outdates the snapshot. A snapshot computed while the state changed is never served afterwards, as it belongs
+     * to an older generation.
+     */
+    private void invalidate() {
+        generationIO.incrementAndGet();
+    }
+
+    /**
+     * Computes the snapshot for the generation read before the computation started and publishes it only if the
+     * generation is unchanged. Readers compare the generation as well, so a snapshot outdated meanwhile is never
+     * served again but recomputed by the next read.
+     *
+     * @param generation the generation the snapshot is computed for
+     * @return the computed update status by plugin id
+     */
+    private Map<String, UpdateStatus> publish(long generation) {
+        Snapshot createdIO = new Snapshot(generation, this.createSnapshot());
+
+        if (generationIO.get() == generation)
+            this.snapshotIO = createdIO;
+
+        return createdIO.statusIO;
+    }
+
+    /**
+     * Computes the update status of every installed plugin and every plugin offered by a repository.
+     *
+     * @return the immutable update status by plugin id
+     */
+    private Map<String, UpdateStatus> createSnapshot() {
+        Map<String, PluginInfo> pluginsIO = new HashMap<>();
+
+        List<UpdateRepository> repositoriesIO = this.getCurrentRepositories();
+
+        // Use known Indexes only, the Snapshot never waits for a Repository.
+        if (repositoriesIO != null) {
+            for (UpdateRepository repositoryIO : repositoriesIO) {
+                pluginsIO.putAll(repositoryIO instanceof TimedUpdateRepository timedIO ? timedIO.getCachedPlugins() : repositoryIO.getPlugins());
+            }
+        }
+
+        Map<String, UpdateStatus> statusIO = new HashMap<>();
+        VersionManager versionIO = managerIO.getVersionManager();
+        String systemVersion = managerIO.getSystemVersion();
+
+        Set<String> idsIO = new HashSet<>(pluginsIO.keySet());
+
+        managerIO.getPlugins().forEach(pluginIO -> idsIO.add(pluginIO.getPluginId()));
+
+        for (String idIO : idsIO) {
+            PluginWrapper wrapperIO = managerIO.getPlugin(idIO);
+            PluginInfo infoIO = pluginsIO.get(idIO);
+            String installedIO = wrapperIO != null ? wrapperIO.getDescriptor().getVersion() : null;
+            PluginInfo.PluginRelease lastIO = null;
+
+            if (infoIO != null && infoIO.releases != null) {
+                for (PluginInfo.PluginRelease releaseIO : infoIO.releases) {
+                    // Skip Releases requiring another System Version.
+                    if (!"0.0.0".equals(systemVersion) && !isCompatible(versionIO, systemVersion, idIO, releaseIO))
+                        continue;
+
+                    if (lastIO == null || versionIO.compareVersions(releaseIO.version, lastIO.version) > 0)
+                        lastIO = releaseIO;
+                }
+            }
+
+            boolean updateIO = installedIO != null && lastIO != null && versionIO.compareVersions(lastIO.version, installedIO) > 0;
+
+            statusIO.put(idIO, new UpdateStatus(idIO, installedIO, infoIO, lastIO, updateIO));
+        }
+
+        return Collections.unmodifiableMap(statusIO);
+    }
+
+    /**
+     * Checks whether a release is compatible with the system version. A release with a malformed requirement is
+     * skipped, like pf4j only fails the lookup of that release.
+     *
+     * @param versionIO     the version manager
+     * @param systemVersion the system version
+     * @param idIO          the unique identifier of the plugin
+     * @param releaseIO     the release
+     * @return true if the release is compatible, false otherwise
+     */
+    private static boolean isCompatible(VersionManager versionIO, String systemVersion, String idIO, PluginInfo.PluginRelease releaseIO) {
+        try {
+            return versionIO.checkVersionConstraint(systemVersion, releaseIO.requires);
+        } catch (RuntimeException e) {
+            log.warn("Skipping release {} of plugin '{}' with invalid requirement '{}': {}", releaseIO.version, idIO, releaseIO.requires, e.getMessage());
+
+            return false;
+        }
+    }
+
+    /**
+     * Retrieves the snapshot of the update state, computing it if it is outdated. While the repositories are
+     * refreshed, the previous snapshot is served.
+     *
+     * @return the immutable update status by plugin id
+     */
+    public Map<String, UpdateStatus> getUpdateSnapshot() {
+        Snapshot currentIO = snapshotIO;
+
+        if (currentIO == null || currentIO.generation != generationIO.get()) {
+            synchronized (snapshotLock) {
+                currentIO = snapshotIO;
+
+                if (currentIO == null || currentIO.generation != generationIO.get())
+                    return this.publish(generationIO.get());
+            }
+        }
+
+        return currentIO.statusIO;
+    }
+
+    /**
+     * Retrieves the update status of a plugin.
+     *
+     * @param id the unique identifier of the plugin
+     * @return the update status, or {@link UpdateStatus#UNKNOWN} if the plugin is neither installed nor offered
+     */
+    public UpdateStatus getUpdateStatus(String id) {
+        return this.getUpdateSnapshot().getOrDefault(id, UpdateStatus.UNKNOWN);
+    }
+
+    /**
+     * Retrieves the installed plugins with an available update from the snapshot.
+     *
+     * @return the plugins with an available update
+     */
+    @Override
+    public List<PluginInfo> getUpdates() {
+        List<PluginInfo> updatesIO = new ArrayList<>();
+
+        for (UpdateStatus statusIO : this.getUpdateSnapshot().values()) {
+            if (statusIO.isUpdateAvailable())
+                updatesIO.add(statusIO.getInfo());
+        }
+
+        return updatesIO;
+    }
+
+    /**
+     * Retrieves the latest release of a plugin compatible with the system version from the snapshot.
+     *
+     * @param id the unique identifier of the plugin
+     * @return the latest release, or null if there is none
+     */
+    @Override
+    public PluginInfo.PluginRelease getLastPluginRelease(String id) {
+        return this.getUpdateStatus(id).getLastRelease();
+    }
+
+    /**
+     * Checks whether an update of an installed plugin is available from the snapshot.
+     *
+     * @param id the unique identifier of the plugin
+     * @return true if an update is available, false otherwise
+     */
+    @Override
+    public boolean hasPluginUpdate(String id) {
+        return this.getUpdateStatus(id).isUpdateAvailable();
+    }
+
+    /**
+     * Outdates the snapshot once a plugin is loaded or unloaded, as its installed version may have changed.
+     *
+     * @param event the plugin state event
+     */
+    @Override
+    public void pluginStateChanged(PluginStateEvent event) {
+        if (event.getPluginState() == PluginState.RESOLVED || event.getPluginState() == PluginState.UNLOADED)
+            this.invalidate();
+    }
+
+    /**
+     * Sets the downloader of the releases and the maximum number of releases downloaded at the same time.
+     *
+     * @param downloaderIO the downloader, or null to use the downloader of the repository
+     * @param threadsIO    the maximum number of parallel downloads
+     */
+    public void setDownloader(PluginDownloader downloaderIO, int threadsIO) {
+        ExecutorService previousIO = this.downloadExecutorIO;
+
+        this.downloaderIO = downloaderIO;
+        this.downloadExecutorIO = downloaderIO != null ? createPool(Math.max(threadsIO, 1), "plugin-download-") : null;
+
+        if (previousIO != null)
+            previousIO.shutdown();
+    }
+
+    /**
+     * Sets the artifact store keeping the archives of updated plugins.
+     *
+     * @param artifactStoreIO the artifact store, or null
+     */
+    public void setArtifactStore(ArtifactStore artifactStoreIO) {
+        this.artifactStoreIO = artifactStoreIO;
+    }
+
+    /**
+     * Retrieves the artifact store keeping the archives of updated plugins.
+     *
+     * @return the artifact store, or null
+     */
+    public ArtifactStore getArtifactStore() {
+        return artifactStoreIO;
+    }
+
+    /**
+     * Downloads and verifies a release with the {@link PluginDownloader}, if set.
+     *
+     * @param id      the unique identifier of the plugin
+     * @param version the version of the release, or null for the latest release
+     * @return the verified archive
+     */
+    @Override
+    protected Path downloadPlugin(String id, String version) {
+        PluginDownloader currentIO = downloaderIO;
+
+        if (currentIO == null)
+            return super.downloadPlugin(id, version);
+
+        try {
+            return currentIO.download(id, this.findReleaseForPlugin(id, version));
+        } catch (IOException e) {
+            throw new PluginRuntimeException(e, "Error during download of plugin {}", id);
+        }
+    }
+
+    /**
+     * Downloads and verifies several releases in parallel. Failed downloads are logged and left out of the result.
+     *
+     * @param versionsIO the versions to be downloaded by plugin id, a null version selects the latest release
+     * @return the verified archives by plugin id
+     */
+    public Map<String, Path> downloadPlugins(Map<String, String> versionsIO) {
+        return this.downloadPlugins(versionsIO, new HashMap<>());
+    }
+
+    /**
+     * Downloads and verifies several releases in parallel. Failed downloads are left out of the result.
+     *
+     * @param versionsIO the versions to be downloaded by plugin id, a null version selects the latest release
+     * @param errorsIO   the map receiving the errors of failed downloads by plugin id
+     * @return the verified archives by plugin id
+     */
+    public Map<String, Path> downloadPlugins(Map<String, String> versionsIO, Map<String, Throwable> errorsIO) {
+        Map<String, Future<Path>> futuresIO = new LinkedHashMap<>();
+        ExecutorService poolIO = downloadExecutorIO;
+
+        for (Map.Entry<String, String> entryIO : versionsIO.entrySet()) {
+            FutureTask<Path> taskIO = new FutureTask<>(() -> this.downloadPlugin(entryIO.getKey(), entryIO.getValue()));
+
+            // Download one after another without Downloader.
+            if (poolIO != null)
+                poolIO.execute(taskIO);
+            else
+                taskIO.run();
+
+            futuresIO.put(entryIO.getKey(), taskIO);
+        }
+
+        Map<String, Path> downloadsIO = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Future<Path>> entryIO : futuresIO.entrySet()) {
+            try {
+                downloadsIO.put(entryIO.getKey(), entryIO.getValue().get());
+            } catch (ExecutionException e) {
+                log.error("Unable to download plugin '{}'.", entryIO.getKey(), e.getCause());
+
+                errorsIO.put(entryIO.getKey(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                break;
+            }
+        }
+
+        return downloadsIO;
+    }
+
+    /**
+     * Updates an installed plugin to the given version, see {@link #updatePlugins(Map)}.
+     *
+     * @param id      the unique identifier of the plugin
+     * @param version the version of the release, or null for the latest release
+     * @return true if the new plugin was started, false otherwise
+     */
+    @Override
+    public boolean updatePlugin(String id, String version) {
+        if (managerIO.getPlugin(id) == null)
+            throw new PluginRuntimeException("Plugin {} cannot be updated since it is not installed", id);
+
+        if (this.getPluginsMap().get(id) == null)
+            throw new PluginRuntimeException("Plugin {} does not exist in any repository", id);
+
+        if (!this.hasPluginUpdate(id)) {
+            log.warn("Plugin {} does not have an update available which is compatible with system version {}", id, managerIO.getSystemVersion());
+
+            return false;
+        }
+
+        PluginUpdateResult resultIO = this.updatePlugins(Collections.singletonMap(id, version));
+
+        if (!resultIO.isSuccessful())
+            log.error("Unable to update plugin '{}': {}", id, resultIO);
+
+        return resultIO.isSuccessful();
+    }
+
+    /**
+     * Updates several installed plugins as one transaction.
+     *
+     * All releases are downloaded and verified first, nothing is touched if any download fails. The updated
+     * plugins and their dependents are then stopped and unloaded in reverse dependency order, the archives are
+     * swapped (the previous archives are kept aside, and in the artifact store if set), and all of them are loaded
+     * and started again in dependency order. If any of them fails to load or start, the previous archives are
+     * restored and loaded and started again.
+     *
+     * @param versionsIO the versions to be installed by plugin id, a null version selects the latest release
+     * @return the outcome of every plugin
+     */
+    public PluginUpdateResult updatePlugins(Map<String, String> versionsIO) {
+        PluginUpdateResult resultIO = new PluginUpdateResult();
+
+        for (Map.Entry<String, String> entryIO : versionsIO.entrySet()) {
+            PluginWrapper wrapperIO = managerIO.getPlugin(entryIO.getKey());
+
+            if (wrapperIO == null)
+                throw new PluginRuntimeException("Plugin {} cannot be updated since it is not installed", entryIO.getKey());
+
+            PluginInfo.PluginRelease releaseIO = entryIO.getValue() == null ? this.getLastPluginRelease(entryIO.getKey()) : null;
+
+            resultIO.add(entryIO.getKey(), wrapperIO.getDescriptor().getVersion(), releaseIO != null ? releaseIO.version : entryIO.getValue());
+        }
+
+        if (versionsIO.isEmpty())
+            return resultIO;
+
+        // Download and verify all Releases first.
+        Map<String, Throwable> errorsIO = new HashMap<>();
+        Map<String, Path> downloadsIO = this.downloadPlugins(versionsIO, errorsIO);
+
+        if (downloadsIO.size() != versionsIO.size()) {
+            for (String idIO : versionsIO.keySet()) {
+                if (!downloadsIO.containsKey(idIO))
+                    resultIO.setState(idIO, PluginUpdateState.FAILED, errorsIO.containsKey(idIO) ? String.valueOf(errorsIO.get(idIO).getMessage()) : "Download interrupted");
+            }
+
+            log.error("Not updating plugins, downloads failed: {}", resultIO);
+
+            // Drop the verified Archives of the other Plugins.
+            this.discard(downloadsIO.values());
+
+            return resultIO;
+        }
+
+        // Don't interleave with an incremental Reload.
+        synchronized (managerIO) {
+            this.swapPlugins(downloadsIO, resultIO);
+        }
+
+        return resultIO;
+    }
+
+    /**
+     * Replaces the archives of plugins and restarts them with their dependents, or rolls back if any of them
+     * can't be loaded or started.
+     *
+     * @param downloadsIO the verified archives by plugin id
+     * @param resultIO    the result receiving the outcome of every plugin
+     */
+    private void swapPlugins(Map<String, Path> downloadsIO, PluginUpdateResult resultIO) {
+        // Collect updated Plugins with all their Dependents.
+        Set<String> affectedIO = new HashSet<>(downloadsIO.keySet());
+        boolean grownIO = true;
+
+        while (grownIO) {
+            grownIO = false;
+
+            for (PluginWrapper pluginIO : managerIO.getPlugins()) {
+                if (affectedIO.contains(pluginIO.getPluginId()))
+                    continue;
+
+                for (PluginDependency dependencyIO : pluginIO.getDescriptor().getDependencies()) {
+                    if (affectedIO.contains(dependencyIO.getPluginId())) {
+                        affectedIO.add(pluginIO.getPluginId());
+
+                        grownIO = true;
+
+                        break;
+                    }
+                }
+            }
+        }
+
+        // Remember Dependency Order, Paths and started Plugins.
+        List<PluginWrapper> pluginsIO = new ArrayList<>();
+
+        for (PluginWrapper pluginIO : managerIO.getPlugins()) {
+            if (affectedIO.contains(pluginIO.getPluginId()))
+                pluginsIO.add(pluginIO);
+        }
+
+        List<String> orderIO = getOrder(pluginsIO);
+        Map<String, Path> pathsIO = new HashMap<>();
+        Set<String> startedIO = new HashSet<>();
+
+        for (PluginWrapper pluginIO : pluginsIO) {
+            pathsIO.put(pluginIO.getPluginId(), pluginIO.getPluginPath());
+
+            if (pluginIO.getPluginState() == PluginState.STARTED)
+                startedIO.add(pluginIO.getPluginId());
+        }
+
+        Map<Path, Path> backupsIO = new LinkedHashMap<>();
+        Map<String, Path> installedIO = new LinkedHashMap<>();
+        String currentIO = null;
+
+        try {
+            // Stop and unload in reverse Dependency Order.
+            for (int indexIO = orderIO.size() - 1; indexIO >= 0; indexIO--) {
+                currentIO = orderIO.get(indexIO);
+
+                if (managerIO.getPlugin(currentIO) != null && !managerIO.unloadPlugin(currentIO))
+                    throw new PluginRuntimeException("Plugin {} could not be stopped", currentIO);
+            }
+
+            // Swap Archives, keep previous Archives aside.
+            for (Map.Entry<String, Path> entryIO : downloadsIO.entrySet()) {
+                currentIO = entryIO.getKey();
+
+                Path previousIO = pathsIO.get(currentIO);
+                Path backupIO = previousIO.resolveSibling("." + previousIO.getFileName() + ".previous");
+
+                this.keepArtifact(previousIO);
+
+                PluginDownloader.move(previousIO, backupIO);
+
+                backupsIO.put(previousIO, backupIO);
+
+                // Install next to the previous Archive, in its Plugins Root.
+                Path fileIO = previousIO.resolveSibling(entryIO.getValue().getFileName());
+
+                PluginDownloader.move(entryIO.getValue(), fileIO);
+
+                installedIO.put(currentIO, fileIO);
+            }
+
+            // Load all and resolve once.
+            List<Path> loadIO = new ArrayList<>();
+
+            for (String idIO : orderIO) {
+                loadIO.add(installedIO.getOrDefault(idIO, pathsIO.get(idIO)));
+            }
+
+            currentIO = null;
+
+            this.loadPlugins(loadIO);
+
+            for (String idIO : orderIO) {
+                currentIO = idIO;
+
+                if (managerIO.getPlugin(idIO) == null)
+                    throw new PluginRuntimeException("Plugin {} could not be loaded", idIO);
+            }
+
+            // Start previously started Plugins in Dependency Order, disabled Plugins stay disabled.
+            List<PluginWrapper> loadedIO = new ArrayList<>();
+
+            orderIO.forEach(idIO -> loadedIO.add(managerIO.getPlugin(idIO)));
+
+            for (String idIO : getOrder(loadedIO)) {
+                currentIO = idIO;
+
+                PluginWrapper pluginIO = managerIO.getPlugin(idIO);
+
+                if (!startedIO.contains(idIO) || pluginIO.getPluginState().isDisabled())
+                    continue;
+
+                PluginState stateIO = managerIO.startPlugin(idIO);
+
+                if (stateIO != PluginState.STARTED && stateIO != PluginState.DISABLED)
+                    throw new PluginRuntimeException("Plugin {} did not start ({})", idIO, stateIO);
+            }
+        } catch (Exception | LinkageError e) {
+            log.error("Unable to update plugin '{}', rolling back {}.", currentIO, downloadsIO.keySet(), e);
+
+            for (String idIO : downloadsIO.keySet()) {
+                resultIO.setState(idIO, PluginUpdateState.ROLLED_BACK, null);
+            }
+
+            // Blame the updated Plugin, or all of them if a Dependent failed.
+            if (currentIO != null && downloadsIO.containsKey(currentIO))
+                resultIO.setState(currentIO, PluginUpdateState.FAILED, String.valueOf(e.getMessage()));
+            else {
+                for (String idIO : downloadsIO.keySet()) {
+                    resultIO.setState(idIO, PluginUpdateState.FAILED, currentIO != null ? "Dependent plugin '" + currentIO + "' failed: " + e.getMessage() : String.valueOf(e.getMessage()));
+                }
+            }
+
+            resultIO.setRolledBack(this.rollback(orderIO, pathsIO, startedIO, backupsIO, installedIO));
+
+            // Drop Archives which weren't swapped in.
+            this.discard(downloadsIO.values());
+
+            return;
+        }
+
+        // Commit by dropping the previous Archives.
+        backupsIO.values().forEach(JMIXUpdateManager::delete);
+
+        this.discard(downloadsIO.values());
+
+        downloadsIO.keySet().forEach(idIO -> resultIO.setState(idIO, PluginUpdateState.UPDATED, null));
+
+        log.info("Updated plugins {}, restarted {}.", downloadsIO.keySet(), orderIO);
+    }
+
+    /**
+     * Restores the previous archives of a failed update and loads and starts the affected plugins again.
+     *
+     * @param orderIO     the affected plugins in dependency order
+     * @param pathsIO     the previous paths by plugin id
+     * @param startedIO   the plugins which were started before the update
+     * @param backupsIO   the previous archives kept aside by their original path
+     * @param installedIO the new archives by plugin id
+     * @return the error of the rollback, or null if the previous state was restored
+     */
+    private String rollback(List<String> orderIO, Map<String, Path> pathsIO, Set<String> startedIO, Map<Path, Path> backupsIO, Map<String, Path> installedIO) {
+        String errorIO = null;
+
+        // Unload whatever was loaded in reverse Dependency Order.
+        for (int indexIO = orderIO.size() - 1; indexIO >= 0; indexIO--) {
+            try {
+                if (managerIO.getPlugin(orderIO.get(indexIO)) != null)
+                    managerIO.unloadPlugin(orderIO.get(indexIO));
+            } catch (Exception | LinkageError e) {
+                log.error("Unable to unload plugin '{}' during rollback.", orderIO.get(indexIO), e);
+            }
+        }
+
+        // Restore previous Archives.
+        try {
+            for (Path fileIO : installedIO.values()) {
+                if (!backupsIO.containsKey(fileIO))
+                    Files.deleteIfExists(fileIO);
+            }
+
+            for (Map.Entry<Path, Path> entryIO : backupsIO.entrySet()) {
+                PluginDownloader.move(entryIO.getValue(), entryIO.getKey());
+            }
+        } catch (IOException e) {
+            log.error("Unable to restore previous plugin archives.", e);
+
+            return "Unable to restore previous plugin archives: " + e.getMessage();
+        }
+
+        // Load previous Plugins and resolve once.
+        List<Path> loadIO = new ArrayList<>();
+
+        orderIO.forEach(idIO -> loadIO.add(pathsIO.get(idIO)));
+
+        try {
+            this.loadPlugins(loadIO);
+        } catch (Exception | LinkageError e) {
+            log.error("Unable to load plugins {} during rollback.", orderIO, e);
+
+            errorIO = "Unable to load plugins " + orderIO + ": " + e.getMessage();
+        }
+
+        List<PluginWrapper> loadedIO = new ArrayList<>();
+
+        for (String idIO : orderIO) {
+            if (managerIO.getPlugin(idIO) != null)
+                loadedIO.add(managerIO.getPlugin(idIO));
+            else
+                errorIO = "Unable to load plugin '" + idIO + "'";
+        }
+
+        // Start previously started Plugins in Dependency Order.
+        for (String idIO : getOrder(loadedIO)) {
+            try {
+                if (startedIO.contains(idIO) && !managerIO.getPlugin(idIO).getPluginState().isDisabled())
+                    managerIO.startPlugin(idIO);
+            } catch (Exception | LinkageError e) {
+                log.error("Unable to start plugin '{}' during rollback.", idIO, e);
+
+                errorIO = "Unable to start plugin '" + idIO + "': " + e.getMessage();
+            }
+        }
+
+        log.info("Rolled back update of plugins {}.", installedIO.keySet());
+
+        return errorIO;
+    }
+
+    /**
+     * Loads plugins from their paths. The {@link SpringRuntimePluginManager} loads all of them and resolves the
+     * dependencies once, other plugin managers load them one after another in the given order.
+     *
+     * @param pathsIO the paths of the plugins, in dependency order
+     */
+    private void loadPlugins(List<Path> pathsIO) {
+        if (managerIO instanceof SpringRuntimePluginManager runtimeIO) {
+            runtimeIO.loadPlugins(pathsIO);
+
+            return;
+        }
+
+        for (Path pathIO : pathsIO) {
+            managerIO.loadPlugin(pathIO);
+        }
+    }
+
+    /**
+     * Orders plugins by their dependencies with the {@link PluginDependencyGraph}, every plugin comes after the
+     * plugins it depends on.
+     *
+     * @param pluginsIO the plugins
+     * @return the plugin ids in dependency order
+     */
+    private static List<String> getOrder(List<PluginWrapper> pluginsIO) {
+        List<String> orderIO = new ArrayList<>();
+
+        for (List<PluginWrapper> levelIO : new PluginDependencyGraph(pluginsIO).getLevels()) {
+            levelIO.forEach(pluginIO -> orderIO.add(pluginIO.getPluginId()));
+        }
+
+        return orderIO;
+    }
+
+    /**
+     * Drops downloaded archives which weren't installed, and the release directories of the downloader.
+     *
+     * @param downloadsIO the downloaded archives
+     */
+    private void discard(Collection<Path> downloadsIO) {
+        PluginDownloader currentIO = downloaderIO;
+
+        for (Path downloadIO : downloadsIO) {
+            if (currentIO != null)
+                currentIO.discard(downloadIO);
+            else
+                delete(downloadIO);
+        }
+    }
+
+    /**
+     * Deletes a file or directory tree if it exists, logging failures.
+     *
+     * @param pathIO the file or directory
+     */
+    private static void delete(Path pathIO) {
+        if (Files.notExists(pathIO))
+            return;
+
+        try (Stream<Path> filesIO = Files.walk(pathIO)) {
+            for (Path fileIO : filesIO.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(fileIO);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to delete '{}'.", pathIO, e);
+        }
+    }
+
+    /**
+     * Keeps a plugin archive in the artifact store, if set.
+     *
+     * @param pathIO the plugin archive, directories are not kept
+     */
+    private void keepArtifact(Path pathIO) {
+        ArtifactStore storeIO = artifactStoreIO;
+
+        if (storeIO == null || pathIO == null || !Files.isRegularFile(pathIO))
+            return;
+
+        try {
+            storeIO.put(pathIO);
+        } catch (IOException | PluginRuntimeException e) {
+            log.warn("Unable to keep archive '{}' in artifact store.", pathIO, e);
+        }
+    }
+
+    /**
+     * Retrieves how long the last refresh of every repository took.
+     *
+     * @return the durations in milliseconds by repository id, -1 for repositories which were never fetched
+     */
+    public Map<String, Long> getRefreshDurations() {
+        Map<String, Long> durationsIO = new LinkedHashMap<>();
+        List<UpdateRepository> repositoriesIO = this.getCurrentRepositories();
+
+        if (repositoriesIO == null)
+            return durationsIO;
+
+        for (UpdateRepository repositoryIO : repositoriesIO) {
+            durationsIO.put(repositoryIO.getId(), repositoryIO instanceof TimedUpdateRepository timedIO ? timedIO.getLastDuration() : -1L);
+        }
+
+        return durationsIO;
+    }
+
+    /**
+     * Retrieves how long the last refresh of all repositories took.
+     *
+     * @return the duration in milliseconds, or -1 if the repositories were never refreshed
+     */
+    public long getLastRefreshDuration() {
+        return lastRefreshDuration;
+    }
+
+    /**
+     * Stops the executors fetching the repositories and downloading the releases.
+     */
+    @Override
+    public void destroy() {
+        executorIO.shutdownNow();
+
+        if (downloadExecutorIO != null)
+            downloadExecutorIO.shutdownNow();
+    }
+
+    /**
+     * The update status of all plugins together with the generation of the update state it was computed for.
+     */
+    private static final class Snapshot {
+        private final long generation;
+
+        private final Map<String, UpdateStatus> statusIO;
+
+        /**
+         * Constructs a new Snapshot.
+         *
+         * @param generation the generation the snapshot was computed for
+         * @param statusIO   the immutable update status by plugin id
+         */
+        private Snapshot(long generation, Map<String, UpdateStatus> statusIO) {
+            this.generation = generation;
+            this.statusIO = statusIO;
+        }
     }
 }
@@ -8,6 +8,7 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -37,6 +38,8 @@ public class JmixSpringPluginManager extends DefaultPluginManager implements App
 
     private ApplicationContext applicationContext;
 
+    private HostContextExports contextExports = new HostContextExports(Collections.emptyList());
+
     public JmixSpringPluginManager() {
         super();
     }
@@ -63,6 +66,24 @@ public class JmixSpringPluginManager extends DefaultPluginManager implements App
         return applicationContext;
     }
 
+    /**
+     * Retrieves the host beans exported to the Spring contexts of plugins.
+     *
+     * @return the host context exports, empty if plugin contexts have no parent
+     */
+    public HostContextExports getContextExports() {
+        return contextExports;
+    }
+
+    /**
+     * Sets the host beans exported to the Spring contexts of plugins.
+     *
+     * @param contextExports the host context exports
+     */
+    public void setContextExports(HostContextExports contextExports) {
+        this.contextExports = contextExports;
+    }
+
 
     /**
      * This method load, start plugins and inject extensions in Spring
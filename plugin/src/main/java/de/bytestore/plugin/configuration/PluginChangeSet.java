@@ -0,0 +1,72 @@
+package de.bytestore.plugin.configuration;
+
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * PluginChangeSet describes the outcome of an incremental reload (see
+ * {@link SpringRuntimePluginManager#reloadChanged()}).
+ *
+ * It lists the plugin paths that were added to or removed from the plugin roots, the plugins whose
+ * archive content changed, and every plugin that was restarted as a consequence, including the
+ * dependents of changed or removed plugins.
+ */
+public class PluginChangeSet {
+    private final List<Path> added = new ArrayList<>();
+
+    private final List<String> removed = new ArrayList<>();
+
+    private final List<String> changed = new ArrayList<>();
+
+    private final Set<String> reloaded = new LinkedHashSet<>();
+
+    /**
+     * Retrieves the plugin paths that were not loaded before.
+     *
+     * @return the added plugin paths
+     */
+    public List<Path> getAdded() {
+        return added;
+    }
+
+    /**
+     * Retrieves the identifiers of plugins whose path no longer exists.
+     *
+     * @return the removed plugin identifiers
+     */
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Retrieves the identifiers of plugins whose archive content changed.
+     *
+     * @return the changed plugin identifiers
+     */
+    public List<String> getChanged() {
+        return changed;
+    }
+
+    /**
+     * Retrieves the identifiers of all plugins that were loaded again, in start order.
+     *
+     * @return the reloaded plugin identifiers
+     */
+    public Set<String> getReloaded() {
+        return reloaded;
+    }
+
+    /**
+     * Checks whether nothing was added, removed or changed.
+     *
+     * @return true if the plugin roots are unchanged, false otherwise
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "PluginChangeSet{added=" + added + ", removed=" + removed + ", changed=" + changed + ", reloaded=" + reloaded + "}";
+    }
+}
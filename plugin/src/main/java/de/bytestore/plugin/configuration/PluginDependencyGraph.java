@@ -0,0 +1,107 @@
+package de.bytestore.plugin.configuration;
+
+import org.pf4j.PluginDependency;
+import org.pf4j.PluginWrapper;
+
+import java.util.*;
+
+/**
+ * PluginDependencyGraph is a read-only view on the dependencies between a set of loaded plugins.
+ *
+ * The graph is built from the plugins in resolve order (as returned by
+ * {@link org.pf4j.PluginManager#getResolvedPlugins()}), so every dependency of a plugin is
+ * already known when the plugin itself is added. Dependencies pointing to plugins outside
+ * the given set (e.g. missing optional dependencies) are ignored.
+ *
+ * The graph groups plugins into levels: level 0 contains all plugins without dependencies,
+ * level n contains all plugins whose deepest dependency lives on level n - 1. Plugins on the
+ * same level never depend on each other and can therefore be started concurrently.
+ */
+public class PluginDependencyGraph {
+    // Store Plugins in Resolve Order.
+    private final Map<String, PluginWrapper> pluginsIO = new LinkedHashMap<>();
+
+    // Store Level of every Plugin.
+    private final Map<String, Integer> levelsIO = new HashMap<>();
+
+    /**
+     * Constructs a new PluginDependencyGraph for the given plugins.
+     *
+     * @param pluginsIO the plugins of the graph, expected in resolve order
+     */
+    public PluginDependencyGraph(Collection<PluginWrapper> pluginsIO) {
+        pluginsIO.forEach(pluginIO -> this.pluginsIO.put(pluginIO.getPluginId(), pluginIO));
+
+        this.pluginsIO.keySet().forEach(this::getLevel);
+    }
+
+    /**
+     * Retrieves the identifiers of the direct dependencies of a plugin that are part of this graph.
+     *
+     * @param idIO the unique identifier of the plugin
+     * @return the identifiers of the direct dependencies, in declaration order
+     */
+    public List<String> getDependencies(String idIO) {
+        PluginWrapper pluginIO = pluginsIO.get(idIO);
+
+        if (pluginIO == null)
+            return Collections.emptyList();
+
+        List<String> dependenciesIO = new ArrayList<>();
+
+        for (PluginDependency dependencyIO : pluginIO.getDescriptor().getDependencies()) {
+            if (pluginsIO.containsKey(dependencyIO.getPluginId()))
+                dependenciesIO.add(dependencyIO.getPluginId());
+        }
+
+        return dependenciesIO;
+    }
+
+    /**
+     * Retrieves the level of a plugin, computing it (and the levels of its dependencies) on first access.
+     *
+     * @param idIO the unique identifier of the plugin
+     * @return the level of the plugin, 0 for plugins without dependencies
+     */
+    public int getLevel(String idIO) {
+        Integer levelIO = levelsIO.get(idIO);
+
+        if (levelIO != null)
+            return levelIO;
+
+        // Mark as visited, cycles are already rejected by the pf4j DependencyResolver.
+        levelsIO.put(idIO, 0);
+
+        int maxIO = -1;
+
+        for (String dependencyIO : getDependencies(idIO)) {
+            maxIO = Math.max(maxIO, getLevel(dependencyIO));
+        }
+
+        levelsIO.put(idIO, maxIO + 1);
+
+        return maxIO + 1;
+    }
+
+    /**
+     * Groups the plugins of this graph into dependency levels. The plugins of every level keep
+     * their resolve order, which makes the result fully deterministic.
+     *
+     * @return the levels of the graph, starting with the plugins without dependencies
+     */
+    public List<List<PluginWrapper>> getLevels() {
+        List<List<PluginWrapper>> resultIO = new ArrayList<>();
+
+        pluginsIO.forEach((idIO, pluginIO) -> {
+            int levelIO = getLevel(idIO);
+
+            while (resultIO.size() <= levelIO) {
+                resultIO.add(new ArrayList<>());
+            }
+
+            resultIO.get(levelIO).add(pluginIO);
+        });
+
+        return resultIO;
+    }
+}
@@ -0,0 +1,611 @@
+package de.bytestore.plugin.configuration;
+
+import org.pf4j.update.PluginInfo;
+import org.pf4j.update.VerifyException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PluginDownloader downloads the archive of a plugin release into a download directory and verifies it while
+ * downloading.
+ *
+ * The archive is streamed through a {@link FileChannel} into a partial file ({@code <name>.part}) and its SHA-512
+ * digest is computed on the way, so the archive is neither held in memory nor read a second time for verification.
+ * The digest is compared with the sha512sum of the release (a checksum, a URL of a checksum file or ".sha512" for
+ * the checksum file next to the archive, like {@link org.pf4j.update.verifier.Sha512SumVerifier}).
+ *
+ * An interrupted download keeps its partial file together with the ETag and Last-Modified header of the archive.
+ * The next attempt, or the next download of the same archive, resumes it with an HTTP Range request. If the archive
+ * was modified meanwhile, the server answers with the whole archive (If-Range) and the download starts over. A
+ * partial file without ETag or Last-Modified is never resumed, as a changed archive couldn't be detected. A resumed
+ * download failing verification is downloaded once more from the start.
+ *
+ * Every release is downloaded into its own directory (named by the hash of its URL), and downloads of the same
+ * release are serialized, so concurrent downloads never share a partial file. Verified archives are moved atomically
+ * to their final name inside a directory of their own, so a file without ".part" suffix is always complete and
+ * every caller gets an archive no other caller moves or deletes. The download directory should be on the file
+ * system of the plugins home, so installing an archive is an atomic move as well. Once an archive was installed or
+ * dropped, {@link #discard(Path)} removes it together with its directory, and the release directory once it is
+ * empty.
+ *
+ * If an {@link ArtifactStore} is given, verified archives are kept in the store (their SHA-256 hash is computed
+ * while downloading as well) and a release already in the store is linked from there instead of downloaded again.
+ * A release with checksum is taken from the store if the checksum matches, a release without checksum only if the
+ * server answers a conditional request with its stored ETag or Last-Modified header with "304 Not Modified".
+ */
+public class PluginDownloader {
+    private static final Logger log = LoggerFactory.getLogger(PluginDownloader.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Store Lock of every Release Directory in use, removed once released by all Holders.
+    private static final Map<Path, ReleaseLock> LOCKS = new ConcurrentHashMap<>();
+
+    // Store Directory of the Downloads.
+    private final Path directoryIO;
+
+    private final int connectTimeout;
+
+    private final int readTimeout;
+
+    private final int retries;
+
+    // Store Store of downloaded Archives, or null.
+    private final ArtifactStore storeIO;
+
+    /**
+     * Constructs a new PluginDownloader.
+     *
+     * @param directoryIO    the directory receiving the downloads
+     * @param connectTimeout the connect timeout in milliseconds
+     * @param readTimeout    the read timeout in milliseconds
+     * @param retries        the number of attempts resuming a failed download
+     */
+    public PluginDownloader(Path directoryIO, int connectTimeout, int readTimeout, int retries) {
+        this(directoryIO, connectTimeout, readTimeout, retries, null);
+    }
+
+    /**
+     * Constructs a new PluginDownloader keeping the downloaded archives in an artifact store.
+     *
+     * @param directoryIO    the directory receiving the downloads
+     * @param connectTimeout the connect timeout in milliseconds
+     * @param readTimeout    the read timeout in milliseconds
+     * @param retries        the number of attempts resuming a failed download
+     * @param storeIO        the artifact store, or null
+     */
+    public PluginDownloader(Path directoryIO, int connectTimeout, int readTimeout, int retries, ArtifactStore storeIO) {
+        this.directoryIO = directoryIO;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.retries = Math.max(retries, 0);
+        this.storeIO = storeIO;
+    }
+
+    /**
+     * Downloads and verifies the archive of a release.
+     *
+     * @param idIO      the unique identifier of the plugin
+     * @param releaseIO the release to be downloaded
+     * @return the verified archive inside a directory of its own, below the release directory
+     * @throws IOException     if the archive cannot be downloaded after all attempts
+     * @throws VerifyException if the archive doesn't match the checksum of the release
+     */
+    public Path download(String idIO, PluginInfo.PluginRelease releaseIO) throws IOException {
+        URL urlIO = new URL(releaseIO.url);
+        String expectedIO = this.getExpectedSha512(releaseIO, urlIO);
+        Path releaseDirectory = directoryIO.resolve(HexFormat.of().formatHex(createDigest("SHA-256").digest(urlIO.toString().getBytes(StandardCharsets.UTF_8))).substring(0, 16));
+
+        ReleaseLock lockIO = acquire(releaseDirectory);
+
+        try {
+            synchronized (lockIO) {
+                Files.createDirectories(releaseDirectory);
+
+                return this.download(idIO, releaseIO, urlIO, expectedIO, releaseDirectory);
+            }
+        } finally {
+            release(releaseDirectory, lockIO);
+        }
+    }
+
+    /**
+     * Downloads and verifies the archive of a release into its release directory, the caller holds its lock.
+     *
+     * @param idIO             the unique identifier of the plugin
+     * @param releaseIO        the release to be downloaded
+     * @param urlIO            the URL of the archive
+     * @param expectedIO       the expected SHA-512 checksum, or null
+     * @param releaseDirectory the directory of the release
+     * @return the verified archive inside a directory of its own
+     * @throws IOException if the archive cannot be downloaded after all attempts
+     */
+    private Path download(String idIO, PluginInfo.PluginRelease releaseIO, URL urlIO, String expectedIO, Path releaseDirectory) throws IOException {
+        String fileName = this.getFileName(idIO, releaseIO, urlIO);
+        Path partFile = releaseDirectory.resolve(fileName + ".part");
+        Path metaFile = releaseDirectory.resolve(fileName + ".part.properties");
+
+        // Link Release from the Store if it was fetched before and didn't change.
+        Path storedIO = storeIO != null ? this.findStored(urlIO, expectedIO) : null;
+
+        if (storedIO != null) {
+            Path targetFile = Files.createTempDirectory(releaseDirectory, "archive").resolve(fileName);
+
+            storeIO.copyTo(storedIO, targetFile);
+
+            log.debug("Using stored artifact of plugin '{}' for '{}'.", idIO, urlIO);
+
+            return targetFile;
+        }
+
+        IOException lastError = null;
+
+        for (int attemptIO = 0; attemptIO <= retries; attemptIO++) {
+            boolean resumedIO = Files.exists(partFile);
+
+            try {
+                long startIO = System.nanoTime();
+                MessageDigest sha512IO = createDigest("SHA-512");
+                MessageDigest sha256IO = createDigest("SHA-256");
+
+                this.transfer(urlIO, partFile, metaFile, sha512IO, sha256IO);
+
+                String actualIO = HexFormat.of().formatHex(sha512IO.digest());
+
+                if (Files.size(partFile) == 0)
+                    throw new VerifyException("Downloaded file {} of plugin '{}' is empty", fileName, idIO);
+
+                if (expectedIO != null && !expectedIO.equalsIgnoreCase(actualIO))
+                    throw new VerifyException("SHA512 checksum of downloaded file {} does not match that from plugin descriptor. Got {} but expected {}", fileName, actualIO, expectedIO);
+
+                Properties metaIO = this.readMeta(metaFile, urlIO);
+
+                // Keep the Archive of every Caller apart, so it isn't replaced or discarded by another Caller.
+                Path targetFile = Files.createTempDirectory(releaseDirectory, "archive").resolve(fileName);
+
+                move(partFile, targetFile);
+
+                Files.deleteIfExists(metaFile);
+
+                if (storeIO != null)
+                    storeIO.putRelease(targetFile, urlIO.toString(), HexFormat.of().formatHex(sha256IO.digest()), actualIO, metaIO != null ? metaIO.getProperty("etag") : null, metaIO != null ? metaIO.getProperty("modified") : null);
+
+                log.debug("Downloaded plugin '{}' from '{}' in {} ms.", idIO, urlIO, (System.nanoTime() - startIO) / 1000000);
+
+                return targetFile;
+            } catch (VerifyException e) {
+                // Drop the Partial File, it can't be resumed.
+                Files.deleteIfExists(partFile);
+                Files.deleteIfExists(metaFile);
+
+                // Download a resumed File once more from the Start.
+                if (!resumedIO)
+                    throw e;
+
+                log.warn("Resumed download of plugin '{}' failed verification, downloading it again.", idIO);
+
+                lastError = new IOException(e.getMessage(), e);
+            } catch (IOException e) {
+                log.warn("Download of plugin '{}' from '{}' failed (attempt {} of {}): {}", idIO, urlIO, attemptIO + 1, retries + 1, e.getMessage());
+
+                lastError = e;
+            }
+        }
+
+        throw lastError;
+    }
+
+    /**
+     * Finds a release in the artifact store. A release without checksum is revalidated with the server first.
+     *
+     * @param urlIO      the URL of the archive
+     * @param expectedIO the expected SHA-512 checksum, or null
+     * @return the stored archive, or null if the release isn't stored or changed
+     */
+    private Path findStored(URL urlIO, String expectedIO) {
+        if (expectedIO != null)
+            return storeIO.findRelease(urlIO.toString(), expectedIO);
+
+        String[] validatorsIO = storeIO.getReleaseValidators(urlIO.toString());
+
+        if (validatorsIO == null)
+            return null;
+
+        try {
+            URLConnection connectionIO = urlIO.openConnection();
+
+            if (!(connectionIO instanceof HttpURLConnection httpIO))
+                return null;
+
+            httpIO.setConnectTimeout(connectTimeout);
+            httpIO.setReadTimeout(readTimeout);
+            httpIO.setRequestMethod("HEAD");
+
+            if (validatorsIO[0] != null)
+                httpIO.setRequestProperty("If-None-Match", validatorsIO[0]);
+
+            if (validatorsIO[1] != null)
+                httpIO.setRequestProperty("If-Modified-Since", validatorsIO[1]);
+
+            int codeIO = httpIO.getResponseCode();
+
+            httpIO.disconnect();
+
+            if (codeIO != HttpURLConnection.HTTP_NOT_MODIFIED) {
+                log.debug("Stored artifact of '{}' is outdated (HTTP {}), downloading it again.", urlIO, codeIO);
+
+                return null;
+            }
+
+            return storeIO.findRelease(urlIO.toString(), null);
+        } catch (IOException e) {
+            log.debug("Unable to revalidate stored artifact of '{}', downloading it again.", urlIO, e);
+
+            return null;
+        }
+    }
+
+    /**
+     * Transfers the archive into the partial file, resuming a present partial file if possible.
+     *
+     * @param urlIO    the URL of the archive
+     * @param partFile the partial file
+     * @param metaFile the file storing the validators of the partial file
+     * @param digestsIO the digests receiving the content of the partial file
+     * @throws IOException if the transfer fails, the partial file is kept for resuming
+     */
+    private void transfer(URL urlIO, Path partFile, Path metaFile, MessageDigest... digestsIO) throws IOException {
+        Properties metaIO = this.readMeta(metaFile, urlIO);
+
+        // Only resume if a changed Archive can be detected.
+        long offsetIO = metaIO != null && (metaIO.getProperty("etag") != null || metaIO.getProperty("modified") != null) && Files.exists(partFile) ? Files.size(partFile) : 0;
+
+        URLConnection connectionIO = urlIO.openConnection();
+
+        connectionIO.setConnectTimeout(connectTimeout);
+        connectionIO.setReadTimeout(readTimeout);
+
+        if (connectionIO instanceof HttpURLConnection httpIO) {
+            if (offsetIO > 0) {
+                httpIO.setRequestProperty("Range", "bytes=" + offsetIO + "-");
+
+                // Only resume if the Archive wasn't modified meanwhile.
+                httpIO.setRequestProperty("If-Range", metaIO.getProperty("etag", metaIO.getProperty("modified")));
+            }
+
+            int codeIO = httpIO.getResponseCode();
+
+            if (codeIO == 416) {
+                httpIO.disconnect();
+
+                Files.deleteIfExists(partFile);
+                Files.deleteIfExists(metaFile);
+
+                throw new IOException("Range of partial download was not satisfiable");
+            }
+
+            if (codeIO >= 400)
+                throw new IOException("Server answered with HTTP " + codeIO);
+
+            if (codeIO == HttpURLConnection.HTTP_PARTIAL && !String.valueOf(httpIO.getHeaderField("Content-Range")).startsWith("bytes " + offsetIO + "-")) {
+                httpIO.disconnect();
+
+                if (offsetIO == 0)
+                    throw new IOException("Server answered with unexpected range " + httpIO.getHeaderField("Content-Range"));
+
+                // The Body doesn't continue the Partial File, start over without Range.
+                Files.deleteIfExists(partFile);
+                Files.deleteIfExists(metaFile);
+
+                log.debug("Server answered '{}' with another range than requested, downloading it from the start.", urlIO);
+
+                this.transfer(urlIO, partFile, metaFile, digestsIO);
+
+                return;
+            }
+
+            // Start over if the Server ignored the Range.
+            if (codeIO != HttpURLConnection.HTTP_PARTIAL)
+                offsetIO = 0;
+        } else
+            offsetIO = 0;
+
+        if (offsetIO == 0)
+            this.writeMeta(metaFile, urlIO, connectionIO.getHeaderField("ETag"), connectionIO.getHeaderField("Last-Modified"));
+
+        long lengthIO = connectionIO.getContentLengthLong();
+
+        try (FileChannel channelIO = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer bufferIO = ByteBuffer.allocate(BUFFER_SIZE);
+
+            // Digest the Bytes already on Disk.
+            if (offsetIO > 0) {
+                while (channelIO.position() < offsetIO && channelIO.read(bufferIO) != -1) {
+                    update(digestsIO, bufferIO.array(), bufferIO.position());
+
+                    bufferIO.clear();
+                }
+
+                log.debug("Resuming download of '{}' at {} bytes.", urlIO, offsetIO);
+            }
+
+            channelIO.truncate(offsetIO);
+            channelIO.position(offsetIO);
+
+            try (ReadableByteChannel inputIO = Channels.newChannel(connectionIO.getInputStream())) {
+                bufferIO.clear();
+
+                while (inputIO.read(bufferIO) != -1) {
+                    bufferIO.flip();
+
+                    update(digestsIO, bufferIO.array(), bufferIO.limit());
+
+                    while (bufferIO.hasRemaining()) {
+                        channelIO.write(bufferIO);
+                    }
+
+                    bufferIO.clear();
+                }
+            }
+
+            channelIO.force(true);
+
+            if (lengthIO >= 0 && channelIO.size() != offsetIO + lengthIO)
+                throw new EOFException("Download of '" + urlIO + "' ended after " + channelIO.size() + " of " + (offsetIO + lengthIO) + " bytes");
+        }
+    }
+
+    /**
+     * Updates the digests with the first bytes of a buffer.
+     *
+     * @param digestsIO the digests
+     * @param bytesIO   the buffer
+     * @param lengthIO  the number of bytes
+     */
+    private static void update(MessageDigest[] digestsIO, byte[] bytesIO, int lengthIO) {
+        for (MessageDigest digestIO : digestsIO) {
+            digestIO.update(bytesIO, 0, lengthIO);
+        }
+    }
+
+    /**
+     * Resolves the expected SHA-512 checksum of a release.
+     *
+     * @param releaseIO the release
+     * @param urlIO     the URL of the archive
+     * @return the expected checksum, or null if the release has none
+     * @throws VerifyException if the checksum file cannot be read
+     */
+    private String getExpectedSha512(PluginInfo.PluginRelease releaseIO, URL urlIO) {
+        String sumIO = releaseIO.sha512sum;
+
+        if (sumIO == null || sumIO.isBlank()) {
+            log.debug("No sha512 checksum specified for '{}', skipping verification.", urlIO);
+
+            return null;
+        }
+
+        try {
+            if (sumIO.equalsIgnoreCase(".sha512")) {
+                String archiveIO = urlIO.toString();
+
+                return this.readChecksum(new URL(archiveIO.substring(0, archiveIO.lastIndexOf('.')) + ".sha512"));
+            }
+
+            if (sumIO.startsWith("http"))
+                return this.readChecksum(new URL(sumIO));
+        } catch (IOException e) {
+            throw new VerifyException(e, "SHA512 checksum verification failed, could not download SHA512 file ({})", sumIO);
+        }
+
+        return sumIO.trim();
+    }
+
+    /**
+     * Reads the checksum of a checksum file in sha512sum format.
+     *
+     * @param urlIO the URL of the checksum file
+     * @return the checksum
+     * @throws IOException if the checksum file cannot be read
+     */
+    private String readChecksum(URL urlIO) throws IOException {
+        URLConnection connectionIO = urlIO.openConnection();
+
+        connectionIO.setConnectTimeout(connectTimeout);
+        connectionIO.setReadTimeout(readTimeout);
+
+        try (BufferedReader readerIO = new BufferedReader(new InputStreamReader(connectionIO.getInputStream(), StandardCharsets.UTF_8))) {
+            String lineIO = readerIO.readLine();
+
+            if (lineIO == null || lineIO.isBlank())
+                throw new IOException("Empty checksum file " + urlIO);
+
+            return lineIO.trim().split("\\s+")[0];
+        }
+    }
+
+    /**
+     * Reads the validators of a partial file.
+     *
+     * @param metaFile the file storing the validators
+     * @param urlIO    the URL of the archive
+     * @return the validators, or null if they are missing or belong to another URL
+     */
+    private Properties readMeta(Path metaFile, URL urlIO) {
+        if (!Files.exists(metaFile))
+            return null;
+
+        Properties metaIO = new Properties();
+
+        try (Reader readerIO = Files.newBufferedReader(metaFile, StandardCharsets.UTF_8)) {
+            metaIO.load(readerIO);
+        } catch (IOException e) {
+            return null;
+        }
+
+        return urlIO.toString().equals(metaIO.getProperty("url")) ? metaIO : null;
+    }
+
+    /**
+     * Stores the validators of a partial file.
+     *
+     * @param metaFile   the file storing the validators
+     * @param urlIO      the URL of the archive
+     * @param etagIO     the ETag header, or null
+     * @param modifiedIO the Last-Modified header, or null
+     * @throws IOException if the validators cannot be written
+     */
+    private void writeMeta(Path metaFile, URL urlIO, String etagIO, String modifiedIO) throws IOException {
+        Properties metaIO = new Properties();
+
+        metaIO.setProperty("url", urlIO.toString());
+
+        // Weak ETags can't be used for Range Requests.
+        if (etagIO != null && !etagIO.startsWith("W/"))
+            metaIO.setProperty("etag", etagIO);
+
+        if (modifiedIO != null)
+            metaIO.setProperty("modified", modifiedIO);
+
+        try (Writer writerIO = Files.newBufferedWriter(metaFile, StandardCharsets.UTF_8)) {
+            metaIO.store(writerIO, "Partial download");
+        }
+    }
+
+    /**
+     * Builds the file name of a downloaded archive from its URL.
+     *
+     * @param idIO      the unique identifier of the plugin
+     * @param releaseIO the release
+     * @param urlIO     the URL of the archive
+     * @return the file name
+     */
+    private String getFileName(String idIO, PluginInfo.PluginRelease releaseIO, URL urlIO) {
+        String pathIO = urlIO.getPath();
+        String nameIO = pathIO.substring(pathIO.lastIndexOf('/') + 1);
+
+        return nameIO.isBlank() ? idIO + "-" + releaseIO.version + ".jar" : nameIO;
+    }
+
+    /**
+     * Removes a downloaded archive, if it wasn't moved away, together with its directory, and the release directory
+     * once it is empty.
+     *
+     * @param archiveIO the archive returned by {@link #download(String, PluginInfo.PluginRelease)}
+     */
+    public void discard(Path archiveIO) {
+        Path archiveDirectory = archiveIO.getParent();
+        Path releaseDirectory = archiveDirectory.getParent();
+
+        // Only remove Directories created by this Downloader.
+        if (releaseDirectory == null || !directoryIO.toAbsolutePath().normalize().equals(releaseDirectory.toAbsolutePath().normalize().getParent())) {
+            log.warn("Download '{}' is not inside a release directory of '{}'.", archiveIO, directoryIO);
+
+            return;
+        }
+
+        ReleaseLock lockIO = acquire(releaseDirectory);
+
+        try {
+            synchronized (lockIO) {
+                Files.deleteIfExists(archiveIO);
+                Files.deleteIfExists(archiveDirectory);
+                Files.deleteIfExists(releaseDirectory);
+            }
+        } catch (DirectoryNotEmptyException ignored) {
+            // Keep partial Downloads and Archives of other Callers.
+        } catch (IOException e) {
+            log.warn("Unable to discard download '{}'.", archiveIO, e);
+        } finally {
+            release(releaseDirectory, lockIO);
+        }
+    }
+
+    /**
+     * Acquires the lock of a release directory, creating it for the first holder.
+     *
+     * @param releaseDirectory the release directory
+     * @return the lock, to be passed to {@link #release(Path, ReleaseLock)} once done
+     */
+    private static ReleaseLock acquire(Path releaseDirectory) {
+        return LOCKS.compute(releaseDirectory.toAbsolutePath().normalize(), (keyIO, lockIO) -> {
+            ReleaseLock currentIO = lockIO != null ? lockIO : new ReleaseLock();
+
+            currentIO.holders++;
+
+            return currentIO;
+        });
+    }
+
+    /**
+     * Releases the lock of a release directory, it is removed once the last holder released it.
+     *
+     * @param releaseDirectory the release directory
+     * @param lockIO           the lock returned by {@link #acquire(Path)}
+     */
+    private static void release(Path releaseDirectory, ReleaseLock lockIO) {
+        LOCKS.computeIfPresent(releaseDirectory.toAbsolutePath().normalize(), (keyIO, currentIO) -> currentIO == lockIO && --currentIO.holders == 0 ? null : currentIO);
+    }
+
+    /**
+     * Moves a file atomically, falling back to a plain move if the file system doesn't support atomic moves.
+     *
+     * @param sourceFile the file to be moved
+     * @param targetFile the target of the file
+     * @throws IOException if the file cannot be moved
+     */
+    public static void move(Path sourceFile, Path targetFile) throws IOException {
+        try {
+            Files.move(sourceFile, targetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(sourceFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Creates a message digest.
+     *
+     * @param algorithmIO the digest algorithm, e.g. "SHA-512"
+     * @return the message digest
+     */
+    static MessageDigest createDigest(String algorithmIO) {
+        try {
+            return MessageDigest.getInstance(algorithmIO);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Retrieves the directory receiving the downloads.
+     *
+     * @return the download directory
+     */
+    public Path getDirectory() {
+        return directoryIO;
+    }
+
+    /**
+     * The lock of a release directory with the number of its holders.
+     */
+    private static final class ReleaseLock {
+        private int holders;
+    }
+}
@@ -0,0 +1,188 @@
+package de.bytestore.plugin.configuration;
+
+import org.pf4j.PluginManager;
+import org.pf4j.PluginStateEvent;
+import org.pf4j.PluginStateListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PluginExtensionRegistry caches the resolved extensions of every extension point, so repeated lookups
+ * don't run the extension finder and the extension factory again.
+ *
+ * The extensions of an extension point (and of an extension point per plugin) are kept as immutable
+ * snapshot lists. All snapshots belong to a generation which is replaced as a whole on every
+ * {@link PluginStateEvent}, so a lookup is a lock-free map read returning the same list instance until a
+ * plugin is loaded, started, stopped, disabled or unloaded. Results computed while a generation is replaced
+ * are stored into the old generation and therefore never become visible.
+ *
+ * Lookups of a single plugin are answered from the build-time {@link TypedExtensionIndex} of the plugin if it
+ * ships one, independent of whether snapshots are cached.
+ *
+ * Cached extensions are shared instances, like with pf4j's {@code SingletonExtensionFactory}. The registry is
+ * disabled by default, in which case every lookup is passed to the plugin manager and creates new instances.
+ *
+ * Resolved extensions are passed through the {@link ExtensionMetrics} and the {@link ExtensionGuard} of the manager
+ * before they are returned or cached, so cached snapshots hold the instrumented and guarded extensions.
+ */
+public class PluginExtensionRegistry implements PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(PluginExtensionRegistry.class);
+
+    // Store Plugin Manager resolving the Extensions.
+    private final PluginManager managerIO;
+
+    // Store typed Extension Indexes of the Plugins.
+    private final TypedExtensionIndex typedIndex;
+
+    // Store Metrics instrumenting the Extensions.
+    private final ExtensionMetrics metricsIO;
+
+    // Store Guard isolating the Extensions.
+    private final ExtensionGuard guardIO;
+
+    // Store current Snapshot Generation.
+    private volatile Generation generation = new Generation();
+
+    private volatile boolean enabled;
+
+    /**
+     * Constructs a new PluginExtensionRegistry.
+     *
+     * @param managerIO the plugin manager resolving the extensions
+     * @param metricsIO the metrics instrumenting the resolved extensions
+     * @param guardIO   the guard isolating the resolved extensions
+     */
+    public PluginExtensionRegistry(PluginManager managerIO, ExtensionMetrics metricsIO, ExtensionGuard guardIO) {
+        this.managerIO = managerIO;
+        this.metricsIO = metricsIO;
+        this.guardIO = guardIO;
+        this.typedIndex = new TypedExtensionIndex(managerIO);
+    }
+
+    /**
+     * Retrieves the extensions of an extension point.
+     *
+     * @param typeIO the extension point
+     * @param <T>    the type of the extension point
+     * @return the immutable list of extensions
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getExtensions(Class<T> typeIO) {
+        if (!enabled)
+            return this.wrap(typeIO, managerIO.getExtensions(typeIO));
+
+        Generation generationIO = generation;
+        List<?> extensionsIO = generationIO.extensions.get(typeIO);
+
+        if (extensionsIO == null) {
+            extensionsIO = List.copyOf(this.wrap(typeIO, managerIO.getExtensions(typeIO)));
+
+            generationIO.extensions.put(typeIO, extensionsIO);
+        }
+
+        return (List<T>) extensionsIO;
+    }
+
+    /**
+     * Retrieves the extensions of an extension point provided by a single plugin.
+     *
+     * @param typeIO   the extension point
+     * @param pluginId the unique identifier of the plugin
+     * @param <T>      the type of the extension point
+     * @return the immutable list of extensions
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getExtensions(Class<T> typeIO, String pluginId) {
+        if (!enabled)
+            return this.resolve(typeIO, pluginId);
+
+        Generation generationIO = generation;
+        Map<String, List<?>> pluginsIO = generationIO.pluginExtensions.get(typeIO);
+
+        if (pluginsIO == null)
+            pluginsIO = generationIO.pluginExtensions.computeIfAbsent(typeIO, keyIO -> new ConcurrentHashMap<>());
+
+        List<?> extensionsIO = pluginsIO.get(pluginId);
+
+        if (extensionsIO == null) {
+            extensionsIO = List.copyOf(this.resolve(typeIO, pluginId));
+
+            pluginsIO.put(pluginId, extensionsIO);
+        }
+
+        return (List<T>) extensionsIO;
+    }
+
+    /**
+     * Resolves the extensions of a single plugin from its typed index, or via the plugin manager
+     * if the plugin has no typed index, and wraps them.
+     *
+     * @param typeIO   the extension point
+     * @param pluginId the unique identifier of the plugin
+     * @param <T>      the type of the extension point
+     * @return the extensions of the plugin
+     */
+    private <T> List<T> resolve(Class<T> typeIO, String pluginId) {
+        List<T> extensionsIO = typedIndex.getExtensions(typeIO, pluginId);
+
+        return this.wrap(typeIO, extensionsIO != null ? extensionsIO : managerIO.getExtensions(typeIO, pluginId));
+    }
+
+    /**
+     * Instruments resolved extensions and guards them, so calls rejected by the guard are not recorded.
+     *
+     * @param typeIO       the extension point
+     * @param extensionsIO the resolved extensions
+     * @param <T>          the type of the extension point
+     * @return the wrapped extensions
+     */
+    private <T> List<T> wrap(Class<T> typeIO, List<T> extensionsIO) {
+        return guardIO.guard(typeIO, metricsIO.instrument(typeIO, extensionsIO));
+    }
+
+    /**
+     * Drops every snapshot (and the typed index of the plugin) whenever the state of a plugin changes.
+     *
+     * @param event the plugin state event
+     */
+    @Override
+    public void pluginStateChanged(PluginStateEvent event) {
+        typedIndex.invalidate(event.getPlugin().getPluginId());
+
+        this.invalidate();
+    }
+
+    /**
+     * Drops every snapshot, the next lookups resolve the extensions again.
+     */
+    public void invalidate() {
+        generation = new Generation();
+
+        log.debug("Invalidated extension snapshots.");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+
+        this.invalidate();
+    }
+
+    /**
+     * A generation of extension snapshots, replaced as a whole on invalidation.
+     */
+    private static class Generation {
+        // Store Extensions by Extension Point.
+        private final Map<Class<?>, List<?>> extensions = new ConcurrentHashMap<>();
+
+        // Store Extensions by Extension Point and Plugin.
+        private final Map<Class<?>, Map<String, List<?>>> pluginExtensions = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,197 @@
+package de.bytestore.plugin.configuration;
+
+import org.pf4j.PluginRuntimeException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * PluginFingerprint describes the content of a plugin path (a jar/zip archive or, in development
+ * mode, a plugin directory) by its size, last modification time and SHA-256 content hash.
+ *
+ * Size and modification time are cheap to read and are used as a first check; the content hash
+ * is only computed when they differ, so touching a file without changing it does not count as change.
+ * A fingerprint created by {@link #stat(Path)} carries no hash and can only be compared by size and time.
+ */
+public final class PluginFingerprint {
+    private final long size;
+
+    private final long modified;
+
+    private final String hash;
+
+    /**
+     * Constructs a new PluginFingerprint.
+     *
+     * @param size     the size of the plugin path in bytes
+     * @param modified the last modification time in milliseconds since the epoch
+     * @param hash     the hex encoded SHA-256 content hash, or null if unknown
+     */
+    public PluginFingerprint(long size, long modified, String hash) {
+        this.size = size;
+        this.modified = modified;
+        this.hash = hash;
+    }
+
+    /**
+     * Creates a fingerprint of the given path containing only size and modification time.
+     *
+     * @param pathIO the plugin archive or directory
+     * @return the fingerprint without content hash
+     */
+    public static PluginFingerprint stat(Path pathIO) {
+        try {
+            if (Files.isDirectory(pathIO)) {
+                long sizeIO = 0;
+                long modifiedIO = Files.getLastModifiedTime(pathIO).toMillis();
+
+                for (Path fileIO : listFiles(pathIO)) {
+                    sizeIO += Files.size(fileIO);
+                    modifiedIO = Math.max(modifiedIO, Files.getLastModifiedTime(fileIO).toMillis());
+                }
+
+                return new PluginFingerprint(sizeIO, modifiedIO, null);
+            }
+
+            return new PluginFingerprint(Files.size(pathIO), Files.getLastModifiedTime(pathIO).toMillis(), null);
+        } catch (IOException e) {
+            throw new PluginRuntimeException(e, "Cannot read fingerprint of '{}'", pathIO);
+        }
+    }
+
+    /**
+     * Creates a complete fingerprint of the given path including the content hash.
+     *
+     * @param pathIO the plugin archive or directory
+     * @return the fingerprint including the SHA-256 content hash
+     */
+    public static PluginFingerprint of(Path pathIO) {
+        PluginFingerprint statIO = stat(pathIO);
+
+        return new PluginFingerprint(statIO.size, statIO.modified, hash(pathIO));
+    }
+
+    /**
+     * Computes the hex encoded SHA-256 hash of a plugin archive, or of every file (including its
+     * relative path) of a plugin directory.
+     *
+     * @param pathIO the plugin archive or directory
+     * @return the hex encoded SHA-256 hash
+     */
+    public static String hash(Path pathIO) {
+        try {
+            MessageDigest digestIO = MessageDigest.getInstance("SHA-256");
+
+            if (Files.isDirectory(pathIO)) {
+                for (Path fileIO : listFiles(pathIO)) {
+                    digestIO.update(pathIO.relativize(fileIO).toString().getBytes());
+
+                    update(digestIO, fileIO);
+                }
+            } else
+                update(digestIO, pathIO);
+
+            return HexFormat.of().formatHex(digestIO.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new PluginRuntimeException(e, "Cannot hash '{}'", pathIO);
+        }
+    }
+
+    /**
+     * Streams the content of a file into the given digest.
+     *
+     * @param digestIO the digest to be updated
+     * @param fileIO   the file to be read
+     */
+    private static void update(MessageDigest digestIO, Path fileIO) throws IOException {
+        byte[] bufferIO = new byte[64 * 1024];
+
+        try (InputStream streamIO = Files.newInputStream(fileIO)) {
+            int readIO;
+
+            while ((readIO = streamIO.read(bufferIO)) != -1) {
+                digestIO.update(bufferIO, 0, readIO);
+            }
+        }
+    }
+
+    /**
+     * Lists all regular files of a directory recursively in a stable order.
+     *
+     * @param pathIO the directory to be listed
+     * @return the sorted regular files of the directory
+     */
+    private static List<Path> listFiles(Path pathIO) throws IOException {
+        try (Stream<Path> streamIO = Files.walk(pathIO)) {
+            return streamIO.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Checks whether the given path still has the size and modification time of this fingerprint.
+     *
+     * @param pathIO the plugin archive or directory
+     * @return true if size and modification time are unchanged, false otherwise
+     */
+    public boolean isUnmodified(Path pathIO) {
+        PluginFingerprint statIO = stat(pathIO);
+
+        return statIO.size == size && statIO.modified == modified;
+    }
+
+    /**
+     * Checks whether this fingerprint describes the same content as another one. Fingerprints
+     * without hash are only equal if size and modification time match.
+     *
+     * @param otherIO the fingerprint to compare with
+     * @return true if both fingerprints describe the same content, false otherwise
+     */
+    public boolean isSameContent(PluginFingerprint otherIO) {
+        if (hash != null && otherIO.hash != null)
+            return hash.equals(otherIO.hash);
+
+        return size == otherIO.size && modified == otherIO.modified;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getModified() {
+        return modified;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PluginFingerprint that)) return false;
+
+        return size == that.size && modified == that.modified && Objects.equals(hash, that.hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(size, modified, hash);
+    }
+
+    @Override
+    public String toString() {
+        return "PluginFingerprint{size=" + size + ", modified=" + modified + ", hash=" + hash + "}";
+    }
+}
@@ -0,0 +1,30 @@
+package de.bytestore.plugin.configuration;
+
+import de.bytestore.plugin.service.PluginHealthIndicator;
+import de.bytestore.plugin.service.PluginService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * PluginHealthConfiguration registers the {@link PluginHealthIndicator} as health component "plugins" if the
+ * Spring Boot actuator is present. The component can be added to the readiness group, e.g.
+ * {@code management.endpoint.health.group.readiness.include=readinessState,plugins}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(name = "org.springframework.boot.actuate.health.HealthIndicator")
+public class PluginHealthConfiguration {
+    /**
+     * Creates the health indicator of the plugins, named after the "plugins" component.
+     * The property key is "management.health.plugins.enabled". If not specified, the default value is true.
+     *
+     * @param pluginService the plugin service keeping the readiness of the plugins
+     * @return the health indicator
+     */
+    @Bean("pluginsHealthIndicator")
+    @ConditionalOnProperty(name = "management.health.plugins.enabled", matchIfMissing = true)
+    public PluginHealthIndicator pluginsHealthIndicator(PluginService pluginService) {
+        return new PluginHealthIndicator(pluginService);
+    }
+}
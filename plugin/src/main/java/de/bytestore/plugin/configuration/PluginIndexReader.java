@@ -0,0 +1,232 @@
+package de.bytestore.plugin.configuration;
+
+import com.google.gson.JsonPrimitive;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.pf4j.update.PluginInfo;
+import org.pf4j.update.util.LenientDateTypeAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * PluginIndexReader reads a repository index (plugins.json) with a pull parser instead of building a Gson object
+ * tree of the whole document.
+ *
+ * Plugins are read one after another and releases rejected by the release filter (e.g. releases requiring another
+ * system version) are dropped right away, so they never reach the heap of the index. Strings repeated across the
+ * index, like providers, version constraints and dates, are shared between all plugins of one read. Unknown
+ * properties are skipped. A release the filter fails on (e.g. with a malformed "requires" constraint) is dropped
+ * on its own, the rest of the index is still read.
+ *
+ * A reader is not thread-safe, a new reader is used for every read.
+ */
+public class PluginIndexReader {
+    private static final Logger log = LoggerFactory.getLogger(PluginIndexReader.class);
+
+    private final Predicate<PluginInfo.PluginRelease> filterIO;
+
+    private final LenientDateTypeAdapter dateAdapter = new LenientDateTypeAdapter();
+
+    // Store shared Strings of this Read.
+    private final Map<String, String> stringsIO = new HashMap<>();
+
+    // Store parsed Dates by their String.
+    private final Map<String, Date> datesIO = new HashMap<>();
+
+    /**
+     * Constructs a new PluginIndexReader.
+     *
+     * @param filterIO the filter selecting the releases to be kept, or null to keep all releases
+     */
+    public PluginIndexReader(Predicate<PluginInfo.PluginRelease> filterIO) {
+        this.filterIO = filterIO;
+    }
+
+    /**
+     * Reads the plugins of an index.
+     *
+     * @param inputIO the stream of the plugins.json, closed after reading
+     * @return the plugins in index order
+     * @throws IOException if the index cannot be read or is malformed
+     */
+    public List<PluginInfo> read(InputStream inputIO) throws IOException {
+        List<PluginInfo> pluginsIO = new ArrayList<>();
+
+        try (JsonReader readerIO = new JsonReader(new InputStreamReader(inputIO, StandardCharsets.UTF_8))) {
+            readerIO.setStrictness(Strictness.LENIENT);
+
+            if (readerIO.peek() == JsonToken.NULL)
+                throw new IOException("Empty plugin index");
+
+            readerIO.beginArray();
+
+            while (readerIO.hasNext()) {
+                PluginInfo pluginIO = this.readPlugin(readerIO);
+
+                if (pluginIO != null && pluginIO.id != null)
+                    pluginsIO.add(pluginIO);
+            }
+
+            readerIO.endArray();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Malformed plugin index: " + e.getMessage(), e);
+        }
+
+        return pluginsIO;
+    }
+
+    /**
+     * Reads a single plugin.
+     *
+     * @param readerIO the reader positioned at the plugin
+     * @return the plugin, or null if the entry is null
+     * @throws IOException if the plugin cannot be read
+     */
+    private PluginInfo readPlugin(JsonReader readerIO) throws IOException {
+        if (readerIO.peek() == JsonToken.NULL) {
+            readerIO.nextNull();
+
+            return null;
+        }
+
+        PluginInfo pluginIO = new PluginInfo();
+
+        pluginIO.releases = new ArrayList<>();
+
+        readerIO.beginObject();
+
+        while (readerIO.hasNext()) {
+            switch (readerIO.nextName()) {
+                case "id" -> pluginIO.id = this.nextString(readerIO, false);
+                case "name" -> pluginIO.name = this.nextString(readerIO, false);
+                case "description" -> pluginIO.description = this.nextString(readerIO, false);
+                case "provider" -> pluginIO.provider = this.nextString(readerIO, true);
+                case "projectUrl" -> pluginIO.projectUrl = this.nextString(readerIO, false);
+                case "releases" -> this.readReleases(readerIO, pluginIO.releases);
+                default -> readerIO.skipValue();
+            }
+        }
+
+        readerIO.endObject();
+
+        if (pluginIO.releases instanceof ArrayList<PluginInfo.PluginRelease> releasesIO)
+            releasesIO.trimToSize();
+
+        return pluginIO;
+    }
+
+    /**
+     * Reads the releases of a plugin and keeps the releases accepted by the filter.
+     *
+     * @param readerIO   the reader positioned at the releases
+     * @param releasesIO the list receiving the releases
+     * @throws IOException if the releases cannot be read
+     */
+    private void readReleases(JsonReader readerIO, List<PluginInfo.PluginRelease> releasesIO) throws IOException {
+        if (readerIO.peek() == JsonToken.NULL) {
+            readerIO.nextNull();
+
+            return;
+        }
+
+        readerIO.beginArray();
+
+        while (readerIO.hasNext()) {
+            if (readerIO.peek() == JsonToken.NULL) {
+                readerIO.nextNull();
+
+                continue;
+            }
+
+            PluginInfo.PluginRelease releaseIO = new PluginInfo.PluginRelease();
+
+            readerIO.beginObject();
+
+            while (readerIO.hasNext()) {
+                switch (readerIO.nextName()) {
+                    case "version" -> releaseIO.version = this.nextString(readerIO, true);
+                    case "date" -> releaseIO.date = this.nextDate(readerIO);
+                    case "requires" -> releaseIO.requires = this.nextString(readerIO, true);
+                    case "url" -> releaseIO.url = this.nextString(readerIO, false);
+                    case "sha512sum" -> releaseIO.sha512sum = this.nextString(readerIO, false);
+                    default -> readerIO.skipValue();
+                }
+            }
+
+            readerIO.endObject();
+
+            if (this.accept(releaseIO))
+                releasesIO.add(releaseIO);
+        }
+
+        readerIO.endArray();
+    }
+
+    /**
+     * Checks whether a release is kept by the filter. A release the filter fails on is dropped.
+     *
+     * @param releaseIO the release
+     * @return true if the release is kept, false otherwise
+     */
+    private boolean accept(PluginInfo.PluginRelease releaseIO) {
+        try {
+            return filterIO == null || filterIO.test(releaseIO);
+        } catch (RuntimeException e) {
+            log.warn("Dropping release {} ({}) with invalid requirement '{}': {}", releaseIO.version, releaseIO.url, releaseIO.requires, e.getMessage());
+
+            return false;
+        }
+    }
+
+    /**
+     * Reads a string value.
+     *
+     * @param readerIO the reader positioned at the value
+     * @param sharedIO whether the value is shared with equal values of this read
+     * @return the string, or null if the value is null
+     * @throws IOException if the value cannot be read
+     */
+    private String nextString(JsonReader readerIO, boolean sharedIO) throws IOException {
+        if (readerIO.peek() == JsonToken.NULL) {
+            readerIO.nextNull();
+
+            return null;
+        }
+
+        String valueIO = readerIO.nextString();
+
+        return sharedIO ? stringsIO.computeIfAbsent(valueIO, keyIO -> keyIO) : valueIO;
+    }
+
+    /**
+     * Reads a date value leniently, equal dates are parsed only once.
+     *
+     * @param readerIO the reader positioned at the value
+     * @return the date, the epoch if the value cannot be parsed, or null if the value is null
+     * @throws IOException if the value cannot be read
+     */
+    private Date nextDate(JsonReader readerIO) throws IOException {
+        String valueIO = this.nextString(readerIO, false);
+
+        if (valueIO == null)
+            return null;
+
+        Date dateIO = datesIO.get(valueIO);
+
+        if (dateIO == null) {
+            dateIO = dateAdapter.fromJsonTree(new JsonPrimitive(valueIO));
+
+            datesIO.put(valueIO, dateIO);
+        }
+
+        return dateIO;
+    }
+}
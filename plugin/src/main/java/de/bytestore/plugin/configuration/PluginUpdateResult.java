@@ -0,0 +1,201 @@
+package de.bytestore.plugin.configuration;
+
+import java.util.*;
+
+/**
+ * PluginUpdateResult describes the outcome of a bulk update (see {@link JMIXUpdateManager#updatePlugins(Map)}).
+ *
+ * It lists every plugin of the update with its previous and new version, its {@link PluginUpdateState} and the
+ * error of a failed plugin. A bulk update is applied completely or not at all, so either all plugins are
+ * {@link PluginUpdateState#UPDATED} or none of them is.
+ */
+public class PluginUpdateResult {
+    private final Map<String, Entry> entriesIO = new LinkedHashMap<>();
+
+    private boolean rolledBack;
+
+    private String rollbackError;
+
+    /**
+     * Adds a plugin to the result, initially {@link PluginUpdateState#SKIPPED}.
+     *
+     * @param pluginId        the unique identifier of the plugin
+     * @param previousVersion the installed version
+     * @param version         the version to be installed
+     */
+    void add(String pluginId, String previousVersion, String version) {
+        entriesIO.put(pluginId, new Entry(pluginId, previousVersion, version));
+    }
+
+    /**
+     * Sets the state of a plugin.
+     *
+     * @param pluginId the unique identifier of the plugin
+     * @param stateIO  the state
+     * @param errorIO  the error of a failed plugin, or null
+     */
+    void setState(String pluginId, PluginUpdateState stateIO, String errorIO) {
+        Entry entryIO = entriesIO.get(pluginId);
+
+        if (entryIO != null) {
+            entryIO.state = stateIO;
+            entryIO.error = errorIO;
+        }
+    }
+
+    /**
+     * Marks the update as rolled back.
+     *
+     * @param rollbackError the error of the rollback, or null if the previous releases were restored
+     */
+    void setRolledBack(String rollbackError) {
+        this.rolledBack = true;
+        this.rollbackError = rollbackError;
+    }
+
+    /**
+     * Retrieves the plugins of the update.
+     *
+     * @return the entries in update order
+     */
+    public Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(entriesIO.values());
+    }
+
+    /**
+     * Retrieves the entry of a plugin.
+     *
+     * @param pluginId the unique identifier of the plugin
+     * @return the entry, or null if the plugin wasn't part of the update
+     */
+    public Entry getEntry(String pluginId) {
+        return entriesIO.get(pluginId);
+    }
+
+    /**
+     * Retrieves the identifiers of the plugins in the given state.
+     *
+     * @param stateIO the state
+     * @return the plugin identifiers
+     */
+    public List<String> getPlugins(PluginUpdateState stateIO) {
+        List<String> pluginsIO = new ArrayList<>();
+
+        entriesIO.forEach((idIO, entryIO) -> {
+            if (entryIO.state == stateIO)
+                pluginsIO.add(idIO);
+        });
+
+        return pluginsIO;
+    }
+
+    /**
+     * Checks whether all plugins were updated. An update without plugins is successful.
+     *
+     * @return true if every plugin runs its new release, false otherwise
+     */
+    public boolean isSuccessful() {
+        return entriesIO.values().stream().allMatch(entryIO -> entryIO.state == PluginUpdateState.UPDATED);
+    }
+
+    /**
+     * Checks whether the update was rolled back after plugins had been replaced.
+     *
+     * @return true if the update was rolled back, false otherwise
+     */
+    public boolean isRolledBack() {
+        return rolledBack;
+    }
+
+    /**
+     * Retrieves the error of a failed rollback.
+     *
+     * @return the error, or null if the rollback restored the previous releases or no rollback happened
+     */
+    public String getRollbackError() {
+        return rollbackError;
+    }
+
+    @Override
+    public String toString() {
+        return "PluginUpdateResult{entries=" + entriesIO.values() + ", rolledBack=" + rolledBack + (rollbackError != null ? ", rollbackError=" + rollbackError : "") + "}";
+    }
+
+    /**
+     * The outcome of a single plugin of the update.
+     */
+    public static class Entry {
+        private final String pluginId;
+
+        private final String previousVersion;
+
+        private final String version;
+
+        private PluginUpdateState state = PluginUpdateState.SKIPPED;
+
+        private String error;
+
+        /**
+         * Constructs a new Entry.
+         *
+         * @param pluginId        the unique identifier of the plugin
+         * @param previousVersion the installed version
+         * @param version         the version to be installed
+         */
+        Entry(String pluginId, String previousVersion, String version) {
+            this.pluginId = pluginId;
+            this.previousVersion = previousVersion;
+            this.version = version;
+        }
+
+        /**
+         * Retrieves the unique identifier of the plugin.
+         *
+         * @return the plugin id
+         */
+        public String getPluginId() {
+            return pluginId;
+        }
+
+        /**
+         * Retrieves the version installed before the update.
+         *
+         * @return the previous version
+         */
+        public String getPreviousVersion() {
+            return previousVersion;
+        }
+
+        /**
+         * Retrieves the version of the release to be installed.
+         *
+         * @return the new version
+         */
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * Retrieves the outcome of the plugin.
+         *
+         * @return the state
+         */
+        public PluginUpdateState getState() {
+            return state;
+        }
+
+        /**
+         * Retrieves the error of a failed plugin.
+         *
+         * @return the error message, or null
+         */
+        public String getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return pluginId + "@" + previousVersion + "->" + version + "=" + state + (error != null ? " (" + error + ")" : "");
+        }
+    }
+}
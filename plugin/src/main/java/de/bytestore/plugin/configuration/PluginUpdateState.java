@@ -0,0 +1,26 @@
+package de.bytestore.plugin.configuration;
+
+/**
+ * The outcome of a single plugin within a bulk update, see {@link PluginUpdateResult}.
+ */
+public enum PluginUpdateState {
+    /**
+     * The plugin runs the new release.
+     */
+    UPDATED,
+
+    /**
+     * The release of the plugin couldn't be downloaded, verified, loaded or started. The update was rolled back.
+     */
+    FAILED,
+
+    /**
+     * The plugin was updated, but the update was rolled back as another plugin failed. It runs the previous release.
+     */
+    ROLLED_BACK,
+
+    /**
+     * The plugin wasn't touched, as the releases of other plugins couldn't be downloaded.
+     */
+    SKIPPED
+}
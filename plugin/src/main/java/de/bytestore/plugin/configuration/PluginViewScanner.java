@@ -1,26 +1,37 @@
 package de.bytestore.plugin.configuration;
 
 import de.bytestore.plugin.bean.PluginView;
+import de.bytestore.plugin.processor.PluginViewIndexProcessor;
 import io.jmix.flowui.view.ViewController;
 import org.reflections.Reflections;
 import org.reflections.scanners.Scanners;
 import org.reflections.util.ClasspathHelper;
 import org.reflections.util.ConfigurationBuilder;
+import org.reflections.util.FilterBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
 import org.springframework.context.ApplicationContext;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackages;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.EnvironmentAware;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.util.ClassUtils;
 
-import java.util.List;
-import java.util.Set;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 
 /**
  * The PluginViewScanner class is a Spring configuration class that implements the
@@ -33,19 +44,23 @@ import java.util.Set;
  * Spring-managed environment without the need for explicit bean declarations,
  * enhancing modular*/
 @Configuration
-public class PluginViewScanner implements BeanDefinitionRegistryPostProcessor, ApplicationContextAware {
+public class PluginViewScanner implements BeanDefinitionRegistryPostProcessor, ApplicationContextAware, EnvironmentAware {
     private static final Logger log = LoggerFactory.getLogger(PluginViewScanner.class);
     private ApplicationContext applicationContext;
+    private Environment environment;
+
+    // Store Plugin View Classes registered as Beans.
+    private final Set<Class<?>> viewClassesIO = new LinkedHashSet<>();
 
     /**
-     * Processes the Spring bean definition registry by scanning the classpath
-     * for classes annotated with {@link PluginView}, ensuring they are also
-     * annotated with {@link ViewController},
+     * Processes the Spring bean definition registry by looking up the classes annotated with {@link PluginView},
+     * ensuring they are also annotated with {@link ViewController},
      * and registering them as beans in the Spring context.
      *
-     * This method integrates custom plugin views into the Spring application context by
-     * dynamically scanning and registering classes that are both plugin views
-     * and JMIX ViewControllers as beans.
+     * The plugin views are read from the {@value PluginViewIndexProcessor#INDEX_FILE} files written at build time
+     * by the {@link PluginViewIndexProcessor}. In addition, the packages of "plugins.views.packages" are scanned
+     * if set, otherwise the packages of the application are scanned inside every classpath root without an index,
+     * so a library shipping an index doesn't hide the views of the application.
      *
      * @param registry the {@link BeanDefinitionRegistry} used to register
      *                 the dynamically discovered and annotated classes as beans
@@ -55,14 +70,16 @@ public class PluginViewScanner implements BeanDefinitionRegistryPostProcessor, A
     @Override
     @Order(Ordered.LOWEST_PRECEDENCE)
     public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) throws BeansException {
-        // Build Reflections scanner to scan the entire classpath
-        Reflections reflections = new Reflections(new ConfigurationBuilder()
-                .setUrls(ClasspathHelper.forJavaClassPath())
-                .setScanners(Scanners.TypesAnnotated)
-        );
+        ClassLoader loaderIO = applicationContext != null && applicationContext.getClassLoader() != null ? applicationContext.getClassLoader() : ClassUtils.getDefaultClassLoader();
 
-        // Find all classes annotated with @PluginView
-        Set<Class<?>> pluginViewClasses = reflections.getTypesAnnotatedWith(PluginView.class, true);
+        // Store Classpath Roots carrying an Index.
+        Set<String> indexedIO = new HashSet<>();
+
+        // Read Plugin Views from Build-Time Index.
+        Set<Class<?>> pluginViewClasses = this.readIndex(loaderIO, indexedIO);
+
+        // Scan the Packages of the Roots without Index.
+        pluginViewClasses.addAll(this.scanPackages(registry, loaderIO, indexedIO));
 
         for (Class<?> clazz : pluginViewClasses) {
 
@@ -70,6 +87,11 @@ public class PluginViewScanner implements BeanDefinitionRegistryPostProcessor, A
             if (clazz.isAnnotationPresent(ViewController.class)) {
                 String beanName = clazz.getName(); // or clazz.getSimpleName(), depending on your naming convention
 
+                viewClassesIO.add(clazz);
+
+                if (registry.containsBeanDefinition(beanName))
+                    continue;
+
                 BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(clazz);
                 registry.registerBeanDefinition(beanName, builder.getBeanDefinition());
 
@@ -80,6 +102,132 @@ public class PluginViewScanner implements BeanDefinitionRegistryPostProcessor, A
         }
     }
 
+    /**
+     * Reads the plugin view classes listed in all {@value PluginViewIndexProcessor#INDEX_FILE} files visible
+     * to the given classloader.
+     *
+     * @param loaderIO  the classloader of the application
+     * @param indexedIO receives the classpath roots of all read index files
+     * @return the indexed plugin view classes
+     */
+    private Set<Class<?>> readIndex(ClassLoader loaderIO, Set<String> indexedIO) {
+        Set<Class<?>> classesIO = new LinkedHashSet<>();
+
+        try {
+            Enumeration<URL> urlsIO = loaderIO.getResources(PluginViewIndexProcessor.INDEX_FILE);
+
+            while (urlsIO.hasMoreElements()) {
+                URL urlIO = urlsIO.nextElement();
+
+                try (BufferedReader readerIO = new BufferedReader(new InputStreamReader(urlIO.openStream(), StandardCharsets.UTF_8))) {
+                    String lineIO;
+
+                    while ((lineIO = readerIO.readLine()) != null) {
+                        lineIO = lineIO.trim();
+
+                        if (lineIO.isEmpty() || lineIO.startsWith("#"))
+                            continue;
+
+                        try {
+                            Class<?> classIO = ClassUtils.forName(lineIO, loaderIO);
+
+                            if (classIO.isAnnotationPresent(PluginView.class))
+                                classesIO.add(classIO);
+                        } catch (ClassNotFoundException | LinkageError e) {
+                            log.warn("Indexed Plugin View {} of {} could not be loaded.", lineIO, urlIO, e);
+                        }
+                    }
+                }
+
+                indexedIO.add(getRoot(urlIO, PluginViewIndexProcessor.INDEX_FILE));
+            }
+        } catch (IOException e) {
+            log.warn("Unable to read Plugin View index, falling back to package scan.", e);
+
+            indexedIO.clear();
+        }
+
+        log.debug("Read {} Plugin Views from index.", classesIO.size());
+
+        return classesIO;
+    }
+
+    /**
+     * Retrieves the classpath root of a resource, in the form used by {@link ClasspathHelper}.
+     *
+     * @param urlIO  the url of the resource
+     * @param nameIO the name of the resource
+     * @return the url of the classpath root
+     */
+    private static String getRoot(URL urlIO, String nameIO) {
+        String externalIO = urlIO.toExternalForm();
+        int indexIO = externalIO.lastIndexOf(nameIO);
+
+        return indexIO != -1 ? externalIO.substring(0, indexIO) : externalIO;
+    }
+
+    /**
+     * Scans the packages of "plugins.views.packages" inside all classpath roots, or the auto-configuration packages
+     * of the application inside the classpath roots without index if not specified, for classes annotated with
+     * {@link PluginView}.
+     *
+     * @param registry  the bean definition registry of the application
+     * @param loaderIO  the classloader of the application
+     * @param indexedIO the classpath roots carrying an index
+     * @return the found plugin view classes
+     */
+    private Set<Class<?>> scanPackages(BeanDefinitionRegistry registry, ClassLoader loaderIO, Set<String> indexedIO) {
+        List<String> packagesIO = new ArrayList<>();
+
+        if (environment != null)
+            Arrays.stream(environment.getProperty("plugins.views.packages", String[].class, new String[0])).map(String::trim).filter(packageIO -> !packageIO.isEmpty()).forEach(packagesIO::add);
+
+        // Scan configured Packages everywhere, the Application Packages only where no Index covers them.
+        boolean configuredIO = !packagesIO.isEmpty();
+
+        if (!configuredIO && registry instanceof BeanFactory factoryIO && AutoConfigurationPackages.has(factoryIO))
+            packagesIO.addAll(AutoConfigurationPackages.get(factoryIO));
+
+        if (packagesIO.isEmpty()) {
+            if (indexedIO.isEmpty())
+                log.warn("No Plugin View index and no packages to scan found, skipping Plugin View scan.");
+
+            return Collections.emptySet();
+        }
+
+        Set<URL> urlsIO = new LinkedHashSet<>();
+
+        for (String packageIO : packagesIO) {
+            for (URL urlIO : ClasspathHelper.forPackage(packageIO, loaderIO)) {
+                if (configuredIO || !indexedIO.contains(urlIO.toExternalForm()))
+                    urlsIO.add(urlIO);
+            }
+        }
+
+        if (urlsIO.isEmpty()) {
+            log.debug("All classpath roots of packages {} carry a Plugin View index, skipping package scan.", packagesIO);
+
+            return Collections.emptySet();
+        }
+
+        log.info("Scanning packages {} inside {} classpath roots for Plugin Views.", packagesIO, urlsIO.size());
+
+        FilterBuilder filterIO = new FilterBuilder();
+
+        packagesIO.forEach(filterIO::includePackage);
+
+        // Build Reflections scanner restricted to the Packages.
+        Reflections reflections = new Reflections(new ConfigurationBuilder()
+                .setUrls(urlsIO)
+                .addClassLoaders(loaderIO)
+                .filterInputsBy(filterIO)
+                .setScanners(Scanners.TypesAnnotated)
+        );
+
+        // Find all classes annotated with @PluginView
+        return reflections.getTypesAnnotatedWith(PluginView.class, true);
+    }
+
     /**
      * This method is meant to provide additional processing to the bean factory
      * in a Spring application context after its standard initialization but
@@ -98,12 +246,24 @@ public class PluginViewScanner implements BeanDefinitionRegistryPostProcessor, A
         // Nor implemented.
     }
 
+    /**
+     * Retrieves the plugin view classes of the application registered as beans by this scanner.
+     *
+     * @return an unmodifiable set of plugin view classes
+     */
+    public Set<Class<?>> getPluginViewClasses() {
+        return Collections.unmodifiableSet(viewClassesIO);
+    }
+
     /**
      * Retrieves a list of all beans annotated with {@link PluginView} from the application context.
      * These beans represent plugin views that are integrated into the current Spring application context.
      *
      * @return a list of objects representing plugin views annotated with {@link PluginView}.
+     * @deprecated walks all bean definitions and creates every view, use
+     * {@link de.bytestore.plugin.service.PluginViewRegistry} to look up plugin views instead.
      */
+    @Deprecated
     public List<Object> getPluginViews() {
         return applicationContext.getBeansWithAnnotation(PluginView.class).values().stream().toList();
     }
@@ -124,4 +284,14 @@ public class PluginViewScanner implements BeanDefinitionRegistryPostProcessor, A
         this.applicationContext = applicationContext;
 
     }
+
+    /**
+     * Sets the environment used to resolve the packages scanned if no Plugin View index is present.
+     *
+     * @param environment the {@link Environment} of the application
+     */
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package de.bytestore.plugin.configuration;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
@@ -8,6 +9,8 @@ import org.springframework.core.annotation.Order;
 import org.springframework.core.env.Environment;
 
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * SpringPluginManagerConfiguration is a Spring configuration class that defines
@@ -27,10 +30,43 @@ public class SpringPluginManagerConfiguration {
     @Autowired
     private Environment environment;
 
+    @Autowired
+    private ApplicationContext applicationContext;
+
     @Bean
     @Order(Ordered.LOWEST_PRECEDENCE)
     public SpringRuntimePluginManager pluginManager() {
-        return new SpringRuntimePluginManager(Path.of(getHome()));
+        SpringRuntimePluginManager managerIO = new SpringRuntimePluginManager(Path.of(getHome()));
+
+        // Enable or Disable persistent Descriptor Index.
+        managerIO.setDescriptorIndex(isDescriptorIndex());
+
+        // Enable or Disable instrumented Extensions.
+        managerIO.getExtensionMetrics().setEnabled(isExtensionMetrics());
+
+        // Publish Extension Metrics through Micrometer if present.
+        if (isExtensionMetrics() && ExtensionMetrics.isMicrometerPresent())
+            managerIO.getExtensionMetrics().setMeterBinder(new ExtensionMeterBinder(applicationContext));
+
+        // Isolate Extensions of every Plugin.
+        managerIO.getExtensionGuard().setEnabled(isExtensionGuard());
+        managerIO.getExtensionGuard().setMaxConcurrentCalls(getExtensionGuardConcurrency());
+        managerIO.getExtensionGuard().setTimeout(getExtensionGuardTimeout());
+        managerIO.getExtensionGuard().setFailureThreshold(getExtensionGuardFailures());
+        managerIO.getExtensionGuard().setOpenDuration(getExtensionGuardOpenDuration());
+        managerIO.getExtensionGuard().setMaxThreads(getExtensionGuardThreads());
+
+        // Enable or Disable cached Extension Lookups.
+        managerIO.getExtensionRegistry().setEnabled(isExtensionCache());
+
+        // Export Host Beans to Plugin Contexts.
+        managerIO.setContextExports(new HostContextExports(getContextExports()));
+
+        // Scan Plugins while the Application is starting.
+        if (isPreScan())
+            managerIO.preScan();
+
+        return managerIO;
     }
 
     /**
@@ -42,4 +78,116 @@ public class SpringPluginManagerConfiguration {
     public String getHome() {
         return environment.getProperty("plugins.home", "./plugins/");
     }
+
+    /**
+     * Determines whether plugin descriptors are kept in a persistent index inside the plugins home directory.
+     * The property key is "plugins.descriptor.index". If not specified, the default value {@code false} is returned.
+     *
+     * @return true if the descriptor index is enabled, false otherwise.
+     */
+    public boolean isDescriptorIndex() {
+        return environment.getProperty("plugins.descriptor.index", Boolean.class, false);
+    }
+
+    /**
+     * Retrieves the host beans exported to the Spring contexts of plugins as bean names or fully qualified types.
+     * The property key is "plugins.context.exports". If not specified, no beans are exported; {@code *} exports
+     * the whole host context.
+     *
+     * @return the list of exported bean names or types.
+     */
+    public List<String> getContextExports() {
+        return Arrays.stream(environment.getProperty("plugins.context.exports", String[].class, new String[0])).map(String::trim).filter(exportIO -> !exportIO.isEmpty()).toList();
+    }
+
+    /**
+     * Determines whether resolved extensions are cached per extension point until the state of a plugin changes.
+     * The property key is "plugins.extensions.cache". If not specified, the default value {@code false} is returned.
+     *
+     * @return true if the extension registry is enabled, false otherwise.
+     */
+    public boolean isExtensionCache() {
+        return environment.getProperty("plugins.extensions.cache", Boolean.class, false);
+    }
+
+    /**
+     * Determines whether extensions are wrapped into proxies recording calls, latency and errors per plugin,
+     * extension point and method. The property key is "plugins.extensions.metrics". If not specified, the
+     * default value {@code false} is returned.
+     *
+     * @return true if extension metrics are enabled, false otherwise.
+     */
+    public boolean isExtensionMetrics() {
+        return environment.getProperty("plugins.extensions.metrics", Boolean.class, false);
+    }
+
+    /**
+     * Determines whether calls into extensions pass a per-plugin bulkhead and circuit breaker.
+     * The property key is "plugins.extensions.guard". If not specified, the default value {@code false} is returned.
+     *
+     * @return true if the extension guard is enabled, false otherwise.
+     */
+    public boolean isExtensionGuard() {
+        return environment.getProperty("plugins.extensions.guard", Boolean.class, false);
+    }
+
+    /**
+     * Retrieves the maximum number of concurrent calls into the extensions of a single plugin.
+     * The property key is "plugins.extensions.guard.concurrency". If not specified, the default value 16 is returned.
+     *
+     * @return the maximum number of concurrent calls per plugin.
+     */
+    public int getExtensionGuardConcurrency() {
+        return environment.getProperty("plugins.extensions.guard.concurrency", Integer.class, 16);
+    }
+
+    /**
+     * Retrieves the duration after which a call into an extension counts as failed.
+     * The property key is "plugins.extensions.guard.timeout". If not specified, the default value 2000 is returned.
+     *
+     * @return the timeout in milliseconds.
+     */
+    public long getExtensionGuardTimeout() {
+        return environment.getProperty("plugins.extensions.guard.timeout", Long.class, 2000L);
+    }
+
+    /**
+     * Retrieves the number of consecutive failed calls opening the circuit of a plugin.
+     * The property key is "plugins.extensions.guard.failures". If not specified, the default value 5 is returned.
+     *
+     * @return the failure threshold.
+     */
+    public int getExtensionGuardFailures() {
+        return environment.getProperty("plugins.extensions.guard.failures", Integer.class, 5);
+    }
+
+    /**
+     * Retrieves the duration an open circuit rejects calls before a trial call is let through.
+     * The property key is "plugins.extensions.guard.open". If not specified, the default value 30000 is returned.
+     *
+     * @return the open duration in milliseconds.
+     */
+    public long getExtensionGuardOpenDuration() {
+        return environment.getProperty("plugins.extensions.guard.open", Long.class, 30000L);
+    }
+
+    /**
+     * Retrieves the maximum number of threads executing guarded extension calls of all plugins.
+     * The property key is "plugins.extensions.guard.threads". If not specified, the default value 32 is returned.
+     *
+     * @return the maximum number of guard threads.
+     */
+    public int getExtensionGuardThreads() {
+        return environment.getProperty("plugins.extensions.guard.threads", Integer.class, 32);
+    }
+
+    /**
+     * Determines whether the plugins are pre-scanned in the background as soon as the plugin manager is created.
+     * The property key is "plugins.prescan". If not specified, the default value {@code false} is returned.
+     *
+     * @return true if the plugin pre-scan is enabled, false otherwise.
+     */
+    public boolean isPreScan() {
+        return environment.getProperty("plugins.prescan", Boolean.class, false);
+    }
 }
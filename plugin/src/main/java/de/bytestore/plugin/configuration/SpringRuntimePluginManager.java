@@ -1,11 +1,32 @@
 package de.bytestore.plugin.configuration;
 
+import org.pf4j.DependencyResolver;
+import org.pf4j.PluginDescriptor;
+import org.pf4j.PluginDescriptorFinder;
+import org.pf4j.PluginRuntimeException;
+import org.pf4j.PluginState;
+import org.pf4j.PluginStateEvent;
+import org.pf4j.PluginWrapper;
 import org.pf4j.RuntimeMode;
 import org.pf4j.spring.SpringPluginManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
 
 /**
  * The SpringRuntimePluginManager class extends the SpringPluginManager to manage plugins
@@ -14,6 +35,7 @@ import java.nio.file.Path;
  */
 @Order(Ordered.LOWEST_PRECEDENCE)
 public class SpringRuntimePluginManager extends JmixSpringPluginManager {
+    private static final Logger log = LoggerFactory.getLogger(SpringRuntimePluginManager.class);
 
     /**
      * A static variable representing the current runtime mode of the application or plugin manager.
@@ -26,6 +48,27 @@ public class SpringRuntimePluginManager extends JmixSpringPluginManager {
      */
     public static RuntimeMode runtimeMode = RuntimeMode.DEPLOYMENT;
 
+    // Store Start Duration of every Plugin of the last parallel Startup.
+    private volatile Map<String, Long> startupTimings = Collections.emptyMap();
+
+    // Store Fingerprint of every loaded Plugin Path.
+    private final Map<Path, PluginFingerprint> fingerprints = new ConcurrentHashMap<>();
+
+    // Store cached Extensions of every Extension Point.
+    private final PluginExtensionRegistry extensionRegistry;
+
+    // Store cached Method Handles of the Extensions.
+    private final ExtensionDispatcher extensionDispatcher;
+
+    // Store Invocation Metrics of the Extensions.
+    private final ExtensionMetrics extensionMetrics;
+
+    // Store Bulkheads and Circuit Breakers of the Extensions.
+    private final ExtensionGuard extensionGuard;
+
+    // Store Future of the running or last Pre-Scan.
+    private volatile CompletableFuture<Void> preScan = CompletableFuture.completedFuture(null);
+
 
     /**
      * Constructs a new SpringRuntimePluginManager instance with the specified plugin root directories.
@@ -37,6 +80,83 @@ public class SpringRuntimePluginManager extends JmixSpringPluginManager {
      */
     public SpringRuntimePluginManager(Path... pluginsRoots) {
         super(pluginsRoots);
+
+        this.extensionDispatcher = new ExtensionDispatcher();
+        this.extensionMetrics = new ExtensionMetrics(this, extensionDispatcher);
+        this.extensionGuard = new ExtensionGuard(this, extensionDispatcher);
+        this.extensionRegistry = new PluginExtensionRegistry(this, extensionMetrics, extensionGuard);
+
+        // Invalidate cached Extensions on every State Change.
+        addPluginStateListener(extensionRegistry);
+        addPluginStateListener(extensionMetrics);
+        addPluginStateListener(extensionGuard);
+        addPluginStateListener(extensionDispatcher);
+    }
+
+    /**
+     * Retrieves the registry caching the extensions of every extension point.
+     *
+     * @return the extension registry of this manager
+     */
+    public PluginExtensionRegistry getExtensionRegistry() {
+        return extensionRegistry;
+    }
+
+    /**
+     * Retrieves the dispatcher invoking extension methods through cached method handles.
+     *
+     * @return the extension dispatcher of this manager
+     */
+    public ExtensionDispatcher getExtensionDispatcher() {
+        return extensionDispatcher;
+    }
+
+    /**
+     * Retrieves the metrics recording the invocations of instrumented extensions.
+     *
+     * @return the extension metrics of this manager
+     */
+    public ExtensionMetrics getExtensionMetrics() {
+        return extensionMetrics;
+    }
+
+    /**
+     * Retrieves the guard isolating the extensions of every plugin with a bulkhead and a circuit breaker.
+     *
+     * @return the extension guard of this manager
+     */
+    public ExtensionGuard getExtensionGuard() {
+        return extensionGuard;
+    }
+
+    /**
+     * Creates the descriptor finder of the plugin manager. The default pf4j finders are wrapped by an
+     * {@link IndexedPluginDescriptorFinder} keeping its index in the first plugins root; the index is
+     * disabled until {@link #setDescriptorIndex(boolean)} enables it.
+     *
+     * @return the indexed descriptor finder
+     */
+    @Override
+    protected PluginDescriptorFinder createPluginDescriptorFinder() {
+        return new IndexedPluginDescriptorFinder(super.createPluginDescriptorFinder(), getPluginsRoots().get(0).resolve(IndexedPluginDescriptorFinder.INDEX_FILE));
+    }
+
+    /**
+     * Enables or disables the persistent plugin descriptor index.
+     *
+     * @param indexIO true to read descriptors of unchanged plugins from the index, false to always read the archives
+     */
+    public void setDescriptorIndex(boolean indexIO) {
+        getDescriptorIndex().setEnabled(indexIO);
+    }
+
+    /**
+     * Retrieves the descriptor finder holding the persistent plugin descriptor index.
+     *
+     * @return the indexed descriptor finder of this manager
+     */
+    public IndexedPluginDescriptorFinder getDescriptorIndex() {
+        return (IndexedPluginDescriptorFinder) getPluginDescriptorFinder();
     }
 
     /**
@@ -59,4 +179,524 @@ public class SpringRuntimePluginManager extends JmixSpringPluginManager {
     public void setRuntimeMode(RuntimeMode runtimeMode) {
         SpringRuntimePluginManager.runtimeMode = runtimeMode;
     }
+
+    /**
+     * Starts all resolved plugins level by level of their dependency graph (see {@link PluginDependencyGraph}).
+     * Plugins of the same level don't depend on each other and are started concurrently on a bounded
+     * {@link ForkJoinPool}, the next level is only started once every plugin of the previous level has finished.
+     *
+     * With a pool size of 1 every plugin is started on the calling thread, level by level in resolve order,
+     * which keeps the startup fully deterministic.
+     *
+     * @param threadsIO the maximum number of plugins started at the same time
+     * @return the start duration of every started plugin in milliseconds, ordered by level and resolve order
+     */
+    public Map<String, Long> startPluginsParallel(int threadsIO) {
+        List<List<PluginWrapper>> levelsIO = new PluginDependencyGraph(new ArrayList<>(getResolvedPlugins())).getLevels();
+        Map<String, Long> durationsIO = new ConcurrentHashMap<>();
+        long startIO = System.nanoTime();
+
+        if (threadsIO <= 1) {
+            // Start Plugins on calling Thread.
+            levelsIO.forEach(levelIO -> levelIO.forEach(pluginIO -> startPluginTimed(pluginIO, durationsIO)));
+        } else {
+            ForkJoinPool poolIO = new ForkJoinPool(threadsIO);
+            ClassLoader loaderIO = Thread.currentThread().getContextClassLoader();
+
+            try {
+                for (List<PluginWrapper> levelIO : levelsIO) {
+                    List<ForkJoinTask<?>> tasksIO = new ArrayList<>();
+
+                    for (PluginWrapper pluginIO : levelIO) {
+                        tasksIO.add(poolIO.submit(() -> {
+                            // Keep Context Class Loader of the calling Thread like a sequential Start.
+                            Thread.currentThread().setContextClassLoader(loaderIO);
+
+                            startPluginTimed(pluginIO, durationsIO);
+                        }));
+                    }
+
+                    // Wait for Level to finish.
+                    tasksIO.forEach(ForkJoinTask::join);
+                }
+            } finally {
+                poolIO.shutdown();
+            }
+        }
+
+        // Order Timings by Level and Resolve Order.
+        Map<String, Long> timingsIO = new LinkedHashMap<>();
+
+        levelsIO.forEach(levelIO -> levelIO.forEach(pluginIO -> {
+            Long durationIO = durationsIO.get(pluginIO.getPluginId());
+
+            if (durationIO != null)
+                timingsIO.put(pluginIO.getPluginId(), durationIO);
+        }));
+
+        startupTimings = Collections.unmodifiableMap(timingsIO);
+
+        log.info("Started {} plugins in {} levels using {} threads within {} ms.", timingsIO.size(), levelsIO.size(), Math.max(threadsIO, 1), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startIO));
+
+        return startupTimings;
+    }
+
+    /**
+     * Starts a single resolved plugin and records its start duration. The start itself mirrors
+     * {@link #startPlugins()}: disabled and already started plugins are skipped, a failing plugin
+     * is marked as {@link PluginState#FAILED} and a state event is fired in any case.
+     *
+     * @param pluginWrapper the plugin to be started
+     * @param durationsIO   the map receiving the start duration in milliseconds
+     */
+    private void startPluginTimed(PluginWrapper pluginWrapper, Map<String, Long> durationsIO) {
+        PluginState pluginState = pluginWrapper.getPluginState();
+
+        if (pluginState.isDisabled() || pluginState.isStarted())
+            return;
+
+        long startIO = System.nanoTime();
+
+        try {
+            log.info("Start plugin '{}'", getPluginLabel(pluginWrapper.getDescriptor()));
+
+            pluginWrapper.getPlugin().start();
+            pluginWrapper.setPluginState(PluginState.STARTED);
+            pluginWrapper.setFailedException(null);
+
+            synchronized (this) {
+                startedPlugins.add(pluginWrapper);
+            }
+        } catch (Exception | LinkageError e) {
+            pluginWrapper.setPluginState(PluginState.FAILED);
+            pluginWrapper.setFailedException(e);
+
+            log.error("Unable to start plugin '{}'", getPluginLabel(pluginWrapper.getDescriptor()), e);
+        } finally {
+            firePluginStateEvent(new PluginStateEvent(this, pluginWrapper, pluginState));
+        }
+
+        long durationIO = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startIO);
+
+        durationsIO.put(pluginWrapper.getPluginId(), durationIO);
+
+        log.info("Started plugin '{}' in {} ms.", pluginWrapper.getPluginId(), durationIO);
+    }
+
+    /**
+     * Retrieves the start duration of every plugin started by the last call of {@link #startPluginsParallel(int)}.
+     *
+     * @return an unmodifiable map of plugin identifiers to start durations in milliseconds
+     */
+    public Map<String, Long> getStartupTimings() {
+        return startupTimings;
+    }
+
+    /**
+     * Starts a pre-scan of the plugin roots on a background thread. The pre-scan finds the plugin paths,
+     * reads their descriptors ahead of loading (see {@link IndexedPluginDescriptorFinder#prefetch(Path)}),
+     * resolves their dependencies to report problems early and warms up the central directory and extension
+     * index of every plugin archive. No plugin classloader or Spring context is created.
+     *
+     * {@link #loadPlugins()} waits for a running pre-scan, so it can be started as soon as the manager exists
+     * and overlaps with the startup of the host application.
+     *
+     * @return a future completing once the pre-scan has finished
+     */
+    public synchronized CompletableFuture<Void> preScan() {
+        if (!preScan.isDone())
+            return preScan;
+
+        preScan = CompletableFuture.runAsync(this::scanPlugins, runnableIO -> {
+            Thread threadIO = new Thread(runnableIO, "plugin-prescan");
+
+            threadIO.setDaemon(true);
+            threadIO.start();
+        });
+
+        return preScan;
+    }
+
+    /**
+     * Blocks until a running pre-scan has finished, regardless of its outcome.
+     */
+    public void awaitPreScan() {
+        if (!preScan.isDone()) {
+            log.info("Waiting for plugin pre-scan...");
+
+            preScan.exceptionally(throwableIO -> null).join();
+        }
+    }
+
+    /**
+     * Pre-scans the plugin roots, see {@link #preScan()}.
+     */
+    private void scanPlugins() {
+        long startIO = System.nanoTime();
+        List<PluginDescriptor> descriptorsIO = new ArrayList<>();
+
+        for (Path pathIO : pluginRepository.getPluginPaths()) {
+            try {
+                descriptorsIO.add(getDescriptorIndex().prefetch(pathIO));
+
+                warmArchive(pathIO);
+            } catch (Exception e) {
+                log.warn("Cannot pre-scan plugin '{}'", pathIO, e);
+            }
+        }
+
+        // Resolve Dependencies to report Problems before the Plugins are loaded.
+        DependencyResolver.Result resultIO = new DependencyResolver(getVersionManager()).resolve(descriptorsIO);
+
+        if (resultIO.hasCyclicDependency())
+            log.warn("Pre-scan found a cyclic plugin dependency.");
+
+        if (resultIO.hasNotFoundDependencies())
+            log.warn("Pre-scan found missing plugin dependencies: {}", resultIO.getNotFoundDependencies());
+
+        if (resultIO.hasWrongVersionDependencies())
+            log.warn("Pre-scan found plugin dependencies with wrong version: {}", resultIO.getWrongVersionDependencies());
+
+        log.info("Pre-scanned {} plugins within {} ms, resolve order {}.", descriptorsIO.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startIO), resultIO.getSortedPlugins());
+    }
+
+    /**
+     * Reads the central directory and the extension index of a plugin archive, so they are cached by the
+     * operating system once the plugin classloader opens the archive. Plugin directories are skipped.
+     *
+     * @param pathIO the path of the plugin archive or directory
+     */
+    private void warmArchive(Path pathIO) throws IOException {
+        if (!Files.isRegularFile(pathIO))
+            return;
+
+        // Opening the Archive reads its Central Directory.
+        try (JarFile jarIO = new JarFile(pathIO.toFile())) {
+            ZipEntry indexIO = jarIO.getEntry("META-INF/extensions.idx");
+
+            if (indexIO != null) {
+                try (InputStream streamIO = jarIO.getInputStream(indexIO)) {
+                    streamIO.readAllBytes();
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads all plugins from the plugin roots and remembers the fingerprint of every loaded plugin path.
+     * A running pre-scan (see {@link #preScan()}) is awaited first.
+     */
+    @Override
+    public void loadPlugins() {
+        awaitPreScan();
+
+        super.loadPlugins();
+
+        getPlugins().forEach(this::recordFingerprint);
+
+        getDescriptorIndex().flush();
+    }
+
+    /**
+     * Loads a single plugin from the given path and remembers the fingerprint of the path. Synchronized like
+     * {@link #reloadChanged()}, so a plugin uploaded while the directory watcher applies changes is loaded once.
+     *
+     * @param pluginPath the path of the plugin archive or directory
+     * @return the identifier of the loaded plugin
+     */
+    @Override
+    public synchronized String loadPlugin(Path pluginPath) {
+        String idIO = super.loadPlugin(pluginPath);
+
+        recordFingerprint(getPlugin(idIO));
+
+        getDescriptorIndex().flush();
+
+        return idIO;
+    }
+
+    /**
+     * Loads several plugins and resolves them once, like {@link #reloadChanged()}, so the resolved plugins are in
+     * dependency order afterwards whatever order the paths are given in. Paths which can't be loaded are logged and
+     * left out, the fingerprints of the loaded paths are remembered.
+     *
+     * @param pluginPaths the paths of the plugin archives or directories
+     * @return the identifiers of the loaded plugins
+     * @throws PluginRuntimeException if the dependencies of the loaded plugins can't be resolved
+     */
+    public synchronized List<String> loadPlugins(Collection<Path> pluginPaths) {
+        List<String> loadedIO = new ArrayList<>();
+
+        for (Path pathIO : pluginPaths) {
+            try {
+                PluginWrapper pluginIO = loadPluginFromPath(pathIO);
+
+                if (pluginIO != null) {
+                    loadedIO.add(pluginIO.getPluginId());
+
+                    recordFingerprint(pluginIO);
+                }
+            } catch (PluginRuntimeException e) {
+                log.error("Cannot load plugin '{}'", pathIO, e);
+            }
+        }
+
+        resolvePlugins();
+
+        getDescriptorIndex().flush();
+
+        return loadedIO;
+    }
+
+    /**
+     * Unloads a plugin and forgets the fingerprint of its path.
+     *
+     * @param pluginId            the unique identifier of the plugin
+     * @param unloadDependents    whether the dependents of the plugin are unloaded as well
+     * @param resolveDependencies whether the dependencies are resolved again afterwards
+     * @return true if the plugin was unloaded, false otherwise
+     */
+    @Override
+    protected boolean unloadPlugin(String pluginId, boolean unloadDependents, boolean resolveDependencies) {
+        PluginWrapper pluginIO = plugins.get(pluginId);
+        boolean unloadedIO = super.unloadPlugin(pluginId, unloadDependents, resolveDependencies);
+
+        if (unloadedIO && pluginIO != null)
+            fingerprints.remove(normalize(pluginIO.getPluginPath()));
+
+        return unloadedIO;
+    }
+
+    /**
+     * Compares the plugin roots with the loaded plugins and only unloads, loads and restarts what changed.
+     *
+     * The method fingerprints every plugin path (size, modification time and, if those differ and the descriptor
+     * index is enabled, the content hash) and determines added, removed and changed plugins. Changed and removed plugins are
+     * unloaded together with their dependents in reverse dependency order, then changed plugins, their
+     * dependents and added plugins are loaded again and started in dependency order. Disabled plugins are
+     * loaded but not started. Unaffected plugins keep their state, classloader and Spring context.
+     *
+     * @return the change set describing what was added, removed, changed and reloaded
+     */
+    public synchronized PluginChangeSet reloadChanged() {
+        return this.reloadChanged(null);
+    }
+
+    /**
+     * Like {@link #reloadChanged()}, but only the given plugin paths are compared, e.g. the paths reported by the
+     * directory watcher. Other plugin paths are neither fingerprinted nor taken as added or removed, their
+     * dependents are still reloaded if a given plugin changed.
+     *
+     * @param pluginPaths the plugin archives or directories to be compared, or null to compare all plugin paths
+     * @return the change set describing what was added, removed, changed and reloaded
+     */
+    public synchronized PluginChangeSet reloadChanged(Collection<Path> pluginPaths) {
+        PluginChangeSet changesIO = new PluginChangeSet();
+        Map<Path, PluginWrapper> loadedIO = new HashMap<>();
+        Map<Path, PluginFingerprint> computedIO = new HashMap<>();
+        Set<Path> currentIO = new HashSet<>();
+        Set<Path> candidatesIO = pluginPaths != null ? new HashSet<>() : null;
+
+        if (pluginPaths != null)
+            pluginPaths.forEach(pathIO -> candidatesIO.add(normalize(pathIO)));
+
+        getPlugins().forEach(pluginIO -> loadedIO.put(normalize(pluginIO.getPluginPath()), pluginIO));
+
+        // Detect added and changed Plugins.
+        for (Path pathIO : pluginRepository.getPluginPaths()) {
+            Path keyIO = normalize(pathIO);
+            PluginWrapper pluginIO = loadedIO.get(keyIO);
+
+            currentIO.add(keyIO);
+
+            // Skip Paths which were not reported.
+            if (candidatesIO != null && !candidatesIO.contains(keyIO))
+                continue;
+
+            if (pluginIO == null)
+                changesIO.getAdded().add(pathIO);
+            else if (isChanged(keyIO, computedIO))
+                changesIO.getChanged().add(pluginIO.getPluginId());
+        }
+
+        // Detect removed Plugins.
+        loadedIO.forEach((keyIO, pluginIO) -> {
+            if ((candidatesIO == null || candidatesIO.contains(keyIO)) && !currentIO.contains(keyIO))
+                changesIO.getRemoved().add(pluginIO.getPluginId());
+        });
+
+        if (changesIO.isEmpty()) {
+            log.info("No plugin changes found.");
+
+            return changesIO;
+        }
+
+        // Collect changed and removed Plugins with all their Dependents.
+        Set<String> affectedIO = new HashSet<>();
+        Deque<String> queueIO = new ArrayDeque<>(changesIO.getRemoved());
+
+        queueIO.addAll(changesIO.getChanged());
+
+        while (!queueIO.isEmpty()) {
+            String idIO = queueIO.poll();
+
+            if (affectedIO.add(idIO))
+                queueIO.addAll(dependencyResolver.getDependents(idIO));
+        }
+
+        // Unload affected Plugins in reverse Dependency Order, remember Paths which still exist.
+        List<PluginWrapper> orderIO = new ArrayList<>(getResolvedPlugins());
+        List<Path> reloadIO = new ArrayList<>();
+
+        orderIO.addAll(0, getUnresolvedPlugins());
+        Collections.reverse(orderIO);
+
+        for (PluginWrapper pluginIO : orderIO) {
+            if (!affectedIO.contains(pluginIO.getPluginId()))
+                continue;
+
+            if (currentIO.contains(normalize(pluginIO.getPluginPath())))
+                reloadIO.add(0, pluginIO.getPluginPath());
+
+            unloadPlugin(pluginIO.getPluginId(), false);
+        }
+
+        reloadIO.addAll(changesIO.getAdded());
+
+        // Load changed, dependent and added Plugins.
+        Set<String> loadedIdsIO = new HashSet<>();
+
+        for (Path pathIO : reloadIO) {
+            try {
+                PluginWrapper pluginIO = loadPluginFromPath(pathIO);
+
+                if (pluginIO != null) {
+                    loadedIdsIO.add(pluginIO.getPluginId());
+
+                    recordFingerprint(pluginIO);
+                }
+            } catch (PluginRuntimeException e) {
+                log.error("Cannot load plugin '{}'", pathIO, e);
+            }
+        }
+
+        resolvePlugins();
+
+        getDescriptorIndex().flush();
+
+        // Keep complete Fingerprints of changed Plugins.
+        computedIO.forEach(fingerprints::put);
+
+        // Start loaded Plugins in Dependency Order.
+        for (PluginWrapper pluginIO : new ArrayList<>(getResolvedPlugins())) {
+            if (!loadedIdsIO.contains(pluginIO.getPluginId()))
+                continue;
+
+            changesIO.getReloaded().add(pluginIO.getPluginId());
+
+            if (pluginIO.getPluginState().isDisabled())
+                continue;
+
+            try {
+                startPlugin(pluginIO.getPluginId());
+            } catch (Exception | LinkageError e) {
+                pluginIO.setPluginState(PluginState.FAILED);
+                pluginIO.setFailedException(e);
+
+                log.error("Unable to start plugin '{}'", getPluginLabel(pluginIO.getDescriptor()), e);
+            }
+        }
+
+        log.info("Reloaded changed plugins: {}", changesIO);
+
+        return changesIO;
+    }
+
+    /**
+     * Checks whether the content of a loaded plugin path changed since it was loaded. The content hash is
+     * only computed if size or modification time differ and the recorded fingerprint has a hash, a new fingerprint
+     * is then put into the given map. Without the descriptor index no hash is recorded, so a plugin which was
+     * only touched is taken as changed.
+     *
+     * @param keyIO      the normalized plugin path
+     * @param computedIO the map receiving newly computed fingerprints
+     * @return true if the content changed, false otherwise
+     */
+    private boolean isChanged(Path keyIO, Map<Path, PluginFingerprint> computedIO) {
+        PluginFingerprint recordedIO = fingerprints.get(keyIO);
+
+        if (recordedIO == null) {
+            log.info("No fingerprint recorded for loaded plugin '{}', taking its current content as loaded.", keyIO);
+
+            fingerprints.put(keyIO, this.createFingerprint(keyIO));
+
+            return false;
+        }
+
+        if (recordedIO.isUnmodified(keyIO))
+            return false;
+
+        // Compare the Content only if it was hashed before.
+        if (recordedIO.getHash() == null) {
+            computedIO.put(keyIO, PluginFingerprint.stat(keyIO));
+
+            return true;
+        }
+
+        PluginFingerprint currentIO = PluginFingerprint.of(keyIO);
+
+        computedIO.put(keyIO, currentIO);
+
+        if (recordedIO.isSameContent(currentIO)) {
+            // Only touched, remember new Modification Time.
+            fingerprints.put(keyIO, currentIO);
+
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Remembers the fingerprint of the path of a loaded plugin, unless already known. If the descriptor index is
+     * enabled, the fingerprint includes the content hash, so a plugin which was only touched is not taken as changed
+     * later; the indexed fingerprint is preferred, otherwise the content is hashed. Without the index only size and
+     * modification time are recorded, so loading doesn't read every archive. A path removed meanwhile is skipped.
+     *
+     * @param pluginIO the loaded plugin
+     */
+    private void recordFingerprint(PluginWrapper pluginIO) {
+        Path keyIO = normalize(pluginIO.getPluginPath());
+
+        try {
+            PluginFingerprint indexedIO = getDescriptorIndex().getFingerprint(keyIO);
+
+            fingerprints.computeIfAbsent(keyIO, pathIO -> indexedIO != null && indexedIO.getHash() != null && indexedIO.isUnmodified(pathIO) ? indexedIO : this.createFingerprint(pathIO));
+        } catch (PluginRuntimeException e) {
+            if (!(e.getCause() instanceof NoSuchFileException))
+                throw e;
+
+            log.debug("Plugin path '{}' was removed while loading, skipping its fingerprint.", keyIO);
+        }
+    }
+
+    /**
+     * Creates the fingerprint of a plugin path, including the content hash only if the descriptor index is enabled.
+     *
+     * @param pathIO the plugin archive or directory
+     * @return the fingerprint of the path
+     */
+    private PluginFingerprint createFingerprint(Path pathIO) {
+        return getDescriptorIndex().isEnabled() ? PluginFingerprint.of(pathIO) : PluginFingerprint.stat(pathIO);
+    }
+
+    /**
+     * Normalizes a plugin path so that relative and absolute variants map to the same key.
+     *
+     * @param pathIO the plugin path
+     * @return the absolute, normalized path
+     */
+    private Path normalize(Path pathIO) {
+        return pathIO.toAbsolutePath().normalize();
+    }
 }
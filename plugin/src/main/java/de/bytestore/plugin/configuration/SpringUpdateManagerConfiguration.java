@@ -5,8 +5,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 
 /**
@@ -18,12 +21,152 @@ import java.util.ArrayList;
  * into the application context. The update manager is initialized*/
 @Component
 public class SpringUpdateManagerConfiguration {
+    /**
+     * The directory inside the plugins home receiving the downloaded releases.
+     */
+    public static final String DOWNLOADS = ".downloads";
+
+    /**
+     * The directory inside the plugins home keeping the artifact store, unless configured otherwise.
+     */
+    public static final String ARTIFACTS = ".artifacts";
+
     @Autowired
     private SpringRuntimePluginManager managerIO;
 
+    @Autowired
+    private Environment environment;
+
     @Bean
     @Order(Ordered.LOWEST_PRECEDENCE)
-    public JMIXUpdateManager updateManager() {
-        return new JMIXUpdateManager(managerIO, new ArrayList<UpdateRepository>());
+    public JMIXUpdateManager updateManager(ArtifactStore artifactStore) {
+        JMIXUpdateManager updateIO = new JMIXUpdateManager(managerIO, new ArrayList<UpdateRepository>(), getRefreshThreads(), getRefreshTimeout());
+
+        // Outdate Update Snapshot if Plugins are loaded or unloaded.
+        managerIO.addPluginStateListener(updateIO);
+
+        // Download Releases resumable and verified into the Plugins Home.
+        if (isDownloaderEnabled())
+            updateIO.setDownloader(new PluginDownloader(managerIO.getPluginsRoots().get(0).resolve(DOWNLOADS), getDownloadConnectTimeout(), getDownloadReadTimeout(), getDownloadRetries(), artifactStore.isEnabled() ? artifactStore : null), getDownloadThreads());
+
+        // Keep replaced Archives for Rollbacks.
+        if (artifactStore.isEnabled())
+            updateIO.setArtifactStore(artifactStore);
+
+        return updateIO;
+    }
+
+    /**
+     * Creates the artifact store keeping downloaded, uploaded and replaced plugin archives by their content hash.
+     *
+     * @return the artifact store
+     */
+    @Bean
+    public ArtifactStore artifactStore() {
+        return new ArtifactStore(getArtifactPath(), getArtifactMaxSize(), isArtifactStoreEnabled());
+    }
+
+    /**
+     * Retrieves the maximum number of repositories refreshed at the same time.
+     * The property key is "plugins.repositories.threads". If not specified, the default value is 4.
+     *
+     * @return the number of refresh threads.
+     */
+    public int getRefreshThreads() {
+        return environment.getProperty("plugins.repositories.threads", Integer.class, 4);
+    }
+
+    /**
+     * Retrieves the maximum time in milliseconds a refresh waits for all repositories.
+     * The property key is "plugins.repositories.timeout.refresh". If not specified, the default value is 30000.
+     *
+     * @return the refresh timeout in milliseconds.
+     */
+    public long getRefreshTimeout() {
+        return environment.getProperty("plugins.repositories.timeout.refresh", Long.class, 30000L);
+    }
+
+    /**
+     * Determines whether releases are downloaded by the {@link PluginDownloader} (streamed, verified while
+     * downloading and resumable) instead of the downloader of the repository.
+     * The property key is "plugins.downloads.enabled". If not specified, the default value is true.
+     *
+     * @return true if the plugin downloader is used, false otherwise.
+     */
+    public boolean isDownloaderEnabled() {
+        return environment.getProperty("plugins.downloads.enabled", Boolean.class, true);
+    }
+
+    /**
+     * Retrieves the maximum number of releases downloaded at the same time.
+     * The property key is "plugins.downloads.threads". If not specified, the default value is 4.
+     *
+     * @return the number of download threads.
+     */
+    public int getDownloadThreads() {
+        return environment.getProperty("plugins.downloads.threads", Integer.class, 4);
+    }
+
+    /**
+     * Retrieves the number of attempts resuming a failed download.
+     * The property key is "plugins.downloads.retries". If not specified, the default value is 3.
+     *
+     * @return the number of retries.
+     */
+    public int getDownloadRetries() {
+        return environment.getProperty("plugins.downloads.retries", Integer.class, 3);
+    }
+
+    /**
+     * Retrieves the connect timeout used to download a release.
+     * The property key is "plugins.downloads.timeout.connect". If not specified, the default value is 5000.
+     *
+     * @return the connect timeout in milliseconds.
+     */
+    public int getDownloadConnectTimeout() {
+        return environment.getProperty("plugins.downloads.timeout.connect", Integer.class, 5000);
+    }
+
+    /**
+     * Retrieves the read timeout used to download a release.
+     * The property key is "plugins.downloads.timeout.read". If not specified, the default value is 30000.
+     *
+     * @return the read timeout in milliseconds.
+     */
+    public int getDownloadReadTimeout() {
+        return environment.getProperty("plugins.downloads.timeout.read", Integer.class, 30000);
+    }
+
+    /**
+     * Determines whether plugin archives are kept in the artifact store.
+     * The property key is "plugins.artifacts.enabled". If not specified, the default value is true.
+     *
+     * @return true if the artifact store is enabled, false otherwise.
+     */
+    public boolean isArtifactStoreEnabled() {
+        return environment.getProperty("plugins.artifacts.enabled", Boolean.class, true);
+    }
+
+    /**
+     * Retrieves the directory of the artifact store. Archives are hard linked if the directory is on the file
+     * system of the plugins home and the temp directory, otherwise they are copied.
+     * The property key is "plugins.artifacts.path". If not specified, ".artifacts" inside the plugins home is used.
+     *
+     * @return the artifact store directory.
+     */
+    public Path getArtifactPath() {
+        String pathIO = environment.getProperty("plugins.artifacts.path");
+
+        return pathIO != null ? Paths.get(pathIO) : managerIO.getPluginsRoots().get(0).resolve(ARTIFACTS);
+    }
+
+    /**
+     * Retrieves the maximum total size of the artifact store, the least recently used archives are removed beyond.
+     * The property key is "plugins.artifacts.size.max". If not specified, the default value is 268435456 (256 MB).
+     *
+     * @return the maximum size in bytes.
+     */
+    public long getArtifactMaxSize() {
+        return environment.getProperty("plugins.artifacts.size.max", Long.class, 268435456L);
     }
 }
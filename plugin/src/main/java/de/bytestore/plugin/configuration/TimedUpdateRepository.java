@@ -0,0 +1,477 @@
+package de.bytestore.plugin.configuration;
+
+import org.pf4j.update.DefaultUpdateRepository;
+import org.pf4j.update.PluginInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * TimedUpdateRepository is a {@link DefaultUpdateRepository} which fetches its plugins.json with a connect and read
+ * timeout and keeps the last good index if fetching fails.
+ *
+ * Unlike the default repository, {@link #refresh()} doesn't drop the index. It only marks the index as stale, the
+ * index is fetched again by {@link #fetch()} (called by {@link JMIXUpdateManager#refresh()} for all repositories in
+ * parallel) or lazily on the next access. The duration and outcome of the last fetch are kept for monitoring.
+ *
+ * If a cache directory is given, the last fetched plugins.json is stored there together with its ETag and
+ * Last-Modified header. HTTP repositories are then asked with a conditional request and the cached copy is used if
+ * the index is not modified (304), so an unchanged index is neither downloaded nor parsed again. If the repository
+ * can't be reached and no index is known yet, e.g. after a restart, the cached copy is served.
+ *
+ * The index is streamed into the cache and read by a {@link PluginIndexReader}, so neither the document nor its
+ * object tree is held in memory. Releases rejected by the release filter are dropped while reading.
+ */
+public class TimedUpdateRepository extends DefaultUpdateRepository {
+    private static final Logger log = LoggerFactory.getLogger(TimedUpdateRepository.class);
+
+    private final int connectTimeout;
+
+    private final int readTimeout;
+
+    // Store Directory of the cached Index, or null if not cached.
+    private final Path cacheIO;
+
+    // Store Filter of the kept Releases, or null to keep all.
+    private final Predicate<PluginInfo.PluginRelease> filterIO;
+
+    // Store Validator (ETag and Last-Modified) of the Index in Memory.
+    private volatile String validatorIO;
+
+    // Store last good Index.
+    private volatile Map<String, PluginInfo> pluginsIO;
+
+    private volatile boolean stale = true;
+
+    private volatile long lastDuration = -1;
+
+    private volatile Instant lastRefresh;
+
+    private volatile Exception lastError;
+
+    private volatile int failures;
+
+    /**
+     * Constructs a new TimedUpdateRepository.
+     *
+     * @param id             the unique identifier of the repository
+     * @param url            the base URL of the repository
+     * @param connectTimeout the connect timeout in milliseconds
+     * @param readTimeout    the read timeout in milliseconds
+     */
+    public TimedUpdateRepository(String id, URL url, int connectTimeout, int readTimeout) {
+        this(id, url, connectTimeout, readTimeout, null);
+    }
+
+    /**
+     * Constructs a new TimedUpdateRepository caching its index on disk.
+     *
+     * @param id             the unique identifier of the repository
+     * @param url            the base URL of the repository
+     * @param connectTimeout the connect timeout in milliseconds
+     * @param readTimeout    the read timeout in milliseconds
+     * @param cacheIO        the directory of the cached index, or null to disable caching
+     */
+    public TimedUpdateRepository(String id, URL url, int connectTimeout, int readTimeout, Path cacheIO) {
+        this(id, url, connectTimeout, readTimeout, cacheIO, null);
+    }
+
+    /**
+     * Constructs a new TimedUpdateRepository caching its index on disk and keeping only selected releases.
+     *
+     * @param id             the unique identifier of the repository
+     * @param url            the base URL of the repository
+     * @param connectTimeout the connect timeout in milliseconds
+     * @param readTimeout    the read timeout in milliseconds
+     * @param cacheIO        the directory of the cached index, or null to disable caching
+     * @param filterIO       the filter selecting the releases to be kept, or null to keep all releases
+     */
+    public TimedUpdateRepository(String id, URL url, int connectTimeout, int readTimeout, Path cacheIO, Predicate<PluginInfo.PluginRelease> filterIO) {
+        super(id, url);
+
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.cacheIO = cacheIO;
+        this.filterIO = filterIO;
+    }
+
+    /**
+     * Retrieves the plugins of the repository, fetching the index first if it is stale.
+     *
+     * @return the plugins by id, the last good index if fetching failed
+     */
+    @Override
+    public Map<String, PluginInfo> getPlugins() {
+        if (stale || pluginsIO == null) {
+            synchronized (this) {
+                if (stale || pluginsIO == null)
+                    this.fetch();
+            }
+        }
+
+        return pluginsIO;
+    }
+
+    /**
+     * Retrieves the known plugins of the repository without fetching the index. If no index was fetched yet,
+     * the cached copy is read from disk.
+     *
+     * @return the plugins by id, empty if no index is known
+     */
+    public Map<String, PluginInfo> getCachedPlugins() {
+        Map<String, PluginInfo> currentIO = pluginsIO;
+
+        if (currentIO == null) {
+            synchronized (this) {
+                if (pluginsIO == null)
+                    this.pluginsIO = this.readCache();
+
+                currentIO = pluginsIO;
+            }
+        }
+
+        return currentIO != null ? currentIO : Collections.emptyMap();
+    }
+
+    /**
+     * Marks the index as stale, the last good index is kept until it was fetched again.
+     */
+    @Override
+    public void refresh() {
+        this.stale = true;
+    }
+
+    /**
+     * Fetches the index of the repository. If fetching fails, the last good index is kept. While fetching, the
+     * last good index is served to other threads.
+     *
+     * @return true if the index was fetched, false if the last good index is kept
+     */
+    public synchronized boolean fetch() {
+        long startIO = System.nanoTime();
+
+        this.stale = false;
+
+        try {
+            Map<String, PluginInfo> fetchedIO = this.read();
+
+            this.pluginsIO = fetchedIO;
+            this.lastError = null;
+            this.failures = 0;
+
+            log.debug("Found {} plugins in repository '{}'.", fetchedIO.size(), getId());
+
+            return true;
+        } catch (IOException | RuntimeException e) {
+            this.lastError = e;
+            this.failures++;
+
+            // Serve cached Index if no Index is known yet.
+            if (pluginsIO == null)
+                this.pluginsIO = this.readCache();
+
+            // Keep last good Index.
+            if (pluginsIO == null)
+                this.pluginsIO = Collections.emptyMap();
+
+            log.warn("Unable to fetch repository '{}' from {}, keeping {} known plugins: {}", getId(), getUrl(), pluginsIO.size(), e.toString());
+
+            return false;
+        } finally {
+            this.lastDuration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startIO);
+            this.lastRefresh = Instant.now();
+        }
+    }
+
+    /**
+     * Reads and parses the plugins.json of the repository. HTTP repositories are asked with a conditional request
+     * if a cached copy is present.
+     *
+     * @return the plugins by id
+     * @throws IOException if the index cannot be read
+     */
+    private Map<String, PluginInfo> read() throws IOException {
+        URL pluginsUrl = new URL(getUrl(), getPluginsJsonFileName());
+        URLConnection connectionIO = pluginsUrl.openConnection();
+
+        connectionIO.setConnectTimeout(connectTimeout);
+        connectionIO.setReadTimeout(readTimeout);
+
+        log.debug("Read plugins of repository '{}' from '{}'.", getId(), pluginsUrl);
+
+        Properties metaIO = this.readMeta(pluginsUrl);
+
+        if (connectionIO instanceof HttpURLConnection httpIO && metaIO != null) {
+            if (metaIO.getProperty("etag") != null)
+                httpIO.setRequestProperty("If-None-Match", metaIO.getProperty("etag"));
+
+            if (metaIO.getProperty("modified") != null)
+                httpIO.setRequestProperty("If-Modified-Since", metaIO.getProperty("modified"));
+
+            if (httpIO.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                httpIO.disconnect();
+
+                log.debug("Plugins of repository '{}' are not modified.", getId());
+
+                String validator = this.getValidator(metaIO);
+
+                // Keep Index in Memory if it is the cached one.
+                if (pluginsIO != null && validator.equals(validatorIO))
+                    return pluginsIO;
+
+                Map<String, PluginInfo> cachedIO = this.parse(this.getCacheFile(".json"));
+
+                this.validatorIO = validator;
+
+                return cachedIO;
+            }
+        }
+
+        // Parse without Cache directly from the Stream.
+        if (cacheIO == null) {
+            try (InputStream inputIO = connectionIO.getInputStream()) {
+                return this.parse(inputIO);
+            }
+        }
+
+        Files.createDirectories(cacheIO);
+
+        Path bodyFile = Files.createTempFile(cacheIO, ".index", ".tmp");
+
+        try {
+            try (InputStream inputIO = connectionIO.getInputStream()) {
+                Files.copy(inputIO, bodyFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            // Parse before caching, so a broken Index doesn't replace the cached one.
+            Map<String, PluginInfo> fetchedIO = this.parse(bodyFile);
+
+            this.writeCache(pluginsUrl, bodyFile, connectionIO.getHeaderField("ETag"), connectionIO.getHeaderField("Last-Modified"));
+
+            return fetchedIO;
+        } finally {
+            Files.deleteIfExists(bodyFile);
+        }
+    }
+
+    /**
+     * Parses a plugins.json file.
+     *
+     * @param fileIO the plugins.json file
+     * @return the plugins by id
+     * @throws IOException if the index cannot be read
+     */
+    private Map<String, PluginInfo> parse(Path fileIO) throws IOException {
+        return this.parse(Files.newInputStream(fileIO));
+    }
+
+    /**
+     * Parses a plugins.json and resolves the release URLs against the repository URL.
+     *
+     * @param inputIO the stream of the plugins.json, closed after reading
+     * @return the plugins by id
+     * @throws IOException if the index cannot be read
+     */
+    private Map<String, PluginInfo> parse(InputStream inputIO) throws IOException {
+        List<PluginInfo> itemsIO = new PluginIndexReader(filterIO).read(new BufferedInputStream(inputIO));
+        Map<String, PluginInfo> fetchedIO = new HashMap<>(Math.max(itemsIO.size() * 4 / 3 + 1, 16));
+
+        for (PluginInfo pluginIO : itemsIO) {
+            for (PluginInfo.PluginRelease releaseIO : pluginIO.releases) {
+                try {
+                    releaseIO.url = new URL(getUrl(), releaseIO.url).toString();
+
+                    if (releaseIO.date != null && releaseIO.date.getTime() == 0)
+                        log.warn("Illegal release date when parsing {}@{}, setting to epoch.", pluginIO.id, releaseIO.version);
+                } catch (MalformedURLException e) {
+                    log.warn("Skipping release {} of plugin {} due to invalid URL {}{}.", releaseIO.version, pluginIO.id, getUrl(), releaseIO.url);
+                }
+            }
+
+            pluginIO.setRepositoryId(getId());
+
+            fetchedIO.put(pluginIO.id, pluginIO);
+        }
+
+        return fetchedIO;
+    }
+
+    /**
+     * Reads the metadata of the cached index.
+     *
+     * @param pluginsUrl the URL of the plugins.json
+     * @return the metadata, or null if no index of this URL is cached
+     */
+    private Properties readMeta(URL pluginsUrl) {
+        if (cacheIO == null || !Files.isRegularFile(this.getCacheFile(".json")) || !Files.isRegularFile(this.getCacheFile(".properties")))
+            return null;
+
+        Properties metaIO = new Properties();
+
+        try (Reader readerIO = Files.newBufferedReader(this.getCacheFile(".properties"), StandardCharsets.UTF_8)) {
+            metaIO.load(readerIO);
+        } catch (IOException e) {
+            log.debug("Unable to read cache metadata of repository '{}'.", getId(), e);
+
+            return null;
+        }
+
+        return pluginsUrl.toString().equals(metaIO.getProperty("url")) ? metaIO : null;
+    }
+
+    /**
+     * Reads the cached index.
+     *
+     * @return the cached plugins by id, or null if no index is cached
+     */
+    private Map<String, PluginInfo> readCache() {
+        try {
+            Properties metaIO = this.readMeta(new URL(getUrl(), getPluginsJsonFileName()));
+
+            if (metaIO == null)
+                return null;
+
+            Map<String, PluginInfo> cachedIO = this.parse(this.getCacheFile(".json"));
+
+            this.validatorIO = this.getValidator(metaIO);
+
+            log.info("Serving cached index of repository '{}' with {} plugins.", getId(), cachedIO.size());
+
+            return cachedIO;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to read cached index of repository '{}'.", getId(), e);
+
+            return null;
+        }
+    }
+
+    /**
+     * Moves a fetched index into the cache directory and stores its validators.
+     *
+     * @param pluginsUrl the URL of the plugins.json
+     * @param bodyFile   the temporary file of the fetched plugins.json
+     * @param etagIO     the ETag header, or null
+     * @param modifiedIO the Last-Modified header, or null
+     */
+    private void writeCache(URL pluginsUrl, Path bodyFile, String etagIO, String modifiedIO) {
+        Properties metaIO = new Properties();
+
+        metaIO.setProperty("url", pluginsUrl.toString());
+
+        if (etagIO != null)
+            metaIO.setProperty("etag", etagIO);
+
+        if (modifiedIO != null)
+            metaIO.setProperty("modified", modifiedIO);
+
+        this.validatorIO = this.getValidator(metaIO);
+
+        try {
+            // Write to temporary File first, so a Crash doesn't leave partial Metadata.
+            Path metaFile = Files.createTempFile(cacheIO, ".meta", ".tmp");
+
+            try (Writer writerIO = Files.newBufferedWriter(metaFile, StandardCharsets.UTF_8)) {
+                metaIO.store(writerIO, "Cached index of repository " + getId());
+            }
+
+            Files.move(bodyFile, this.getCacheFile(".json"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(metaFile, this.getCacheFile(".properties"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Unable to cache index of repository '{}'.", getId(), e);
+        }
+    }
+
+    /**
+     * Builds the validator of an index from its metadata.
+     *
+     * @param metaIO the metadata of the index
+     * @return the validator
+     */
+    private String getValidator(Properties metaIO) {
+        return metaIO.getProperty("etag", "") + "|" + metaIO.getProperty("modified", "");
+    }
+
+    /**
+     * Retrieves a file of the cached index.
+     *
+     * @param suffixIO the file suffix
+     * @return the path of the file
+     */
+    private Path getCacheFile(String suffixIO) {
+        return cacheIO.resolve(getId().replaceAll("[^A-Za-z0-9._-]", "_") + suffixIO);
+    }
+
+    /**
+     * Retrieves how long the last fetch took.
+     *
+     * @return the duration in milliseconds, or -1 if the repository was never fetched
+     */
+    public long getLastDuration() {
+        return lastDuration;
+    }
+
+    /**
+     * Retrieves when the repository was fetched last.
+     *
+     * @return the time of the last fetch, or null if the repository was never fetched
+     */
+    public Instant getLastRefresh() {
+        return lastRefresh;
+    }
+
+    /**
+     * Retrieves the error of the last fetch.
+     *
+     * @return the error, or null if the last fetch succeeded
+     */
+    public Exception getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Retrieves the number of fetches which failed in a row.
+     *
+     * @return the number of consecutive failures, 0 if the last fetch succeeded
+     */
+    public int getFailures() {
+        return failures;
+    }
+
+    /**
+     * Checks whether the last fetch succeeded.
+     *
+     * @return true if the repository is available, false otherwise
+     */
+    public boolean isAvailable() {
+        return lastRefresh != null && lastError == null;
+    }
+
+    /**
+     * Checks whether the repository points to the same location and uses the same timeouts, cache directory and
+     * release filter. A repository whose cache was toggled or whose releases were filtered for another version
+     * must not be reused.
+     *
+     * @param urlIO            the base URL of the repository
+     * @param connectTimeoutIO the connect timeout in milliseconds
+     * @param readTimeoutIO    the read timeout in milliseconds
+     * @param cacheIO          the directory of the cached index, or null if not cached
+     * @param filterIO         the filter selecting the releases to be kept, or null to keep all releases
+     * @return true if the repository can be reused, false otherwise
+     */
+    public boolean isSame(URL urlIO, int connectTimeoutIO, int readTimeoutIO, Path cacheIO, Predicate<PluginInfo.PluginRelease> filterIO) {
+        return getUrl().toString().equals(urlIO.toString()) && connectTimeout == connectTimeoutIO && readTimeout == readTimeoutIO && Objects.equals(this.cacheIO, cacheIO) && Objects.equals(this.filterIO, filterIO);
+    }
+}
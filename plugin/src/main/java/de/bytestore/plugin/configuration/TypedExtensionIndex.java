@@ -0,0 +1,234 @@
+package de.bytestore.plugin.configuration;
+
+import de.bytestore.plugin.extension.ExtensionScope;
+import de.bytestore.plugin.processor.ExtensionIndexProcessor;
+import org.pf4j.PluginManager;
+import org.pf4j.PluginState;
+import org.pf4j.PluginWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TypedExtensionIndex answers extension lookups of a single plugin from the typed extension index
+ * ({@value ExtensionIndexProcessor#INDEX_FILE}) written by the {@link ExtensionIndexProcessor} at build time.
+ *
+ * The index of a plugin is read once from the plugin classloader itself and maps every extension point to its
+ * implementations, so neither the pf4j extension finder nor assignability checks are needed: only the indexed
+ * implementations are loaded and created by the extension factory of the plugin manager, ordered by ordinal.
+ * Singleton extensions are created once and kept until the plugin state changes.
+ *
+ * Plugins without a typed index (or with an index of another plugin id) are not answered, the caller falls back
+ * to the plugin manager.
+ */
+public class TypedExtensionIndex {
+    private static final Logger log = LoggerFactory.getLogger(TypedExtensionIndex.class);
+
+    // Marks Plugins without typed Index.
+    private static final Map<String, List<Entry>> NONE = Collections.emptyMap();
+
+    // Store Plugin Manager creating the Extensions.
+    private final PluginManager managerIO;
+
+    // Store Entries by Extension Point of every Plugin.
+    private final Map<String, Map<String, List<Entry>>> pluginsIO = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new TypedExtensionIndex.
+     *
+     * @param managerIO the plugin manager creating the extensions
+     */
+    public TypedExtensionIndex(PluginManager managerIO) {
+        this.managerIO = managerIO;
+    }
+
+    /**
+     * Retrieves the extensions of an extension point provided by a single plugin from its typed index.
+     * Like pf4j, only extensions of started plugins whose required plugins are started are returned.
+     *
+     * @param typeIO   the extension point
+     * @param pluginId the unique identifier of the plugin
+     * @param <T>      the type of the extension point
+     * @return the extensions ordered by ordinal, or null if the plugin has no typed index
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getExtensions(Class<T> typeIO, String pluginId) {
+        PluginWrapper pluginIO = pluginId == null ? null : managerIO.getPlugin(pluginId);
+
+        if (pluginIO == null)
+            return null;
+
+        Map<String, List<Entry>> entriesIO = pluginsIO.computeIfAbsent(pluginId, idIO -> this.read(pluginIO));
+
+        if (entriesIO == NONE)
+            return null;
+
+        if (pluginIO.getPluginState() != PluginState.STARTED)
+            return new ArrayList<>();
+
+        List<T> extensionsIO = new ArrayList<>();
+
+        for (Entry entryIO : entriesIO.getOrDefault(typeIO.getName(), Collections.emptyList())) {
+            if (!this.isAvailable(entryIO))
+                continue;
+
+            try {
+                extensionsIO.add((T) entryIO.getInstance(pluginIO, managerIO));
+            } catch (Exception | LinkageError e) {
+                log.error("Cannot create extension '{}' of plugin '{}'", entryIO.implementation, pluginId, e);
+            }
+        }
+
+        return extensionsIO;
+    }
+
+    /**
+     * Forgets the index and singleton instances of a plugin, e.g. when it was stopped or unloaded.
+     *
+     * @param pluginId the unique identifier of the plugin
+     */
+    public void invalidate(String pluginId) {
+        pluginsIO.remove(pluginId);
+    }
+
+    /**
+     * Checks whether every plugin required by an extension is started.
+     *
+     * @param entryIO the index entry
+     * @return true if the extension can be created, false otherwise
+     */
+    private boolean isAvailable(Entry entryIO) {
+        for (String requiredIO : entryIO.plugins) {
+            PluginWrapper pluginIO = managerIO.getPlugin(requiredIO);
+
+            if (pluginIO == null || pluginIO.getPluginState() != PluginState.STARTED)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads the typed index of a plugin from its own classloader resources.
+     *
+     * @param pluginIO the plugin
+     * @return the entries by extension point, ordered by ordinal, or {@link #NONE} if the plugin has no typed index
+     */
+    private Map<String, List<Entry>> read(PluginWrapper pluginIO) {
+        if (!(pluginIO.getPluginClassLoader() instanceof URLClassLoader loaderIO))
+            return NONE;
+
+        Map<String, List<Entry>> entriesIO = new HashMap<>();
+
+        try {
+            Enumeration<URL> urlsIO = loaderIO.findResources(ExtensionIndexProcessor.INDEX_FILE);
+
+            if (!urlsIO.hasMoreElements())
+                return NONE;
+
+            while (urlsIO.hasMoreElements()) {
+                try (BufferedReader readerIO = new BufferedReader(new InputStreamReader(urlsIO.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                    String lineIO;
+
+                    while ((lineIO = readerIO.readLine()) != null) {
+                        if (lineIO.startsWith("# pluginId=") && !lineIO.substring(11).equals(pluginIO.getPluginId())) {
+                            log.warn("Typed extension index of plugin '{}' belongs to '{}', ignoring it.", pluginIO.getPluginId(), lineIO.substring(11));
+
+                            return NONE;
+                        }
+
+                        if (lineIO.isBlank() || lineIO.startsWith("#"))
+                            continue;
+
+                        Entry entryIO = Entry.parse(lineIO);
+
+                        entriesIO.computeIfAbsent(entryIO.point, pointIO -> new ArrayList<>()).add(entryIO);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to read typed extension index of plugin '{}'.", pluginIO.getPluginId(), e);
+
+            return NONE;
+        }
+
+        // Order Implementations by Ordinal like pf4j.
+        entriesIO.values().forEach(listIO -> listIO.sort(Comparator.comparingInt(entryIO -> entryIO.ordinal)));
+
+        log.debug("Read typed extension index of plugin '{}' with {} extension points.", pluginIO.getPluginId(), entriesIO.size());
+
+        return entriesIO;
+    }
+
+    /**
+     * A single line of the typed extension index.
+     */
+    static class Entry {
+        private final String point;
+
+        private final String implementation;
+
+        private final int ordinal;
+
+        private final ExtensionScope.Scope scope;
+
+        private final List<String> plugins;
+
+        private volatile Class<?> type;
+
+        private volatile Object instance;
+
+        Entry(String point, String implementation, int ordinal, ExtensionScope.Scope scope, List<String> plugins) {
+            this.point = point;
+            this.implementation = implementation;
+            this.ordinal = ordinal;
+            this.scope = scope;
+            this.plugins = plugins;
+        }
+
+        /**
+         * Parses a line of the format {@code point<TAB>implementation<TAB>ordinal<TAB>scope<TAB>plugins}.
+         *
+         * @param lineIO the index line
+         * @return the parsed entry
+         */
+        static Entry parse(String lineIO) {
+            String[] partsIO = lineIO.split("\t", -1);
+            List<String> pluginsIO = partsIO.length > 4 && !partsIO[4].isEmpty() ? List.of(partsIO[4].split(",")) : Collections.emptyList();
+
+            return new Entry(partsIO[0], partsIO[1], Integer.parseInt(partsIO[2]), ExtensionScope.Scope.valueOf(partsIO[3]), pluginsIO);
+        }
+
+        /**
+         * Retrieves an instance of the extension, a new one for prototypes or the shared one for singletons.
+         *
+         * @param pluginIO  the plugin owning the extension
+         * @param managerIO the plugin manager creating the extension
+         * @return the extension instance
+         */
+        Object getInstance(PluginWrapper pluginIO, PluginManager managerIO) throws ClassNotFoundException {
+            if (type == null)
+                type = pluginIO.getPluginClassLoader().loadClass(implementation);
+
+            if (scope == ExtensionScope.Scope.PROTOTYPE)
+                return managerIO.getExtensionFactory().create(type);
+
+            if (instance == null) {
+                synchronized (this) {
+                    if (instance == null)
+                        instance = managerIO.getExtensionFactory().create(type);
+                }
+            }
+
+            return instance;
+        }
+    }
+}
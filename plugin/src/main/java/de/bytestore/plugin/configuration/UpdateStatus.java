@@ -0,0 +1,89 @@
+package de.bytestore.plugin.configuration;
+
+import org.pf4j.update.PluginInfo;
+
+/**
+ * UpdateStatus describes the update state of a plugin at the time the repositories were refreshed last, see
+ * {@link JMIXUpdateManager#getUpdateStatus(String)}.
+ *
+ * A status is immutable. It is computed once for every installed plugin and every plugin offered by a repository,
+ * so rendering a list of plugins doesn't walk the repository data again for every row.
+ */
+public class UpdateStatus {
+    /**
+     * The status of a plugin which is neither installed nor offered by any repository.
+     */
+    public static final UpdateStatus UNKNOWN = new UpdateStatus(null, null, null, null, false);
+
+    private final String pluginId;
+
+    private final String installedVersion;
+
+    private final PluginInfo info;
+
+    private final PluginInfo.PluginRelease lastRelease;
+
+    private final boolean updateAvailable;
+
+    /**
+     * Constructs a new UpdateStatus.
+     *
+     * @param pluginId         the unique identifier of the plugin
+     * @param installedVersion the installed version, or null if the plugin is not installed
+     * @param info             the plugin as offered by the repositories, or null if no repository offers it
+     * @param lastRelease      the latest release compatible with the system version, or null if there is none
+     * @param updateAvailable  whether the latest release is newer than the installed version
+     */
+    UpdateStatus(String pluginId, String installedVersion, PluginInfo info, PluginInfo.PluginRelease lastRelease, boolean updateAvailable) {
+        this.pluginId = pluginId;
+        this.installedVersion = installedVersion;
+        this.info = info;
+        this.lastRelease = lastRelease;
+        this.updateAvailable = updateAvailable;
+    }
+
+    /**
+     * Retrieves the unique identifier of the plugin.
+     *
+     * @return the plugin id
+     */
+    public String getPluginId() {
+        return pluginId;
+    }
+
+    /**
+     * Retrieves the installed version of the plugin.
+     *
+     * @return the installed version, or null if the plugin is not installed
+     */
+    public String getInstalledVersion() {
+        return installedVersion;
+    }
+
+    /**
+     * Retrieves the plugin as offered by the repositories.
+     *
+     * @return the plugin info, or null if no repository offers the plugin
+     */
+    public PluginInfo getInfo() {
+        return info;
+    }
+
+    /**
+     * Retrieves the latest release of the plugin compatible with the system version.
+     *
+     * @return the latest release, or null if there is none
+     */
+    public PluginInfo.PluginRelease getLastRelease() {
+        return lastRelease;
+    }
+
+    /**
+     * Checks whether a newer release than the installed version is available.
+     *
+     * @return true if an update is available, false otherwise
+     */
+    public boolean isUpdateAvailable() {
+        return updateAvailable;
+    }
+}
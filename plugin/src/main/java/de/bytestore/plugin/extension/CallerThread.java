@@ -0,0 +1,18 @@
+package de.bytestore.plugin.extension;
+
+import java.lang.annotation.*;
+
+/**
+ * Annotation to keep calls of an extension point, or of single methods of it, on the calling thread.
+ *
+ * The {@link de.bytestore.plugin.configuration.ExtensionGuard} runs guarded calls on its own bounded pool and
+ * returns a fallback once the timeout expires. Extension points which need thread bound state of the caller, like
+ * the Vaadin session and UI of {@link PluginConfigExtensionPoint}, opt out with this annotation. Their calls still
+ * pass the bulkhead and the circuit breaker, but can't be timed out: a call exceeding the timeout is only counted
+ * as failure once it returned.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CallerThread {
+}
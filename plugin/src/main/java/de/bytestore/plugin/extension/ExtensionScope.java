@@ -0,0 +1,38 @@
+package de.bytestore.plugin.extension;
+
+import java.lang.annotation.*;
+
+/**
+ * Annotation to declare how instances of an {@link org.pf4j.Extension} are created.
+ *
+ * The scope is written into the typed extension index by the
+ * {@link de.bytestore.plugin.processor.ExtensionIndexProcessor}. Extensions without this annotation
+ * are prototypes, which means a new instance is created for every lookup like with the default
+ * pf4j extension factory. Singleton extensions are created once per plugin start.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ExtensionScope {
+    /**
+     * The scope of the extension.
+     *
+     * @return the scope, {@link Scope#PROTOTYPE} by default
+     */
+    Scope value() default Scope.PROTOTYPE;
+
+    /**
+     * The supported scopes of an extension.
+     */
+    enum Scope {
+        /**
+         * One instance per plugin start.
+         */
+        SINGLETON,
+
+        /**
+         * A new instance for every lookup.
+         */
+        PROTOTYPE
+    }
+}
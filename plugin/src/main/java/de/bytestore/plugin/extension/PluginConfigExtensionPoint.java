@@ -5,6 +5,8 @@ import org.pf4j.ExtensionPoint;
 
 import java.util.List;
 
+// Render and save with the Vaadin Session of the Caller.
+@CallerThread
 public interface PluginConfigExtensionPoint extends ExtensionPoint {
     /**
      * Saves the current state or configuration of the plugin.
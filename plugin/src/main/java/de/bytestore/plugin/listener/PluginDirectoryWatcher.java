@@ -0,0 +1,264 @@
+package de.bytestore.plugin.listener;
+
+import de.bytestore.plugin.configuration.PluginChangeSet;
+import de.bytestore.plugin.service.PluginService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PluginDirectoryWatcher watches the plugins home directory for created, modified and deleted plugins
+ * and applies them without a full reload.
+ *
+ * File events are collected until no further event arrived for the configured debounce window, so copying
+ * several archives (e.g. via rsync) results in a single batch. Every batch is applied by
+ * {@link PluginService#reloadChanged(java.util.Collection, boolean)} with the plugin paths of the events, which
+ * unloads, loads and restarts only the affected plugins in dependency order. Subdirectories are watched as well,
+ * so a change inside an exploded plugin directory reloads that plugin. Hidden files and directories, like temporary
+ * rsync files, the descriptor index or the download directory, are ignored. If events got lost, the whole directory
+ * is compared.
+ *
+ * The watcher is disabled by default and started once the application is ready.
+ */
+@Component("plugin_PluginDirectoryWatcher")
+public class PluginDirectoryWatcher implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(PluginDirectoryWatcher.class);
+
+    private final PluginService pluginService;
+
+    private final Environment environment;
+
+    private volatile WatchService watchService;
+
+    // Store watched Directories by Watch Key.
+    private final Map<WatchKey, Path> directoriesIO = new ConcurrentHashMap<>();
+
+    // Store watched Plugins Home.
+    private volatile Path homeIO;
+
+    public PluginDirectoryWatcher(PluginService pluginService, Environment environment) {
+        this.pluginService = pluginService;
+        this.environment = environment;
+    }
+
+    /**
+     * Starts watching the plugins home directory on application start, if the watcher is enabled.
+     *
+     * @param event the application ready event
+     */
+    @EventListener
+    public void onApplicationReady(final ApplicationReadyEvent event) {
+        if (this.isWatch())
+            this.start();
+    }
+
+    /**
+     * Registers the plugins home directory at a new {@link WatchService} and starts the watcher thread.
+     * Calling this method while the watcher is running has no effect.
+     */
+    public synchronized void start() {
+        if (watchService != null)
+            return;
+
+        Path homeIO = Paths.get(pluginService.getHome()).toAbsolutePath().normalize();
+
+        try {
+            Files.createDirectories(homeIO);
+
+            watchService = homeIO.getFileSystem().newWatchService();
+
+            this.homeIO = homeIO;
+            this.register(watchService, homeIO);
+        } catch (IOException e) {
+            log.error("Unable to watch plugin directory '{}'.", homeIO, e);
+
+            this.stop();
+
+            return;
+        }
+
+        WatchService serviceIO = watchService;
+        Thread threadIO = new Thread(() -> this.watch(serviceIO), "plugin-watcher");
+
+        threadIO.setDaemon(true);
+        threadIO.start();
+
+        log.info("Watching plugin directory '{}' with a debounce of {} ms.", homeIO, this.getDebounce());
+    }
+
+    @Override
+    public void destroy() {
+        this.stop();
+    }
+
+    /**
+     * Stops the watcher thread by closing its {@link WatchService}.
+     */
+    public synchronized void stop() {
+        if (watchService == null)
+            return;
+
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.warn("Unable to close plugin directory watcher.", e);
+        }
+
+        watchService = null;
+
+        directoriesIO.clear();
+    }
+
+    /**
+     * Registers a directory and all its not hidden subdirectories at the watch service.
+     *
+     * @param serviceIO   the watch service
+     * @param directoryIO the directory to be registered
+     * @throws IOException if the directory can't be walked or registered
+     */
+    private void register(WatchService serviceIO, Path directoryIO) throws IOException {
+        Files.walkFileTree(directoryIO, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dirIO, BasicFileAttributes attrs) throws IOException {
+                // Skip hidden Directories like Downloads and Artifacts.
+                if (!dirIO.equals(directoryIO) && dirIO.getFileName().toString().startsWith("."))
+                    return FileVisitResult.SKIP_SUBTREE;
+
+                directoriesIO.put(dirIO.register(serviceIO, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE), dirIO);
+
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Checks whether the watcher thread is running.
+     *
+     * @return true if the plugins home directory is watched, false otherwise
+     */
+    public boolean isRunning() {
+        return watchService != null;
+    }
+
+    /**
+     * Waits for file events, collects them over the debounce window and applies them as one batch.
+     *
+     * @param serviceIO the watch service of this watcher thread
+     */
+    private void watch(WatchService serviceIO) {
+        try {
+            while (true) {
+                Set<Path> pathsIO = new LinkedHashSet<>();
+
+                // Wait for first Event.
+                boolean lostIO = collect(serviceIO, serviceIO.take(), pathsIO);
+
+                // Collect Events until the Directory is quiet.
+                WatchKey keyIO;
+
+                while ((keyIO = serviceIO.poll(this.getDebounce(), TimeUnit.MILLISECONDS)) != null) {
+                    lostIO |= collect(serviceIO, keyIO, pathsIO);
+                }
+
+                if (pathsIO.isEmpty() && !lostIO)
+                    continue;
+
+                log.info("Detected changed plugin paths: {}", lostIO ? "*" : pathsIO);
+
+                try {
+                    // Compare the whole Directory if Events got lost.
+                    PluginChangeSet changesIO = pluginService.reloadChanged(lostIO ? null : pathsIO, false);
+
+                    log.info("Applied plugin directory changes: {}", changesIO);
+                } catch (Exception e) {
+                    log.error("Unable to apply plugin directory changes.", e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Watcher has been stopped.
+        }
+
+        log.info("Stopped watching plugin directory.");
+    }
+
+    /**
+     * Adds the plugin paths of all events of a watch key and resets the key. An event inside a subdirectory is
+     * mapped to the plugin directory below the plugins home containing it, created subdirectories are registered.
+     *
+     * @param serviceIO the watch service
+     * @param keyIO     the signalled watch key
+     * @param pathsIO   the set receiving the plugin paths
+     * @return true if events got lost, false otherwise
+     */
+    private boolean collect(WatchService serviceIO, WatchKey keyIO, Set<Path> pathsIO) {
+        Path directoryIO = directoriesIO.get(keyIO);
+        boolean lostIO = directoryIO == null;
+
+        for (WatchEvent<?> eventIO : keyIO.pollEvents()) {
+            if (eventIO.kind() == StandardWatchEventKinds.OVERFLOW || directoryIO == null) {
+                // Events got lost, let the Reload compare the whole Directory.
+                lostIO = true;
+
+                continue;
+            }
+
+            Path fileIO = directoryIO.resolve((Path) eventIO.context());
+            Path relativeIO = homeIO.relativize(fileIO);
+
+            // Ignore hidden Files and Directories.
+            if (relativeIO.getNameCount() == 0 || relativeIO.getName(0).toString().startsWith(".") || fileIO.getFileName().toString().startsWith("."))
+                continue;
+
+            pathsIO.add(homeIO.resolve(relativeIO.getName(0)));
+
+            if (eventIO.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(fileIO, LinkOption.NOFOLLOW_LINKS)) {
+                try {
+                    this.register(serviceIO, fileIO);
+                } catch (IOException e) {
+                    log.warn("Unable to watch plugin directory '{}'.", fileIO, e);
+                }
+            }
+        }
+
+        // Forget Directories which were deleted.
+        if (!keyIO.reset())
+            directoriesIO.remove(keyIO);
+
+        return lostIO;
+    }
+
+    /**
+     * Determines whether the plugins home directory is watched for changes.
+     * The property key is "plugins.watch". If not specified, the default value {@code false} is returned.
+     *
+     * @return true if the plugin directory watcher is enabled, false otherwise.
+     */
+    public boolean isWatch() {
+        return environment.getProperty("plugins.watch", Boolean.class, false);
+    }
+
+    /**
+     * Retrieves the time in milliseconds the plugin directory has to be quiet before collected changes are applied.
+     * The property key is "plugins.watch.debounce". If not specified, the default value of 2000 ms is returned.
+     *
+     * @return the debounce window in milliseconds.
+     */
+    public long getDebounce() {
+        return environment.getProperty("plugins.watch.debounce", Long.class, 2000L);
+    }
+}
@@ -0,0 +1,237 @@
+package de.bytestore.plugin.listener;
+
+import de.bytestore.plugin.bean.PluginView;
+import de.bytestore.plugin.configuration.SpringRuntimePluginManager;
+import de.bytestore.plugin.processor.PluginViewIndexProcessor;
+import de.bytestore.plugin.service.DynamicService;
+import de.bytestore.plugin.service.PluginViewRegistry;
+import io.jmix.flowui.view.View;
+import io.jmix.flowui.view.ViewController;
+import org.pf4j.PluginState;
+import org.pf4j.PluginStateEvent;
+import org.pf4j.PluginStateListener;
+import org.pf4j.PluginWrapper;
+import org.reflections.Reflections;
+import org.reflections.scanners.Scanners;
+import org.reflections.util.ConfigurationBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * PluginViewListener registers the {@link PluginView} classes of a plugin once the plugin is started and removes
+ * them again once it leaves the started state.
+ *
+ * The views of a plugin are read from the {@value PluginViewIndexProcessor#INDEX_FILE} inside the plugin archive, or
+ * found by scanning only the archive of the plugin if it has no index. Every view is registered once in the
+ * {@code ViewRegistry} and its route in the application scope (see
+ * {@link DynamicService#registerView(String, Class)}), so it is available to every session without registering
+ * routes per session.
+ *
+ * When a plugin is stopped, its routes are removed and the {@code ViewRegistry} is reset, then the views of the
+ * remaining plugins are registered again. No reference to the view classes of a stopped plugin is kept, so its
+ * classloader can be collected. The {@link PluginViewRegistry} is updated accordingly.
+ */
+@Component("plugin_PluginViewListener")
+public class PluginViewListener implements PluginStateListener, InitializingBean, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(PluginViewListener.class);
+
+    private final SpringRuntimePluginManager managerIO;
+
+    private final DynamicService dynamicService;
+
+    private final PluginViewRegistry pluginViewRegistry;
+
+    private final Environment environment;
+
+    // Store registered Views of every started Plugin.
+    private final Map<String, List<Class<? extends View>>> viewsIO = new LinkedHashMap<>();
+
+    public PluginViewListener(SpringRuntimePluginManager managerIO, DynamicService dynamicService, PluginViewRegistry pluginViewRegistry, Environment environment) {
+        this.managerIO = managerIO;
+        this.dynamicService = dynamicService;
+        this.pluginViewRegistry = pluginViewRegistry;
+        this.environment = environment;
+    }
+
+    /**
+     * Listens to the plugin manager and registers the views of already started plugins, if enabled.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (!this.isDynamicViews())
+            return;
+
+        managerIO.addPluginStateListener(this);
+
+        managerIO.getStartedPlugins().forEach(this::register);
+    }
+
+    /**
+     * Stops listening to the plugin manager.
+     */
+    @Override
+    public void destroy() {
+        managerIO.removePluginStateListener(this);
+    }
+
+    /**
+     * Registers the views of a started plugin and removes the views of a plugin leaving the started state.
+     *
+     * @param event the plugin state event
+     */
+    @Override
+    public void pluginStateChanged(PluginStateEvent event) {
+        if (event.getPluginState() == PluginState.STARTED)
+            this.register(event.getPlugin());
+        else if (event.getOldState() == PluginState.STARTED || event.getPluginState() == PluginState.UNLOADED)
+            this.unregister(event.getPlugin().getPluginId());
+    }
+
+    /**
+     * Registers the views of a plugin, unless they are registered already.
+     *
+     * @param pluginIO the started plugin
+     */
+    private synchronized void register(PluginWrapper pluginIO) {
+        if (viewsIO.containsKey(pluginIO.getPluginId()))
+            return;
+
+        List<Class<? extends View>> registeredIO = new ArrayList<>();
+
+        for (Class<? extends View> viewIO : this.findViews(pluginIO)) {
+            try {
+                dynamicService.registerView(pluginIO.getPluginId(), viewIO);
+
+                registeredIO.add(viewIO);
+            } catch (RuntimeException | LinkageError e) {
+                log.error("Unable to register view {} of plugin '{}'.", viewIO.getName(), pluginIO.getPluginId(), e);
+            }
+        }
+
+        if (!registeredIO.isEmpty()) {
+            viewsIO.put(pluginIO.getPluginId(), registeredIO);
+
+            pluginViewRegistry.register(pluginIO.getPluginId(), registeredIO);
+
+            log.info("Registered {} views of plugin '{}'.", registeredIO.size(), pluginIO.getPluginId());
+        }
+    }
+
+    /**
+     * Removes the views of a plugin and registers the views of the remaining plugins again.
+     *
+     * @param pluginId the unique identifier of the plugin
+     */
+    private synchronized void unregister(String pluginId) {
+        List<Class<? extends View>> removedIO = viewsIO.remove(pluginId);
+
+        if (removedIO == null)
+            return;
+
+        pluginViewRegistry.unregister(pluginId);
+
+        // The View Registry is reset, the Views of the remaining Plugins are loaded again.
+        try {
+            dynamicService.unregisterViews(pluginId, removedIO, viewsIO);
+        } catch (RuntimeException e) {
+            log.error("Unable to unregister views of plugin '{}'.", pluginId, e);
+        }
+    }
+
+    /**
+     * Finds the view classes of a plugin in its own archive.
+     *
+     * @param pluginIO the plugin
+     * @return the view classes annotated with {@link PluginView} and {@link ViewController}
+     */
+    @SuppressWarnings("unchecked")
+    private List<Class<? extends View>> findViews(PluginWrapper pluginIO) {
+        List<Class<? extends View>> foundIO = new ArrayList<>();
+
+        if (!(pluginIO.getPluginClassLoader() instanceof URLClassLoader loaderIO))
+            return foundIO;
+
+        for (Class<?> classIO : this.readIndex(pluginIO, loaderIO)) {
+            if (!View.class.isAssignableFrom(classIO) || !classIO.isAnnotationPresent(ViewController.class)) {
+                log.warn("Class {} of plugin '{}' is annotated with @PluginView but is not a JMIX View.", classIO.getName(), pluginIO.getPluginId());
+
+                continue;
+            }
+
+            foundIO.add((Class<? extends View>) classIO);
+        }
+
+        return foundIO;
+    }
+
+    /**
+     * Reads the plugin view classes from the index inside the plugin archive, or scans the archive if it has none.
+     *
+     * @param pluginIO the plugin
+     * @param loaderIO the classloader of the plugin
+     * @return the classes annotated with {@link PluginView}
+     */
+    private Set<Class<?>> readIndex(PluginWrapper pluginIO, URLClassLoader loaderIO) {
+        Set<Class<?>> classesIO = new LinkedHashSet<>();
+
+        try {
+            // Only Resources of the Plugin itself, not of the Host.
+            Enumeration<URL> urlsIO = loaderIO.findResources(PluginViewIndexProcessor.INDEX_FILE);
+
+            if (!urlsIO.hasMoreElements()) {
+                log.debug("Plugin '{}' has no view index, scanning its archive.", pluginIO.getPluginId());
+
+                return new Reflections(new ConfigurationBuilder()
+                        .setUrls(loaderIO.getURLs())
+                        .addClassLoaders(loaderIO)
+                        .setScanners(Scanners.TypesAnnotated)
+                ).getTypesAnnotatedWith(PluginView.class, true);
+            }
+
+            while (urlsIO.hasMoreElements()) {
+                try (BufferedReader readerIO = new BufferedReader(new InputStreamReader(urlsIO.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                    String lineIO;
+
+                    while ((lineIO = readerIO.readLine()) != null) {
+                        lineIO = lineIO.trim();
+
+                        if (lineIO.isEmpty() || lineIO.startsWith("#"))
+                            continue;
+
+                        try {
+                            classesIO.add(loaderIO.loadClass(lineIO));
+                        } catch (ClassNotFoundException | LinkageError e) {
+                            log.warn("Indexed view {} of plugin '{}' could not be loaded.", lineIO, pluginIO.getPluginId(), e);
+                        }
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to find views of plugin '{}'.", pluginIO.getPluginId(), e);
+        }
+
+        return classesIO;
+    }
+
+    /**
+     * Determines whether the views of plugins are registered when plugins are started and removed when they are stopped.
+     * The property key is "plugins.views.dynamic". If not specified, the default value {@code false} is returned.
+     *
+     * @return true if plugin views are registered at runtime, false otherwise.
+     */
+    public boolean isDynamicViews() {
+        return environment.getProperty("plugins.views.dynamic", Boolean.class, false);
+    }
+}
@@ -1,17 +1,23 @@
 package de.bytestore.plugin.service;
 
 import com.vaadin.flow.router.RouteConfiguration;
+import com.vaadin.flow.server.VaadinServletContext;
+import com.vaadin.flow.server.startup.ApplicationRouteRegistry;
 import io.jmix.flowui.view.View;
 import io.jmix.flowui.view.ViewRegistry;
+import jakarta.servlet.ServletContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * A service class responsible for dynamically managing views and their configurations.
  * This class utilizes a {@code ViewRegistry} for loading view components and handles
- * session-specific route configurations.
+ * session-specific and application-wide route configurations.
  */
 @Component
 public class DynamicService {
@@ -21,6 +27,9 @@ public class DynamicService {
     @Autowired
     private ViewRegistry viewRegistry;
 
+    @Autowired
+    private ServletContext servletContext;
+
 
     /**
      * Loads a view dynamically based on the provided view class type.
@@ -51,4 +60,87 @@ public class DynamicService {
         return RouteConfiguration.forSessionScope();
     }
 
-}
\ No newline at end of file
+    /**
+     * Retrieves the route configuration shared by all sessions. In contrast to {@link #getRouteConfiguration()}
+     * it doesn't need a current Vaadin session, so it can be used from plugin state listeners.
+     *
+     * @return a {@code RouteConfiguration} object for the application scope
+     */
+    public RouteConfiguration getApplicationRouteConfiguration() {
+        return RouteConfiguration.forRegistry(ApplicationRouteRegistry.getInstance(new VaadinServletContext(servletContext)));
+    }
+
+    /**
+     * Registers a view of a plugin in the {@code ViewRegistry} and its {@code @Route} in the application scope.
+     * The view class is loaded with the classloader of the plugin as context classloader.
+     *
+     * @param pluginId  the unique identifier of the plugin owning the view
+     * @param viewClass the view class of the plugin
+     */
+    public synchronized void registerView(String pluginId, Class<? extends View> viewClass) {
+        this.loadPluginView(viewClass);
+
+        RouteConfiguration routeIO = this.getApplicationRouteConfiguration();
+
+        if (!routeIO.isRouteRegistered(viewClass))
+            routeIO.setAnnotatedRoute(viewClass);
+
+        log.info("Registered view {} of plugin '{}'.", viewClass.getName(), pluginId);
+    }
+
+    /**
+     * Removes the routes of the views of a stopped plugin from the application scope and resets the
+     * {@code ViewRegistry}, so it no longer references the view classes (and their plugin classloader). The
+     * views of the remaining plugins are loaded into the registry again within the same call, their routes
+     * are kept.
+     *
+     * Registration and removal of plugin views are serialized, but navigation is not blocked: between the reset
+     * and the reload of the remaining views, which only takes the time to read the already loaded classes, a
+     * navigation to a view of a remaining plugin may not find the view. Plugins are stopped rarely, so the
+     * registry is not guarded against this.
+     *
+     * @param pluginId    the unique identifier of the stopped plugin
+     * @param viewClasses the view classes of the stopped plugin
+     * @param remainingIO the view classes of the remaining plugins by plugin id
+     */
+    public synchronized void unregisterViews(String pluginId, Collection<Class<? extends View>> viewClasses, Map<String, ? extends Collection<Class<? extends View>>> remainingIO) {
+        RouteConfiguration routeIO = this.getApplicationRouteConfiguration();
+
+        routeIO.update(() -> viewClasses.forEach(viewIO -> {
+            if (routeIO.isRouteRegistered(viewIO))
+                routeIO.removeRoute(viewIO);
+        }));
+
+        viewRegistry.reset();
+
+        // Load the Views of the remaining Plugins again.
+        remainingIO.forEach((idIO, viewsIO) -> viewsIO.forEach(viewIO -> {
+            try {
+                this.loadPluginView(viewIO);
+            } catch (RuntimeException | LinkageError e) {
+                log.error("Unable to register view {} of plugin '{}' again.", viewIO.getName(), idIO, e);
+            }
+        }));
+
+        log.info("Unregistered {} views of plugin '{}'.", viewClasses.size(), pluginId);
+    }
+
+    /**
+     * Loads a view of a plugin into the {@code ViewRegistry} with the classloader of the plugin as context
+     * classloader.
+     *
+     * @param viewClass the view class of the plugin
+     */
+    private void loadPluginView(Class<? extends View> viewClass) {
+        Thread threadIO = Thread.currentThread();
+        ClassLoader previousIO = threadIO.getContextClassLoader();
+
+        threadIO.setContextClassLoader(viewClass.getClassLoader());
+
+        try {
+            this.loadView(viewClass);
+        } finally {
+            threadIO.setContextClassLoader(previousIO);
+        }
+    }
+}
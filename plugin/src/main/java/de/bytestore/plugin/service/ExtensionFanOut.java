@@ -0,0 +1,194 @@
+package de.bytestore.plugin.service;
+
+import de.bytestore.plugin.configuration.ExtensionMetrics;
+import org.pf4j.PluginManager;
+import org.pf4j.PluginWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * ExtensionFanOut invokes a function on a list of extensions concurrently and collects the outcomes in extension order.
+ *
+ * The function is executed on virtual threads if the runtime supports them (Java 21 and later), otherwise on a
+ * bounded pool of daemon threads. Extensions which didn't finish before the deadline are cancelled (their thread is
+ * interrupted) and reported as timed out, so the caller never waits longer than the deadline. The context classloader
+ * of the calling thread is passed to the invocations, other thread bound state like the Vaadin session is not.
+ */
+public class ExtensionFanOut {
+    private static final Logger log = LoggerFactory.getLogger(ExtensionFanOut.class);
+
+    // Store Plugin Manager owning the Extensions.
+    private final PluginManager managerIO;
+
+    // Store Executor running the Invocations.
+    private final ExecutorService executorIO;
+
+    private final boolean virtual;
+
+    /**
+     * Constructs a new ExtensionFanOut.
+     *
+     * @param managerIO the plugin manager owning the extensions
+     * @param threadsIO the size of the thread pool used if virtual threads are not used
+     * @param virtualIO whether virtual threads are used if the runtime supports them
+     */
+    public ExtensionFanOut(PluginManager managerIO, int threadsIO, boolean virtualIO) {
+        this.managerIO = managerIO;
+
+        ExecutorService virtualExecutor = virtualIO ? createVirtualExecutor() : null;
+
+        this.virtual = virtualExecutor != null;
+        this.executorIO = virtualExecutor != null ? virtualExecutor : createPool(Math.max(threadsIO, 1));
+
+        log.info("Fanning out extension calls on {}.", virtual ? "virtual threads" : Math.max(threadsIO, 1) + " threads");
+    }
+
+    /**
+     * Creates an executor starting a virtual thread per task, looked up reflectively to keep Java 17 compatibility.
+     *
+     * @return the virtual thread executor, or null if the runtime doesn't support virtual threads
+     */
+    private static ExecutorService createVirtualExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates a bounded pool of daemon threads which are released when idle.
+     *
+     * @param threadsIO the maximum number of threads
+     * @return the thread pool
+     */
+    private static ExecutorService createPool(int threadsIO) {
+        AtomicInteger counterIO = new AtomicInteger();
+        ThreadPoolExecutor poolIO = new ThreadPoolExecutor(threadsIO, threadsIO, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnableIO -> {
+            Thread threadIO = new Thread(runnableIO, "plugin-fanout-" + counterIO.incrementAndGet());
+
+            threadIO.setDaemon(true);
+
+            return threadIO;
+        });
+
+        poolIO.allowCoreThreadTimeOut(true);
+
+        return poolIO;
+    }
+
+    /**
+     * Invokes a function on all given extensions concurrently.
+     *
+     * @param extensionsIO the extensions to be invoked
+     * @param callIO       the function invoked with every extension
+     * @param deadlineIO   the maximum time to wait for all extensions, or null to wait until all finished
+     * @param <T>          the type of the extension point
+     * @param <R>          the type of the values returned by the function
+     * @return the outcomes in extension order
+     */
+    public <T, R> FanOutResult<R> invoke(List<T> extensionsIO, Function<? super T, ? extends R> callIO, Duration deadlineIO) {
+        int sizeIO = extensionsIO.size();
+        List<FanOutResult.Outcome<R>> outcomesIO = new ArrayList<>(sizeIO);
+
+        if (sizeIO == 0)
+            return new FanOutResult<>(outcomesIO);
+
+        ClassLoader loaderIO = Thread.currentThread().getContextClassLoader();
+        long[] durationsIO = new long[sizeIO];
+        List<Callable<R>> tasksIO = new ArrayList<>(sizeIO);
+
+        for (int indexIO = 0; indexIO < sizeIO; indexIO++) {
+            T extensionIO = extensionsIO.get(indexIO);
+            int slotIO = indexIO;
+
+            tasksIO.add(() -> {
+                Thread threadIO = Thread.currentThread();
+                ClassLoader previousIO = threadIO.getContextClassLoader();
+                long startIO = System.nanoTime();
+
+                // Keep Context Class Loader of the calling Thread.
+                threadIO.setContextClassLoader(loaderIO);
+
+                try {
+                    return callIO.apply(extensionIO);
+                } finally {
+                    durationsIO[slotIO] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startIO);
+
+                    threadIO.setContextClassLoader(previousIO);
+                }
+            });
+        }
+
+        long startIO = System.nanoTime();
+        List<Future<R>> futuresIO;
+
+        try {
+            futuresIO = deadlineIO == null ? executorIO.invokeAll(tasksIO) : executorIO.invokeAll(tasksIO, deadlineIO.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            futuresIO = null;
+        }
+
+        long waitedIO = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startIO);
+
+        for (int indexIO = 0; indexIO < sizeIO; indexIO++) {
+            String pluginId = this.getOwner(extensionsIO.get(indexIO));
+            Future<R> futureIO = futuresIO == null ? null : futuresIO.get(indexIO);
+
+            if (futureIO == null || futureIO.isCancelled()) {
+                outcomesIO.add(new FanOutResult.Outcome<>(pluginId, null, null, true, waitedIO));
+
+                continue;
+            }
+
+            try {
+                outcomesIO.add(new FanOutResult.Outcome<>(pluginId, futureIO.get(), null, false, durationsIO[indexIO]));
+            } catch (ExecutionException e) {
+                log.warn("Extension of plugin '{}' failed during fan-out.", pluginId, e.getCause());
+
+                outcomesIO.add(new FanOutResult.Outcome<>(pluginId, null, e.getCause(), false, durationsIO[indexIO]));
+            } catch (InterruptedException | CancellationException e) {
+                outcomesIO.add(new FanOutResult.Outcome<>(pluginId, null, null, true, waitedIO));
+            }
+        }
+
+        return new FanOutResult<>(outcomesIO);
+    }
+
+    /**
+     * Retrieves the plugin providing an extension.
+     *
+     * @param extensionIO the extension
+     * @return the identifier of the plugin, or {@link ExtensionMetrics#SYSTEM} for extensions of the host
+     */
+    private String getOwner(Object extensionIO) {
+        PluginWrapper pluginIO = managerIO.whichPlugin(extensionIO.getClass());
+
+        return pluginIO != null ? pluginIO.getPluginId() : ExtensionMetrics.SYSTEM;
+    }
+
+    /**
+     * Checks whether invocations run on virtual threads.
+     *
+     * @return true if virtual threads are used, false if a thread pool is used
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Stops the executor, running invocations are interrupted.
+     */
+    public void shutdown() {
+        executorIO.shutdownNow();
+    }
+}
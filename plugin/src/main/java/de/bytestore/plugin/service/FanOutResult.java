@@ -0,0 +1,164 @@
+package de.bytestore.plugin.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * FanOutResult holds the outcome of invoking a function on all extensions of an extension point concurrently,
+ * see {@link PluginService#invokeAll(Class, java.util.function.Function, java.time.Duration)}.
+ *
+ * The outcomes keep the order of the extensions as returned by {@link PluginService#getExtension(Class)}. Every
+ * outcome either carries a value, the exception thrown by the extension or is marked as timed out if the extension
+ * didn't finish before the deadline. A result is complete if every extension returned a value.
+ *
+ * @param <R> the type of the values returned by the extensions
+ */
+public class FanOutResult<R> {
+    private final List<Outcome<R>> outcomes;
+
+    /**
+     * Constructs a new FanOutResult.
+     *
+     * @param outcomes the outcomes in extension order
+     */
+    FanOutResult(List<Outcome<R>> outcomes) {
+        this.outcomes = Collections.unmodifiableList(outcomes);
+    }
+
+    /**
+     * Retrieves the outcome of every extension.
+     *
+     * @return the unmodifiable outcomes in extension order
+     */
+    public List<Outcome<R>> getOutcomes() {
+        return outcomes;
+    }
+
+    /**
+     * Retrieves the values of all extensions which finished successfully before the deadline.
+     *
+     * @return the values in extension order
+     */
+    public List<R> getValues() {
+        List<R> valuesIO = new ArrayList<>();
+
+        for (Outcome<R> outcomeIO : outcomes) {
+            if (outcomeIO.isSuccess())
+                valuesIO.add(outcomeIO.getValue());
+        }
+
+        return valuesIO;
+    }
+
+    /**
+     * Retrieves the outcomes of all extensions which failed or timed out.
+     *
+     * @return the failed outcomes in extension order
+     */
+    public List<Outcome<R>> getFailures() {
+        return outcomes.stream().filter(outcomeIO -> !outcomeIO.isSuccess()).toList();
+    }
+
+    /**
+     * Checks whether every extension finished successfully before the deadline.
+     *
+     * @return true if no extension failed or timed out, false if the values are partial
+     */
+    public boolean isComplete() {
+        return outcomes.stream().allMatch(Outcome::isSuccess);
+    }
+
+    /**
+     * Reduces the values of all successful extensions in extension order.
+     *
+     * @param identityIO    the initial value
+     * @param accumulatorIO the function combining the accumulated value with the value of the next extension
+     * @param <A>           the type of the reduced value
+     * @return the reduced value, or the identity if no extension finished successfully
+     */
+    public <A> A reduce(A identityIO, BiFunction<A, ? super R, A> accumulatorIO) {
+        A resultIO = identityIO;
+
+        for (R valueIO : this.getValues()) {
+            resultIO = accumulatorIO.apply(resultIO, valueIO);
+        }
+
+        return resultIO;
+    }
+
+    @Override
+    public String toString() {
+        return "FanOutResult" + outcomes;
+    }
+
+    /**
+     * The outcome of invoking a single extension.
+     *
+     * @param <R> the type of the value returned by the extension
+     */
+    public static class Outcome<R> {
+        private final String pluginId;
+
+        private final R value;
+
+        private final Throwable error;
+
+        private final boolean timedOut;
+
+        private final long duration;
+
+        Outcome(String pluginId, R value, Throwable error, boolean timedOut, long duration) {
+            this.pluginId = pluginId;
+            this.value = value;
+            this.error = error;
+            this.timedOut = timedOut;
+            this.duration = duration;
+        }
+
+        /**
+         * Retrieves the plugin providing the extension.
+         *
+         * @return the unique identifier of the plugin, or "system" for extensions of the host
+         */
+        public String getPluginId() {
+            return pluginId;
+        }
+
+        public R getValue() {
+            return value;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        /**
+         * Checks whether the extension returned a value before the deadline.
+         *
+         * @return true if the extension neither failed nor timed out, false otherwise
+         */
+        public boolean isSuccess() {
+            return error == null && !timedOut;
+        }
+
+        /**
+         * Retrieves how long the extension ran, or how long it was waited for if it timed out.
+         *
+         * @return the duration in milliseconds
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        @Override
+        public String toString() {
+            return pluginId + (timedOut ? "[timed out]" : error != null ? "[failed: " + error + "]" : "[" + value + "]");
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package de.bytestore.plugin.service;
+
+import org.pf4j.PluginState;
+import org.pf4j.PluginWrapper;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * PluginHealthIndicator reports the {@link PluginReadinessState} of the {@link PluginService} as health component
+ * "plugins", so it can be added to a readiness group of the actuator.
+ *
+ * {@link PluginReadinessState#READY} is reported as UP, {@link PluginReadinessState#WARMING_UP} as OUT_OF_SERVICE and
+ * {@link PluginReadinessState#FAILED} as DOWN. The details list the number of loaded and started plugins and the ids
+ * of failed plugins. This class must only be loaded if the Spring Boot actuator is present, it is registered by the
+ * {@link de.bytestore.plugin.configuration.PluginHealthConfiguration}.
+ */
+public class PluginHealthIndicator implements HealthIndicator {
+    private final PluginService pluginService;
+
+    /**
+     * Constructs a new PluginHealthIndicator.
+     *
+     * @param pluginService the plugin service keeping the readiness of the plugins
+     */
+    public PluginHealthIndicator(PluginService pluginService) {
+        this.pluginService = pluginService;
+    }
+
+    /**
+     * Reports the readiness of the plugins together with the number of loaded, started and failed plugins.
+     *
+     * @return the health of the plugins
+     */
+    @Override
+    public Health health() {
+        PluginReadinessState stateIO = pluginService.getReadinessState();
+        Collection<PluginWrapper> pluginsIO = pluginService.getPlugins();
+        List<String> failedIO = new ArrayList<>();
+        int startedIO = 0;
+
+        for (PluginWrapper pluginIO : pluginsIO) {
+            if (pluginIO.getPluginState() == PluginState.STARTED)
+                startedIO++;
+            else if (pluginIO.getPluginState() == PluginState.FAILED)
+                failedIO.add(pluginIO.getPluginId());
+        }
+
+        Health.Builder builderIO = switch (stateIO) {
+            case READY -> Health.up();
+            case WARMING_UP -> Health.outOfService();
+            case FAILED -> Health.down();
+        };
+
+        return builderIO.withDetail("state", stateIO)
+                .withDetail("plugins", pluginsIO.size())
+                .withDetail("started", startedIO)
+                .withDetail("failed", failedIO)
+                .build();
+    }
+}
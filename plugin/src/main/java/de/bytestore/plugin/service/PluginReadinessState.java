@@ -0,0 +1,30 @@
+package de.bytestore.plugin.service;
+
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.AvailabilityState;
+
+/**
+ * PluginReadinessState describes whether the plugins of the application have been loaded and started.
+ *
+ * The state is published as {@link org.springframework.boot.availability.AvailabilityChangeEvent} by the
+ * {@link PluginService} and can be queried via {@link ApplicationAvailability#getState(Class)}, e.g. to route
+ * plugin-dependent traffic only once the bootstrap has finished. It is independent of the Spring Boot
+ * {@link org.springframework.boot.availability.ReadinessState}, so the application keeps serving while
+ * plugins are still warming up.
+ */
+public enum PluginReadinessState implements AvailabilityState {
+    /**
+     * The plugins are being loaded and started in the background.
+     */
+    WARMING_UP,
+
+    /**
+     * The plugins have been loaded and started.
+     */
+    READY,
+
+    /**
+     * The bootstrap of the plugins failed.
+     */
+    FAILED
+}
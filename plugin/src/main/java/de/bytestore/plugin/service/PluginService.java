@@ -1,5 +1,10 @@
 package de.bytestore.plugin.service;
 
+import de.bytestore.plugin.configuration.ArtifactStore;
+import de.bytestore.plugin.configuration.CircuitState;
+import de.bytestore.plugin.configuration.ExtensionDispatcher;
+import de.bytestore.plugin.configuration.ExtensionGuard;
+import de.bytestore.plugin.configuration.PluginChangeSet;
 import de.bytestore.plugin.configuration.SpringRuntimePluginManager;
 import de.bytestore.plugin.entity.Plugin;
 import io.jmix.core.AccessManager;
@@ -10,7 +15,9 @@ import io.jmix.flowui.download.Downloader;
 import org.pf4j.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
 import org.springframework.boot.context.event.ApplicationStartedEvent;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.event.EventListener;
@@ -22,11 +29,16 @@ import org.springframework.stereotype.Service;
 
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * The PluginService class is responsible for managing the lifecycle, configuration, and operations
@@ -41,7 +53,7 @@ import java.util.List;
  */
 @Component
 @Service
-public class PluginService {
+public class PluginService implements DisposableBean {
     private static final Logger log = LoggerFactory.getLogger(PluginService.class);
 
     @Autowired
@@ -68,11 +80,26 @@ public class PluginService {
     @Autowired
     private Downloader downloader;
 
+    @Autowired
+    private ArtifactStore artifactStore;
+
+    // Store Future of the running or last Bootstrap.
+    private volatile CompletableFuture<Void> bootstrapIO = CompletableFuture.completedFuture(null);
+
+    // Store last published Readiness of the Plugins.
+    private volatile PluginReadinessState readinessIO = PluginReadinessState.WARMING_UP;
+
+    // Store Executor fanning out Extension Calls.
+    private volatile ExtensionFanOut fanOut;
+
     /**
      * Writes the given content into a temporary file with the specified name.
      * If the file does not already exist, a new file is created.
      * Logs a debug message after successfully writing the file.
      *
+     * If the artifact store is enabled, the content is stored there once and the temporary file is linked
+     * from the store, so uploading an identical archive again doesn't write it again.
+     *
      * @param nameIO the name of the file to be created or written to
      * @param contentIO the byte array content to be written into the file
      */
@@ -81,6 +108,16 @@ public class PluginService {
             checkTemp();
 
             File file = new File(getTemp() + nameIO);
+
+            // Link Archive from the Artifact Store.
+            if (artifactStore.isEnabled()) {
+                artifactStore.copyTo(artifactStore.put(contentIO), file.toPath());
+
+                log.info("Wrote Temp Archive for {} from Artifact Store.", nameIO);
+
+                return;
+            }
+
             file.createNewFile();
 
             FileOutputStream fos = new FileOutputStream(file);
@@ -124,7 +161,8 @@ public class PluginService {
     /**
      * Handles the {@link ApplicationStartedEvent} triggered when the application has started.
      * This method determines whether the plugin autoload feature is enabled by invoking {@code isAutoload()}.
-     * If enabled, it invokes the {@code load()} method to load all plugins.
+     * If enabled, it invokes the {@code load()} method to load all plugins, or {@code bootstrap()} to load
+     * them in the background if the asynchronous bootstrap is enabled.
      *
      * @param event the application started event containing context about the application startup
      */
@@ -132,9 +170,109 @@ public class PluginService {
     @Order(Ordered.HIGHEST_PRECEDENCE)
     public void onApplicationStarted(final ApplicationStartedEvent event) {
         if (this.isAutoload()) {
-            log.info("Loading Plugins on Application Start... ");
+            if (this.isAsyncBootstrap()) {
+                log.info("Loading Plugins in Background on Application Start... ");
+
+                this.bootstrap();
+            } else {
+                log.info("Loading Plugins on Application Start... ");
+
+                try {
+                    this.load();
+                } catch (RuntimeException e) {
+                    this.publish(PluginReadinessState.FAILED);
+
+                    throw e;
+                }
+
+                this.publish(PluginReadinessState.READY);
+            }
+        } else
+            this.publish(PluginReadinessState.READY);
+    }
+
+    /**
+     * Keeps the readiness of the plugins and publishes it as {@link AvailabilityChangeEvent}.
+     *
+     * @param stateIO the readiness of the plugins
+     */
+    private void publish(PluginReadinessState stateIO) {
+        this.readinessIO = stateIO;
+
+        AvailabilityChangeEvent.publish(context, stateIO);
+    }
+
+    /**
+     * Retrieves the last published readiness of the plugins, {@link PluginReadinessState#WARMING_UP} until the
+     * application has started. Backs the "plugins" health indicator.
+     *
+     * @return the readiness of the plugins
+     */
+    public PluginReadinessState getReadinessState() {
+        return readinessIO;
+    }
+
+    /**
+     * Loads and starts all plugins on a background thread, so the application can serve requests meanwhile.
+     *
+     * While the bootstrap is running the {@link PluginReadinessState#WARMING_UP} state is published and
+     * {@link #getExtension(Class)} returns no extensions. Once finished, {@link PluginReadinessState#READY}
+     * (or {@link PluginReadinessState#FAILED}) is published. Calling this method while a bootstrap is running
+     * returns the running bootstrap.
+     *
+     * @return a future completing once all plugins have been loaded and started
+     */
+    public synchronized CompletableFuture<Void> bootstrap() {
+        if (!bootstrapIO.isDone())
+            return bootstrapIO;
+
+        this.publish(PluginReadinessState.WARMING_UP);
+
+        bootstrapIO = CompletableFuture.runAsync(this::load, runnableIO -> {
+            Thread threadIO = new Thread(runnableIO, "plugin-bootstrap");
+
+            threadIO.setDaemon(true);
+            threadIO.start();
+        }).whenComplete((resultIO, throwableIO) -> {
+            if (throwableIO != null) {
+                log.error("Unable to bootstrap Plugins.", throwableIO);
+
+                this.publish(PluginReadinessState.FAILED);
+            } else
+                this.publish(PluginReadinessState.READY);
+        });
+
+        return bootstrapIO;
+    }
+
+    /**
+     * Retrieves the future of the running or last plugin bootstrap. If plugins are loaded synchronously
+     * the returned future is already completed.
+     *
+     * @return the future of the plugin bootstrap
+     */
+    public CompletableFuture<Void> getBootstrap() {
+        return bootstrapIO;
+    }
 
-            this.load();
+    /**
+     * Checks whether no plugin bootstrap is running in the background.
+     *
+     * @return true if plugins are not warming up anymore, false otherwise
+     */
+    public boolean isReady() {
+        return bootstrapIO.isDone();
+    }
+
+    /**
+     * Blocks until a running plugin bootstrap has finished, regardless of its outcome.
+     * Used before operations that modify the loaded plugins.
+     */
+    private void awaitBootstrap() {
+        if (!this.isReady()) {
+            log.info("Waiting for Plugin Bootstrap...");
+
+            bootstrapIO.exceptionally(throwableIO -> null).join();
         }
     }
 
@@ -158,8 +296,17 @@ public class PluginService {
      * - Reinitializes the plugin management system with the managerIO.
      *
      * It ensures that the current state of the plugins is reset and reinitialized properly.
+     * If the incremental reload is enabled, only changed plugins are reloaded, see {@link #reloadChanged(boolean)}.
      */
     public void reload() {
+        this.awaitBootstrap();
+
+        if (this.isIncrementalReload()) {
+            this.reloadChanged(this.isReloadRefresh());
+
+            return;
+        }
+
         // Refresh Update Repository.
         updateService.refresh();
 
@@ -180,6 +327,35 @@ public class PluginService {
         });
     }
 
+    /**
+     * Reloads only the plugins that were added, removed or changed in the plugin directory since they were loaded,
+     * together with the plugins depending on them. All other plugins keep running with their classloader,
+     * Spring context and extensions.
+     *
+     * @param refreshIO whether the update repositories are refreshed before reloading
+     * @return the change set describing which plugins were added, removed, changed and reloaded
+     */
+    public PluginChangeSet reloadChanged(boolean refreshIO) {
+        return this.reloadChanged(null, refreshIO);
+    }
+
+    /**
+     * Reloads only the given plugin paths if they were added, removed or changed since they were loaded, together
+     * with the plugins depending on them. Used by the directory watcher with the paths of the file events.
+     *
+     * @param pathsIO   the plugin archives or directories to be compared, or null to compare the whole directory
+     * @param refreshIO whether the update repositories are refreshed before reloading
+     * @return the change set describing which plugins were added, removed, changed and reloaded
+     */
+    public PluginChangeSet reloadChanged(Collection<Path> pathsIO, boolean refreshIO) {
+        this.awaitBootstrap();
+
+        // Refresh Update Repository.
+        if (refreshIO)
+            updateService.refresh();
+
+        return managerIO.reloadChanged(pathsIO);
+    }
 
     /**
      * Loads all plugins managed by the SpringPluginManager.
@@ -207,8 +383,11 @@ public class PluginService {
         // Load Plugins from Home.
         managerIO.loadPlugins();
 
-        // Start Plugins.
-        managerIO.startPlugins();
+        // Start Plugins level by level of the Dependency Graph or one after another.
+        if (this.isParallelStartup())
+            managerIO.startPluginsParallel(this.getStartupThreads());
+        else
+            managerIO.startPlugins();
 
         log.info("Loaded {} Plugins.", managerIO.getPlugins().size());
     }
@@ -326,6 +505,82 @@ public class PluginService {
         return environment.getProperty("plugins.autoload", Boolean.class, true);
     }
 
+    /**
+     * Determines whether plugins are loaded in the background on application start.
+     * The configuration is retrieved from the environment properties using the key "plugins.bootstrap.async".
+     * If the property is not specified, a default value of {@code false} is returned.
+     *
+     * @return a boolean indicating whether the asynchronous plugin bootstrap is enabled.
+     */
+    public boolean isAsyncBootstrap() {
+        return environment.getProperty("plugins.bootstrap.async", Boolean.class, false);
+    }
+
+    /**
+     * Determines whether a reload only reloads changed plugins instead of unloading every plugin.
+     * The configuration is retrieved from the environment properties using the key "plugins.reload.incremental".
+     * If the property is not specified, a default value of {@code false} is returned.
+     *
+     * @return a boolean indicating whether the incremental reload is enabled.
+     */
+    public boolean isIncrementalReload() {
+        return environment.getProperty("plugins.reload.incremental", Boolean.class, false);
+    }
+
+    /**
+     * Determines whether an incremental reload refreshes the update repositories first.
+     * The configuration is retrieved from the environment properties using the key "plugins.reload.refresh".
+     * If the property is not specified, a default value of {@code true} is returned.
+     *
+     * @return a boolean indicating whether repositories are refreshed on an incremental reload.
+     */
+    public boolean isReloadRefresh() {
+        return environment.getProperty("plugins.reload.refresh", Boolean.class, true);
+    }
+
+    /**
+     * Determines whether plugins are started in parallel, level by level of their dependency graph.
+     * The configuration is retrieved from the environment properties using the key "plugins.startup.parallel".
+     * If the property is not specified, a default value of {@code false} is returned.
+     *
+     * @return a boolean indicating whether the parallel plugin startup is enabled.
+     */
+    public boolean isParallelStartup() {
+        return environment.getProperty("plugins.startup.parallel", Boolean.class, false);
+    }
+
+    /**
+     * Retrieves the maximum number of plugins started at the same time during a parallel startup.
+     * The property key is "plugins.startup.threads". If not specified, the number of available processors is returned.
+     * A value of 1 starts every plugin on the calling thread in a deterministic order.
+     *
+     * @return the size of the plugin startup pool.
+     */
+    public int getStartupThreads() {
+        return environment.getProperty("plugins.startup.threads", Integer.class, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Retrieves the size of the thread pool invoking extensions concurrently if virtual threads are not used.
+     * The property key is "plugins.extensions.fanout.threads". If not specified, four threads per available
+     * processor are returned.
+     *
+     * @return the size of the extension fan-out pool.
+     */
+    public int getFanOutThreads() {
+        return environment.getProperty("plugins.extensions.fanout.threads", Integer.class, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * Determines whether extensions are invoked concurrently on virtual threads if the runtime supports them.
+     * The property key is "plugins.extensions.fanout.virtual". If not specified, the default value {@code true} is returned.
+     *
+     * @return true if virtual threads are preferred, false otherwise.
+     */
+    public boolean isFanOutVirtual() {
+        return environment.getProperty("plugins.extensions.fanout.virtual", Boolean.class, true);
+    }
+
     /**
      * Converts a collection of PluginWrapper objects into a list of Plugin objects
      * by extracting relevant details and setting them in the Plugin objects.
@@ -482,23 +737,168 @@ public class PluginService {
 
     /**
      * Retrieves a list of extensions associated with the given class type.
+     * While plugins are warming up (see {@link #isReady()}) an empty list is returned.
+     * Lookups are served by the {@link de.bytestore.plugin.configuration.PluginExtensionRegistry} of the manager.
      *
      * @param classIO the class type for which extensions are to be retrieved
      * @return a list of extensions corresponding to the specified class type
      */
     public List getExtension(Class classIO) {
-        return managerIO.getExtensions(classIO);
+        if (!this.isReady()) {
+            log.debug("Plugins are warming up, no extensions of {} available yet.", classIO.getName());
+
+            return new ArrayList<>();
+        }
+
+        return managerIO.getExtensionRegistry().getExtensions(classIO);
     }
 
     /**
      * Retrieves a list of extensions associated with the specified class and plugin identifier.
+     * While plugins are warming up (see {@link #isReady()}) an empty list is returned.
+     * Lookups are served by the {@link de.bytestore.plugin.configuration.PluginExtensionRegistry} of the manager.
      *
      * @param classIO  the class for which the extensions are being retrieved
      * @param pluginId the identifier of the plugin associated with the extensions
      * @return a list of extensions corresponding to the given class and plugin identifier
      */
     public List<Object> getExtension(Class classIO, String pluginId) {
-        return managerIO.getExtensions(classIO, pluginId);
+        if (!this.isReady()) {
+            log.debug("Plugins are warming up, no extensions of {} available yet.", classIO.getName());
+
+            return new ArrayList<>();
+        }
+
+        return managerIO.getExtensionRegistry().getExtensions(classIO, pluginId);
+    }
+
+    /**
+     * Retrieves the extensions associated with the given class type once the plugin bootstrap has finished.
+     *
+     * @param classIO the class type for which extensions are to be retrieved
+     * @return a future completing with the extensions corresponding to the specified class type
+     */
+    public CompletableFuture<List> getExtensionAsync(Class classIO) {
+        return bootstrapIO.exceptionally(throwableIO -> null).thenApply(resultIO -> this.getExtension(classIO));
+    }
+
+    /**
+     * Invokes a public method of an extension by name, e.g. for generic callers like scripts. The method is resolved
+     * once per class, name and argument types into a cached method handle, see {@link ExtensionDispatcher}.
+     *
+     * @param extensionIO the extension
+     * @param methodIO    the name of the method
+     * @param argsIO      the arguments of the method
+     * @return the result of the method, or null for void methods
+     */
+    public Object invokeExtension(Object extensionIO, String methodIO, Object... argsIO) {
+        return managerIO.getExtensionDispatcher().invoke(extensionIO, methodIO, argsIO);
+    }
+
+    /**
+     * Invokes a function on all extensions of the given extension point concurrently, on virtual threads if
+     * available or on a bounded pool otherwise (see {@link ExtensionFanOut}). Extensions that didn't finish
+     * before the deadline are cancelled and reported as timed out, so the result may be partial.
+     *
+     * @param classIO    the extension point
+     * @param callIO     the function invoked with every extension
+     * @param deadlineIO the maximum time to wait for all extensions, or null to wait until all finished
+     * @param <T>        the type of the extension point
+     * @param <R>        the type of the values returned by the function
+     * @return the outcomes in the order of {@link #getExtension(Class)}
+     */
+    @SuppressWarnings("unchecked")
+    public <T, R> FanOutResult<R> invokeAll(Class<T> classIO, Function<? super T, ? extends R> callIO, Duration deadlineIO) {
+        return this.getFanOut().invoke((List<T>) this.getExtension(classIO), callIO, deadlineIO);
+    }
+
+    /**
+     * Invokes a function on all extensions of the given extension point concurrently and reduces the values of
+     * all extensions which finished successfully before the deadline, in the order of {@link #getExtension(Class)}.
+     *
+     * @param classIO       the extension point
+     * @param callIO        the function invoked with every extension
+     * @param deadlineIO    the maximum time to wait for all extensions, or null to wait until all finished
+     * @param identityIO    the initial value of the reduction
+     * @param accumulatorIO the function combining the accumulated value with the value of the next extension
+     * @param <T>           the type of the extension point
+     * @param <R>           the type of the values returned by the function
+     * @param <A>           the type of the reduced value
+     * @return the reduced value
+     */
+    public <T, R, A> A invokeAll(Class<T> classIO, Function<? super T, ? extends R> callIO, Duration deadlineIO, A identityIO, BiFunction<A, ? super R, A> accumulatorIO) {
+        FanOutResult<R> resultIO = this.invokeAll(classIO, callIO, deadlineIO);
+
+        if (!resultIO.isComplete())
+            log.warn("Fan-out of {} is partial: {}", classIO.getName(), resultIO.getFailures());
+
+        return resultIO.reduce(identityIO, accumulatorIO);
+    }
+
+    /**
+     * Retrieves the executor fanning out extension calls, created on first use.
+     *
+     * @return the extension fan-out
+     */
+    private ExtensionFanOut getFanOut() {
+        ExtensionFanOut fanOutIO = fanOut;
+
+        if (fanOutIO == null) {
+            synchronized (this) {
+                if (fanOut == null)
+                    fanOut = new ExtensionFanOut(managerIO, this.getFanOutThreads(), this.isFanOutVirtual());
+
+                fanOutIO = fanOut;
+            }
+        }
+
+        return fanOutIO;
+    }
+
+    /**
+     * Stops the threads of the extension fan-out and of the extension guard once the context is closed, so no
+     * extension call keeps a plugin classloader alive.
+     */
+    @Override
+    public void destroy() {
+        synchronized (this) {
+            if (fanOut != null)
+                fanOut.shutdown();
+
+            fanOut = null;
+        }
+
+        managerIO.getExtensionGuard().shutdown();
+    }
+
+    /**
+     * Checks whether calls into extensions are isolated by the {@link ExtensionGuard} of the manager.
+     *
+     * @return true if the extension guard is enabled, false otherwise
+     */
+    public boolean isExtensionGuard() {
+        return managerIO.getExtensionGuard().isEnabled();
+    }
+
+    /**
+     * Retrieves the circuit state of the extensions of the specified plugin.
+     *
+     * @param pluginIO the plugin
+     * @return the circuit state of the plugin
+     */
+    public CircuitState getCircuitState(Plugin pluginIO) {
+        return managerIO.getExtensionGuard().getState(pluginIO.getId());
+    }
+
+    /**
+     * Closes the circuit of the specified plugin, so its extensions are called again.
+     *
+     * @param pluginIO the plugin
+     */
+    public void resetCircuit(Plugin pluginIO) {
+        log.info("Resetting circuit of plugin {}.", pluginIO.getId());
+
+        managerIO.getExtensionGuard().reset(pluginIO.getId());
     }
 
 
@@ -529,6 +929,8 @@ public class PluginService {
      * @param fileName the name of the file containing the plugin to be checked
      */
     public void checkPlugin(String fileName) throws RuntimeException {
+        this.awaitBootstrap();
+
         // Test Load Plugin.
         String idIO = managerIO.loadPlugin(Paths.get(getTemp() + fileName));
 
@@ -594,7 +996,22 @@ public class PluginService {
      * @param fileName the name of the file representing the moved plugin to be loaded.
      */
     public void loadMovedPlugin(String fileName) {
-        managerIO.loadPlugin(Paths.get(getHome() + fileName));
+        this.awaitBootstrap();
+
+        Path pathIO = Paths.get(getHome() + fileName).toAbsolutePath().normalize();
+
+        // Serialize with the Directory Watcher, which may have loaded the moved Plugin already.
+        synchronized (managerIO) {
+            for (PluginWrapper pluginIO : managerIO.getPlugins()) {
+                if (pluginIO.getPluginPath().toAbsolutePath().normalize().equals(pathIO)) {
+                    log.info("Plugin '{}' of '{}' is already loaded.", pluginIO.getPluginId(), fileName);
+
+                    return;
+                }
+            }
+
+            managerIO.loadPlugin(pathIO);
+        }
     }
 
 
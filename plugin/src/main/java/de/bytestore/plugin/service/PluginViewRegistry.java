@@ -0,0 +1,253 @@
+package de.bytestore.plugin.service;
+
+import com.vaadin.flow.router.Route;
+import de.bytestore.plugin.bean.PluginView;
+import de.bytestore.plugin.configuration.ExtensionMetrics;
+import de.bytestore.plugin.configuration.PluginViewScanner;
+import io.jmix.flowui.view.View;
+import io.jmix.flowui.view.ViewController;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PluginViewRegistry holds the metadata (view id, class, route and plugin) of every {@link PluginView}.
+ *
+ * The registry is built once from the views found by the {@link PluginViewScanner} and updated whenever the views
+ * of a plugin are registered or removed at runtime, so menus and navigators can look up plugin views without
+ * querying the application context or creating view instances. Lookups by view id and route are backed by maps,
+ * the list of all views is an immutable snapshot replaced on every change.
+ */
+@Component
+public class PluginViewRegistry {
+    private static final Logger log = LoggerFactory.getLogger(PluginViewRegistry.class);
+
+    // Store Views by View Id.
+    private final Map<String, PluginViewInfo> viewsIO = new ConcurrentHashMap<>();
+
+    // Store Views by Route.
+    private final Map<String, PluginViewInfo> routesIO = new ConcurrentHashMap<>();
+
+    // Store Views by Plugin Id.
+    private final Map<String, List<PluginViewInfo>> pluginsIO = new ConcurrentHashMap<>();
+
+    private volatile List<PluginViewInfo> snapshotIO = List.of();
+
+    /**
+     * Constructs a new PluginViewRegistry containing the plugin views of the application.
+     *
+     * @param pluginViewScanner the scanner which registered the plugin views of the application as beans
+     */
+    @SuppressWarnings("unchecked")
+    public PluginViewRegistry(PluginViewScanner pluginViewScanner) {
+        List<Class<? extends View>> classesIO = new ArrayList<>();
+
+        for (Class<?> classIO : pluginViewScanner.getPluginViewClasses()) {
+            if (View.class.isAssignableFrom(classIO))
+                classesIO.add((Class<? extends View>) classIO);
+        }
+
+        this.register(ExtensionMetrics.SYSTEM, classesIO);
+    }
+
+    /**
+     * Registers the views of a plugin, replacing views registered before by the same plugin.
+     *
+     * @param pluginId  the unique identifier of the plugin, or {@link ExtensionMetrics#SYSTEM} for the application
+     * @param classesIO the view classes of the plugin
+     */
+    public synchronized void register(String pluginId, Collection<Class<? extends View>> classesIO) {
+        this.remove(pluginId);
+
+        if (classesIO.isEmpty()) {
+            this.update();
+
+            return;
+        }
+
+        List<PluginViewInfo> infosIO = new ArrayList<>(classesIO.size());
+
+        for (Class<? extends View> classIO : classesIO) {
+            PluginViewInfo infoIO = new PluginViewInfo(this.getViewId(classIO), classIO, this.getRoute(classIO), pluginId);
+            PluginViewInfo previousIO = viewsIO.put(infoIO.getViewId(), infoIO);
+
+            if (previousIO != null && !previousIO.getPluginId().equals(pluginId))
+                log.warn("View '{}' of plugin '{}' replaces the view of plugin '{}'.", infoIO.getViewId(), pluginId, previousIO.getPluginId());
+
+            if (infoIO.getRoute() != null)
+                routesIO.put(infoIO.getRoute(), infoIO);
+
+            infosIO.add(infoIO);
+        }
+
+        pluginsIO.put(pluginId, Collections.unmodifiableList(infosIO));
+
+        this.update();
+    }
+
+    /**
+     * Removes the views of a plugin.
+     *
+     * @param pluginId the unique identifier of the plugin
+     */
+    public synchronized void unregister(String pluginId) {
+        if (this.remove(pluginId))
+            this.update();
+    }
+
+    /**
+     * Removes the views of a plugin from the lookup maps.
+     *
+     * @param pluginId the unique identifier of the plugin
+     * @return true if the plugin had registered views, false otherwise
+     */
+    private boolean remove(String pluginId) {
+        List<PluginViewInfo> infosIO = pluginsIO.remove(pluginId);
+
+        if (infosIO == null)
+            return false;
+
+        for (PluginViewInfo infoIO : infosIO) {
+            viewsIO.remove(infoIO.getViewId(), infoIO);
+
+            if (infoIO.getRoute() != null)
+                routesIO.remove(infoIO.getRoute(), infoIO);
+        }
+
+        return true;
+    }
+
+    /**
+     * Replaces the snapshot of all views after a change.
+     */
+    private void update() {
+        List<PluginViewInfo> allIO = new ArrayList<>();
+
+        pluginsIO.values().forEach(allIO::addAll);
+
+        this.snapshotIO = Collections.unmodifiableList(allIO);
+    }
+
+    /**
+     * Retrieves the id of a view from its {@link ViewController} annotation.
+     *
+     * @param classIO the view class
+     * @return the view id, or the class name if the annotation declares no id
+     */
+    private String getViewId(Class<? extends View> classIO) {
+        ViewController controllerIO = AnnotatedElementUtils.findMergedAnnotation(classIO, ViewController.class);
+
+        return controllerIO != null && !controllerIO.id().isEmpty() ? controllerIO.id() : classIO.getName();
+    }
+
+    /**
+     * Retrieves the route of a view from its {@link Route} annotation.
+     *
+     * @param classIO the view class
+     * @return the route, or null if the view has no route
+     */
+    private String getRoute(Class<? extends View> classIO) {
+        Route routeIO = classIO.getAnnotation(Route.class);
+
+        return routeIO != null ? routeIO.value() : null;
+    }
+
+    /**
+     * Retrieves all registered plugin views.
+     *
+     * @return the unmodifiable list of plugin views
+     */
+    public List<PluginViewInfo> getViews() {
+        return snapshotIO;
+    }
+
+    /**
+     * Retrieves the views of a plugin.
+     *
+     * @param pluginId the unique identifier of the plugin
+     * @return the unmodifiable list of views of the plugin, empty if it has none
+     */
+    public List<PluginViewInfo> getViews(String pluginId) {
+        return pluginsIO.getOrDefault(pluginId, List.of());
+    }
+
+    /**
+     * Retrieves a plugin view by the id of its {@link ViewController}.
+     *
+     * @param viewId the view id
+     * @return the plugin view, or an empty optional if no plugin view has this id
+     */
+    public Optional<PluginViewInfo> getView(String viewId) {
+        return Optional.ofNullable(viewsIO.get(viewId));
+    }
+
+    /**
+     * Retrieves a plugin view by its route.
+     *
+     * @param route the route as declared by {@link Route#value()}
+     * @return the plugin view, or an empty optional if no plugin view has this route
+     */
+    public Optional<PluginViewInfo> getViewByRoute(String route) {
+        return Optional.ofNullable(routesIO.get(route));
+    }
+
+    /**
+     * PluginViewInfo describes a registered plugin view.
+     */
+    public static class PluginViewInfo {
+        private final String viewId;
+
+        private final Class<? extends View> viewClass;
+
+        private final String route;
+
+        private final String pluginId;
+
+        PluginViewInfo(String viewId, Class<? extends View> viewClass, String route, String pluginId) {
+            this.viewId = viewId;
+            this.viewClass = viewClass;
+            this.route = route;
+            this.pluginId = pluginId;
+        }
+
+        /**
+         * Retrieves the id of the view.
+         *
+         * @return the view id
+         */
+        public String getViewId() {
+            return viewId;
+        }
+
+        /**
+         * Retrieves the class of the view.
+         *
+         * @return the view class
+         */
+        public Class<? extends View> getViewClass() {
+            return viewClass;
+        }
+
+        /**
+         * Retrieves the route of the view.
+         *
+         * @return the route, or null if the view has no route
+         */
+        public String getRoute() {
+            return route;
+        }
+
+        /**
+         * Retrieves the plugin providing the view.
+         *
+         * @return the plugin id, or {@link ExtensionMetrics#SYSTEM} for views of the application
+         */
+        public String getPluginId() {
+            return pluginId;
+        }
+    }
+}
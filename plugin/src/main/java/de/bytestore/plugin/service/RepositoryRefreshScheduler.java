@@ -0,0 +1,227 @@
+package de.bytestore.plugin.service;
+
+import de.bytestore.plugin.configuration.JMIXUpdateManager;
+import de.bytestore.plugin.configuration.TimedUpdateRepository;
+import org.pf4j.update.UpdateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * RepositoryRefreshScheduler refreshes the update repositories in the background, so the UI and reloads only read
+ * the last known indexes and never wait for a repository.
+ *
+ * Repositories are refreshed on a fixed interval with a random jitter, so several nodes don't hit a repository at
+ * the same time. A repository which failed is backed off exponentially (starting at the back-off delay, doubled on
+ * every further failure up to the maximum back-off) and keeps its last good index meanwhile. Refreshes requested by
+ * {@link #refreshNow()} refresh all repositories once, independent of their back-off.
+ *
+ * The scheduler is enabled by default and started once the application is ready.
+ */
+@Component
+public class RepositoryRefreshScheduler implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(RepositoryRefreshScheduler.class);
+
+    private final JMIXUpdateManager updateManager;
+
+    private final Environment environment;
+
+    // Store Executor running the Refreshes one after another.
+    private final ScheduledExecutorService executorIO;
+
+    // Store whether a requested Refresh is pending.
+    private final AtomicBoolean pendingIO = new AtomicBoolean();
+
+    private volatile boolean started;
+
+    public RepositoryRefreshScheduler(JMIXUpdateManager updateManager, Environment environment) {
+        this.updateManager = updateManager;
+        this.environment = environment;
+
+        this.executorIO = Executors.newSingleThreadScheduledExecutor(runnableIO -> {
+            Thread threadIO = new Thread(runnableIO, "plugin-repository-refresh");
+
+            threadIO.setDaemon(true);
+
+            return threadIO;
+        });
+    }
+
+    /**
+     * Schedules the first background refresh once the application is ready, if the scheduler is enabled.
+     *
+     * @param event the application ready event
+     */
+    @EventListener
+    public void onApplicationReady(final ApplicationReadyEvent event) {
+        if (!this.isEnabled() || started)
+            return;
+
+        this.started = true;
+
+        this.schedule();
+
+        log.info("Refreshing repositories every {} ms with a jitter of {}.", this.getInterval(), this.getJitter());
+    }
+
+    /**
+     * Requests a refresh of all repositories in the background. Further requests while a refresh is pending
+     * are merged into it.
+     */
+    public void refreshNow() {
+        if (!pendingIO.compareAndSet(false, true))
+            return;
+
+        executorIO.execute(() -> {
+            pendingIO.set(false);
+
+            try {
+                updateManager.refresh();
+            } catch (RuntimeException e) {
+                log.error("Unable to refresh repositories.", e);
+            }
+        });
+    }
+
+    /**
+     * Schedules the next background refresh after the interval and a random jitter.
+     */
+    private void schedule() {
+        if (executorIO.isShutdown())
+            return;
+
+        executorIO.schedule(this::tick, this.nextDelay(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Refreshes all repositories which are not backing off and schedules the next refresh.
+     */
+    private void tick() {
+        try {
+            updateManager.refresh(this::isDue);
+        } catch (RuntimeException e) {
+            log.error("Unable to refresh repositories.", e);
+        } finally {
+            this.schedule();
+        }
+    }
+
+    /**
+     * Checks whether a repository is due for a refresh, i.e. it didn't fail or its back-off has elapsed.
+     *
+     * @param repositoryIO the repository
+     * @return true if the repository is refreshed, false if it is backing off
+     */
+    boolean isDue(UpdateRepository repositoryIO) {
+        if (!(repositoryIO instanceof TimedUpdateRepository timedIO) || timedIO.getFailures() == 0 || timedIO.getLastRefresh() == null)
+            return true;
+
+        return System.currentTimeMillis() >= timedIO.getLastRefresh().toEpochMilli() + this.getBackoff(timedIO.getFailures());
+    }
+
+    /**
+     * Computes the back-off of a repository after the given number of consecutive failures.
+     *
+     * @param failuresIO the number of consecutive failures
+     * @return the back-off in milliseconds
+     */
+    long getBackoff(int failuresIO) {
+        long maximumIO = this.getMaxBackoff();
+        long backoffIO = this.getBackoffDelay();
+
+        for (int indexIO = 1; indexIO < failuresIO && backoffIO < maximumIO; indexIO++) {
+            backoffIO *= 2;
+        }
+
+        return Math.min(backoffIO, maximumIO);
+    }
+
+    /**
+     * Computes the delay until the next refresh, the interval shifted by a random jitter.
+     *
+     * @return the delay in milliseconds
+     */
+    private long nextDelay() {
+        long intervalIO = Math.max(this.getInterval(), 1000);
+        long jitterIO = (long) (intervalIO * Math.min(Math.max(this.getJitter(), 0), 1));
+
+        return jitterIO == 0 ? intervalIO : Math.max(intervalIO + ThreadLocalRandom.current().nextLong(-jitterIO, jitterIO + 1), 1000);
+    }
+
+    /**
+     * Stops the background refreshes.
+     */
+    @Override
+    public void destroy() {
+        executorIO.shutdownNow();
+    }
+
+    /**
+     * Checks whether the background refresh is running.
+     *
+     * @return true if repositories are refreshed in the background, false otherwise
+     */
+    public boolean isRunning() {
+        return started && !executorIO.isShutdown();
+    }
+
+    /**
+     * Determines whether repositories are refreshed in the background.
+     * The property key is "plugins.repositories.refresh.enabled". If not specified, the default value is true.
+     *
+     * @return true if the background refresh is enabled, false otherwise.
+     */
+    public boolean isEnabled() {
+        return environment.getProperty("plugins.repositories.refresh.enabled", Boolean.class, true);
+    }
+
+    /**
+     * Retrieves the interval between two background refreshes.
+     * The property key is "plugins.repositories.refresh.interval". If not specified, the default value is 300000.
+     *
+     * @return the interval in milliseconds.
+     */
+    public long getInterval() {
+        return environment.getProperty("plugins.repositories.refresh.interval", Long.class, 300000L);
+    }
+
+    /**
+     * Retrieves the random jitter applied to the interval, as fraction of the interval.
+     * The property key is "plugins.repositories.refresh.jitter". If not specified, the default value is 0.2.
+     *
+     * @return the jitter between 0 and 1.
+     */
+    public double getJitter() {
+        return environment.getProperty("plugins.repositories.refresh.jitter", Double.class, 0.2);
+    }
+
+    /**
+     * Retrieves the back-off of a repository after its first failure, doubled on every further failure.
+     * The property key is "plugins.repositories.refresh.backoff". If not specified, the default value is 60000.
+     *
+     * @return the back-off in milliseconds.
+     */
+    public long getBackoffDelay() {
+        return environment.getProperty("plugins.repositories.refresh.backoff", Long.class, 60000L);
+    }
+
+    /**
+     * Retrieves the maximum back-off of a failing repository.
+     * The property key is "plugins.repositories.refresh.backoff.max". If not specified, the default value is 3600000.
+     *
+     * @return the maximum back-off in milliseconds.
+     */
+    public long getMaxBackoff() {
+        return environment.getProperty("plugins.repositories.refresh.backoff.max", Long.class, 3600000L);
+    }
+}
@@ -1,12 +1,15 @@
 package de.bytestore.plugin.service;
 
 import de.bytestore.plugin.AutowireLoader;
+import de.bytestore.plugin.configuration.CompatibleReleaseFilter;
 import de.bytestore.plugin.configuration.JMIXUpdateManager;
+import de.bytestore.plugin.configuration.PluginUpdateResult;
 import de.bytestore.plugin.configuration.SpringRuntimePluginManager;
+import de.bytestore.plugin.configuration.TimedUpdateRepository;
+import de.bytestore.plugin.configuration.UpdateStatus;
 import de.bytestore.plugin.entity.Plugin;
 import de.bytestore.plugin.entity.Repository;
 import io.jmix.core.UnconstrainedDataManager;
-import org.pf4j.update.DefaultUpdateRepository;
 import org.pf4j.update.PluginInfo;
 import org.pf4j.update.UpdateRepository;
 import org.slf4j.Logger;
@@ -23,8 +26,13 @@ import org.springframework.stereotype.Service;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  * A service class responsible for managing updates to plugins, repositories, and application versions.
@@ -36,6 +44,11 @@ import java.util.List;
 public class UpdateService {
     private static final Logger log = LoggerFactory.getLogger(UpdateService.class);
 
+    /**
+     * The directory inside the plugins home containing the cached repository indexes.
+     */
+    public static final String REPOSITORY_CACHE = ".repositories";
+
     @Autowired
     private UnconstrainedDataManager unconstrainedDataManager;
 
@@ -48,6 +61,9 @@ public class UpdateService {
     @Autowired
     private SpringRuntimePluginManager pluginManager;
 
+    @Autowired
+    private RepositoryRefreshScheduler refreshScheduler;
+
     @Autowired
     private Environment environment;
 
@@ -73,29 +89,46 @@ public class UpdateService {
     }
 
     /**
-     * Updates all outdated plugins by checking the list of available updates and executing the update process
-     * for each outdated plugin found.
+     * Updates all outdated plugins as one transaction, see {@link #updateOutdatedPlugins()}.
      *
-     * @return a boolean value indicating whether the update process encountered any errors.
-     *         Returns true if all updates were successfully applied, otherwise false if at least one update failed.
+     * @return true if all outdated plugins were updated, false otherwise
      */
     public boolean updateAll() {
-        boolean stateIO = true;
+        return this.updateOutdatedPlugins().isSuccessful();
+    }
 
+    /**
+     * Updates all outdated plugins as one transaction, see {@link JMIXUpdateManager#updatePlugins(Map)}.
+     *
+     * The releases of all outdated plugins are downloaded and verified in parallel first. The outdated plugins
+     * and their dependents are then stopped, their archives swapped and started again in dependency order. If
+     * any plugin fails, all plugins are rolled back to their previous releases.
+     *
+     * @return the outcome of every outdated plugin, {@link PluginUpdateResult#isSuccessful()} is true if all
+     *         plugins were updated
+     */
+    public PluginUpdateResult updateOutdatedPlugins() {
         List<PluginInfo> updates = getOutdatedPlugins();
 
         log.debug("Found {} updates", updates.size());
 
+        Map<String, String> versionsIO = new LinkedHashMap<>();
+
         for (PluginInfo plugin : updates) {
             log.debug("Found update for plugin '{}'", plugin.id);
 
-            // Update Plugin.
-            if (this.updateRaw(plugin.id)) {
-                stateIO = false;
-            }
+            versionsIO.put(plugin.id, updateManager.getLastPluginRelease(plugin.id).version);
         }
 
-        return stateIO;
+        // Update Plugins.
+        PluginUpdateResult resultIO = updateManager.updatePlugins(versionsIO);
+
+        if (resultIO.isSuccessful())
+            log.info("Updated {} plugins.", versionsIO.size());
+        else
+            log.error("Cannot update plugins: {}", resultIO);
+
+        return resultIO;
     }
 
     /**
@@ -141,7 +174,17 @@ public class UpdateService {
      * @return true if an update is available for the plugin, false otherwise
      */
     public boolean isUpdateAvailable(Plugin pluginIO) {
-        return updateManager.hasPluginUpdate(pluginIO.getId());
+        return this.getUpdateStatus(pluginIO).isUpdateAvailable();
+    }
+
+    /**
+     * Retrieves the update status of the given plugin from the snapshot computed on the last repository refresh.
+     *
+     * @param pluginIO the plugin for which the update status is to be retrieved
+     * @return the update status of the plugin
+     */
+    public UpdateStatus getUpdateStatus(Plugin pluginIO) {
+        return updateManager.getUpdateStatus(pluginIO.getId());
     }
 
     /**
@@ -151,15 +194,9 @@ public class UpdateService {
      * @return the PluginInfo object representing the update if available, or null if no update is found
      */
     public PluginInfo getUpdateInfo(Plugin pluginIO) {
-        List<PluginInfo> updatesIO = getOutdatedPlugins();
-
-        for (PluginInfo updateIO : updatesIO) {
-            if (updateIO.id == pluginIO.getId()) {
-                return updateIO;
-            }
-        }
+        UpdateStatus statusIO = this.getUpdateStatus(pluginIO);
 
-        return null;
+        return statusIO.isUpdateAvailable() ? statusIO.getInfo() : null;
     }
 
     /**
@@ -201,7 +238,7 @@ public class UpdateService {
      * @return the last release of the specified plugin, or null if no release is found
      */
     public PluginInfo.PluginRelease getLastRelease(Plugin plugin) {
-        return updateManager.getLastPluginRelease(plugin.getId());
+        return this.getUpdateStatus(plugin).getLastRelease();
     }
 
     /**
@@ -209,17 +246,37 @@ public class UpdateService {
      * loaded from the unconstrained data manager. Each additional repository is included in the list
      * if it is marked as enabled. If the repository URI is invalid, a runtime exception is thrown.
      *
+     * Repositories already known to the update manager with the same URI, timeouts, cache directory and release
+     * filter are reused, so they keep their last good index.
+     *
      * @return a list of {@link UpdateRepository} objects, representing the combined repositories from
      *         the update manager and the enabled repositories from the data manager.
      */
     public List<UpdateRepository> getRepositories() {
         List<UpdateRepository> repositoriesIO = new ArrayList<>();
+        Map<String, UpdateRepository> knownIO = new HashMap<>();
+
+        if (updateManager.getRepositories() != null)
+            updateManager.getRepositories().forEach(repositoryIO -> knownIO.put(repositoryIO.getId(), repositoryIO));
+
+        int connectTimeout = this.getConnectTimeout();
+        int readTimeout = this.getReadTimeout();
+        Path cacheIO = this.isRepositoryCache() ? pluginManager.getPluginsRoots().get(0).resolve(REPOSITORY_CACHE) : null;
+        Predicate<PluginInfo.PluginRelease> filterIO = this.getReleaseFilter();
 
         unconstrainedDataManager.load(Repository.class).all().list().forEach(repositoryIO -> {
             try {
                 // Add Repository to List if enabled.
-                if (repositoryIO.getEnabled())
-                    repositoriesIO.add(new DefaultUpdateRepository(repositoryIO.getId().toString(), new URL(repositoryIO.getUri())));
+                if (!repositoryIO.getEnabled())
+                    return;
+
+                URL urlIO = new URL(repositoryIO.getUri());
+
+                // Reuse known Repository to keep its Index.
+                if (knownIO.get(repositoryIO.getId().toString()) instanceof TimedUpdateRepository timedIO && timedIO.isSame(urlIO, connectTimeout, readTimeout, cacheIO, filterIO))
+                    repositoriesIO.add(timedIO);
+                else
+                    repositoriesIO.add(new TimedUpdateRepository(repositoryIO.getId().toString(), urlIO, connectTimeout, readTimeout, cacheIO, filterIO));
             } catch (MalformedURLException e) {
                 throw new RuntimeException(e);
             }
@@ -228,13 +285,37 @@ public class UpdateService {
         return repositoriesIO;
     }
 
+    /**
+     * Creates the filter keeping only the releases compatible with the version of the application, so
+     * incompatible releases of large repository indexes are dropped while reading. The result is computed once
+     * per version constraint.
+     *
+     * @return the release filter, or null if the version check is disabled or the version is unknown
+     */
+    private Predicate<PluginInfo.PluginRelease> getReleaseFilter() {
+        String versionIO = this.getVersion();
+
+        if (!this.isVersionCheck() || "0.0.0".equals(versionIO))
+            return null;
+
+        return new CompatibleReleaseFilter(pluginManager.getVersionManager(), versionIO);
+    }
+
     /**
      * Reloads the repositories by fetching the latest repository data and updating
      * the repository manager. The method retrieves the updated list of repositories
      * and sets them in the update manager.
+     *
+     * If the background refresh is enabled, the repositories are fetched in the background and the known
+     * indexes are used until then.
      */
     public void reloadRepositories() {
-        updateManager.setRepositories(getRepositories());
+        if (refreshScheduler.isEnabled()) {
+            updateManager.replaceRepositories(getRepositories());
+
+            refreshScheduler.refreshNow();
+        } else
+            updateManager.setRepositories(getRepositories());
 
         log.info("Reloaded {} repositories.", updateManager.getRepositories().size());
     }
@@ -243,8 +324,52 @@ public class UpdateService {
      * Refreshes the current state by delegating the refresh operation
      * to the underlying update manager. This method ensures that the
      * latest data or state is retrieved and updated accordingly.
+     *
+     * If the background refresh is enabled, the refresh is only requested and this method returns immediately.
      */
     public void refresh() {
-        updateManager.refresh();
+        if (refreshScheduler.isEnabled())
+            refreshScheduler.refreshNow();
+        else
+            updateManager.refresh();
+    }
+
+    /**
+     * Retrieves how long the last refresh of every repository took.
+     *
+     * @return the durations in milliseconds by repository id, -1 for repositories which were never fetched
+     */
+    public Map<String, Long> getRefreshDurations() {
+        return updateManager.getRefreshDurations();
+    }
+
+    /**
+     * Retrieves the connect timeout used to fetch a repository.
+     * The property key is "plugins.repositories.timeout.connect". If not specified, the default value is 5000.
+     *
+     * @return the connect timeout in milliseconds.
+     */
+    public int getConnectTimeout() {
+        return environment.getProperty("plugins.repositories.timeout.connect", Integer.class, 5000);
+    }
+
+    /**
+     * Retrieves the read timeout used to fetch a repository.
+     * The property key is "plugins.repositories.timeout.read". If not specified, the default value is 10000.
+     *
+     * @return the read timeout in milliseconds.
+     */
+    public int getReadTimeout() {
+        return environment.getProperty("plugins.repositories.timeout.read", Integer.class, 10000);
+    }
+
+    /**
+     * Determines whether the repository indexes are cached on disk and requested conditionally.
+     * The property key is "plugins.repositories.cache". If not specified, the default value is true.
+     *
+     * @return true if repository indexes are cached, false otherwise.
+     */
+    public boolean isRepositoryCache() {
+        return environment.getProperty("plugins.repositories.cache", Boolean.class, true);
     }
 }
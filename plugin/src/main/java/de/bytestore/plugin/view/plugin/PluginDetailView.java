@@ -102,6 +102,11 @@ public class PluginDetailView extends StandardDetailView<Plugin> {
     @ViewComponent
     private Paragraph noSettingsNote;
 
+    // Store resolved Config Extension, so rendering and saving use the same Instance.
+    private PluginConfigExtensionPoint pluginConfig;
+
+    private boolean pluginConfigResolved;
+
     @Subscribe
     public void onBeforeShow(final BeforeShowEvent event) {
         downloadButton.setVisible(pluginService.isPermitted("downloadPlugin"));
@@ -147,7 +152,10 @@ public class PluginDetailView extends StandardDetailView<Plugin> {
     public void onBeforeSave(final BeforeSaveEvent event) {
         log.info("Saving Settings for Plugin: {}.", getEditedEntity().getId());
 
-        this.getPluginConfig().save();
+        PluginConfigExtensionPoint configIO = this.getPluginConfig();
+
+        if (configIO != null)
+            configIO.save();
     }
 
 
@@ -233,8 +241,10 @@ public class PluginDetailView extends StandardDetailView<Plugin> {
      * @return a list of Component objects that represent the plugin's settings UI.
      */
     private List<Component> getSettingsUI() {
-        if (getPluginConfig() != null)
-            return getPluginConfig().render();
+        PluginConfigExtensionPoint configIO = getPluginConfig();
+
+        if (configIO != null)
+            return configIO.render();
         return new ArrayList<>();
     }
 
@@ -243,16 +253,18 @@ public class PluginDetailView extends StandardDetailView<Plugin> {
      *
      * This method fetches an instance of the {@link PluginConfigExtensionPoint} associated with
      * the plugin identified by the ID of the currently edited entity and retrieves the first
-     * extension available for the given plugin.
+     * extension available for the given plugin. The extension is resolved once per view.
      *
      * @return an instance of {@link PluginConfigExtensionPoint*/
     private PluginConfigExtensionPoint getPluginConfig() {
-        List<Object> objectsIO = pluginService.getExtension(PluginConfigExtensionPoint.class, getEditedEntity().getId());
+        if (!pluginConfigResolved) {
+            List<Object> objectsIO = pluginService.getExtension(PluginConfigExtensionPoint.class, getEditedEntity().getId());
+
+            pluginConfig = objectsIO.isEmpty() ? null : (PluginConfigExtensionPoint) objectsIO.get(0);
+            pluginConfigResolved = true;
+        }
 
-        if (objectsIO.isEmpty())
-            return null;
-        else
-            return (PluginConfigExtensionPoint) objectsIO.get(0);
+        return pluginConfig;
     }
 
 }
@@ -1,11 +1,14 @@
 package de.bytestore.plugin.view.plugin;
 
 import com.vaadin.flow.component.ClickEvent;
+import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.shared.Tooltip;
 import com.vaadin.flow.router.Route;
+import de.bytestore.plugin.configuration.CircuitState;
+import de.bytestore.plugin.configuration.UpdateStatus;
 import de.bytestore.plugin.entity.Plugin;
 import de.bytestore.plugin.entity.PluginState;
 import de.bytestore.plugin.service.PluginService;
@@ -23,10 +26,12 @@ import io.jmix.flowui.backgroundtask.BackgroundWorker;
 import io.jmix.flowui.backgroundtask.TaskLifeCycle;
 import io.jmix.flowui.component.grid.DataGrid;
 import io.jmix.flowui.kit.component.button.JmixButton;
+import io.jmix.flowui.model.CollectionLoader;
 import io.jmix.flowui.view.*;
 import org.pf4j.update.PluginInfo;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -72,6 +77,9 @@ public class PluginListView extends StandardListView<Plugin> {
     @ViewComponent
     private DataGrid<Plugin> pluginsDataGrid;
 
+    @ViewComponent
+    private CollectionLoader<Plugin> pluginsDl;
+
     @Autowired
     private Messages messages;
 
@@ -127,11 +135,14 @@ public class PluginListView extends StandardListView<Plugin> {
             // Add Badge Theme.
             spanIO.getElement().getThemeList().add("badge");
 
-            if (updateService.isUpdateAvailable(plugin) && pluginService.isPermitted("update")) {
+            // Read Update Status from Snapshot.
+            UpdateStatus statusIO = updateService.getUpdateStatus(plugin);
+
+            if (statusIO.isUpdateAvailable() && pluginService.isPermitted("update")) {
                 spanIO.setText(messages.getMessage("updateAvailable"));
                 colorIO = "warning";
 
-                PluginInfo.PluginRelease releaseIO = updateService.getLastRelease(plugin);
+                PluginInfo.PluginRelease releaseIO = statusIO.getLastRelease();
 
                 // Add Update Tooltip.
                 Tooltip.forComponent(spanIO).withText(messageBundle.formatMessage("updateAvailableTooltip", plugin.getId(), plugin.getVersion(), releaseIO.version));
@@ -196,6 +207,36 @@ public class PluginListView extends StandardListView<Plugin> {
         }).setHeader(messageBundle.getMessage("state"));
 
 
+        // Show Circuit Breaker State if Extensions are guarded.
+        if (pluginService.isExtensionGuard()) {
+            pluginsDataGrid.addComponentColumn(plugin -> {
+                CircuitState stateIO = pluginService.getCircuitState(plugin);
+                Span spanIO = new Span(messages.getMessage(stateIO));
+
+                // Add Badge Theme.
+                spanIO.getElement().getThemeList().add("badge");
+
+                // Set Badge Color.
+                spanIO.getElement().getThemeList().add(getCircuitColor(stateIO));
+
+                if (stateIO != CircuitState.CLOSED) {
+                    // Add Reset Tooltip.
+                    Tooltip.forComponent(spanIO).withText(messageBundle.formatMessage("circuitOpenTooltip", plugin.getId()));
+
+                    // Close Circuit on Click.
+                    if (pluginService.isPermitted("start")) {
+                        spanIO.addClickListener(clickEvent -> {
+                            pluginService.resetCircuit(plugin);
+
+                            pluginsDataGrid.getDataProvider().refreshItem(plugin);
+                        });
+                    }
+                }
+
+                return spanIO;
+            }).setHeader(messageBundle.getMessage("circuit"));
+        }
+
         // Show Version Status if Version Check is enabled.
         if (updateService.isVersionCheck()) {
             pluginsDataGrid.addComponentColumn(plugin -> {
@@ -233,6 +274,29 @@ public class PluginListView extends StandardListView<Plugin> {
     public void onBeforeShow(final BeforeShowEvent event) {
         setActionsVisibility();
         setButtonVisibility();
+        awaitPlugins();
+    }
+
+    /**
+     * Shows a warming up notification while plugins are loaded in the background and reloads the
+     * plugin list once the bootstrap of {@link PluginService} has finished.
+     */
+    private void awaitPlugins() {
+        if (pluginService.isReady())
+            return;
+
+        notifications.create(messageBundle.getMessage("pluginsWarmingUp")).withType(Notifications.Type.WARNING).withPosition(Notification.Position.BOTTOM_END).show();
+
+        UI uiIO = UI.getCurrent();
+
+        pluginService.getBootstrap().whenComplete((resultIO, throwableIO) -> uiIO.access(() -> {
+            if (!isAttached())
+                return;
+
+            pluginsDl.load();
+
+            notifications.create(messageBundle.getMessage("pluginsReady")).withType(Notifications.Type.SUCCESS).withPosition(Notification.Position.BOTTOM_END).show();
+        }));
     }
 
     /**
@@ -295,10 +359,34 @@ public class PluginListView extends StandardListView<Plugin> {
         }
     }
 
+    /**
+     * Determines the color theme associated with a given {@link CircuitState}.
+     *
+     * @param stateIO the circuit state of the plugin for which a corresponding color is required.
+     * @return "success" for CLOSED, "error" for OPEN and "contrast" for HALF_OPEN.
+     */
+    private String getCircuitColor(CircuitState stateIO) {
+        switch (stateIO) {
+            case CLOSED -> {
+                return "success";
+            }
+            case OPEN -> {
+                return "error";
+            }
+            default -> {
+                return "contrast";
+            }
+        }
+    }
+
     @Install(to = "pluginsDl", target = Target.DATA_LOADER)
     protected List<Plugin> pluginsDlLoadDelegate(LoadContext<Plugin> loadContext) {
         // Here you can load entities from an external storage.
         // Set the loaded entities to the not-new state using EntityStates.setNew(entity, false).
+        // Show no Plugins while they are warming up.
+        if (!pluginService.isReady())
+            return new ArrayList<>();
+
         return pluginService.castPlugins();
     }
 
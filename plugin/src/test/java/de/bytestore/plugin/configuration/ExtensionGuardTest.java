@@ -0,0 +1,102 @@
+package de.bytestore.plugin.configuration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pf4j.DefaultPluginManager;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that timed calls of the {@link ExtensionGuard} keep the thread bound state of the caller.
+ */
+class ExtensionGuardTest {
+    @TempDir
+    Path directoryIO;
+
+    private ExtensionGuard guardIO;
+
+    @BeforeEach
+    void createGuard() {
+        guardIO = new ExtensionGuard(new DefaultPluginManager(directoryIO), new ExtensionDispatcher());
+
+        guardIO.setEnabled(true);
+        guardIO.setTimeout(5000);
+    }
+
+    @AfterEach
+    void shutdownGuard() {
+        guardIO.shutdown();
+
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void passesSecurityContextToPoolThread() {
+        Probe probeIO = guardIO.guard(Probe.class, new CurrentProbe());
+        SecurityContext contextIO = SecurityContextHolder.createEmptyContext();
+
+        contextIO.setAuthentication(new TestingAuthenticationToken("admin", null));
+        SecurityContextHolder.setContext(contextIO);
+
+        String[] resultIO = probeIO.current();
+
+        assertTrue(resultIO[0].startsWith("plugin-extension-"));
+        assertEquals("admin", resultIO[1]);
+
+        // The Pool Thread doesn't keep the Authentication of a previous Caller.
+        SecurityContextHolder.clearContext();
+
+        resultIO = probeIO.current();
+
+        assertTrue(resultIO[0].startsWith("plugin-extension-"));
+        assertNull(resultIO[1]);
+    }
+
+    @Test
+    void passesContextClassLoaderToPoolThread() {
+        Probe probeIO = guardIO.guard(Probe.class, new CurrentProbe());
+        Thread threadIO = Thread.currentThread();
+        ClassLoader previousIO = threadIO.getContextClassLoader();
+        ClassLoader loaderIO = new ClassLoader(previousIO) {
+            @Override
+            public String toString() {
+                return "caller";
+            }
+        };
+
+        threadIO.setContextClassLoader(loaderIO);
+
+        try {
+            assertEquals("caller", probeIO.current()[2]);
+        } finally {
+            threadIO.setContextClassLoader(previousIO);
+        }
+    }
+
+    /**
+     * The extension point reporting the state of the calling thread.
+     */
+    public interface Probe {
+        String[] current();
+    }
+
+    /**
+     * Reports the thread name, the authenticated user and the context classloader of the executing thread.
+     */
+    public static class CurrentProbe implements Probe {
+        @Override
+        public String[] current() {
+            Authentication authenticationIO = SecurityContextHolder.getContext().getAuthentication();
+
+            return new String[]{Thread.currentThread().getName(), authenticationIO != null ? authenticationIO.getName() : null, String.valueOf(Thread.currentThread().getContextClassLoader())};
+        }
+    }
+}
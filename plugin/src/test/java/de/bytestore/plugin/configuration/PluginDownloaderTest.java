@@ -0,0 +1,291 @@
+package de.bytestore.plugin.configuration;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pf4j.update.PluginInfo;
+import org.pf4j.update.VerifyException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the {@link PluginDownloader} against a local HTTP server supporting Range and If-Range requests.
+ */
+class PluginDownloaderTest {
+    @TempDir
+    Path directoryIO;
+
+    private HttpServer serverIO;
+
+    private volatile byte[] contentIO;
+
+    private volatile String etagIO;
+
+    // Store Number of Bytes sent before the next Response is cut off.
+    private volatile int cutIO = -1;
+
+    // Store Offset of a Range answered instead of the requested one, or -1.
+    private volatile int shiftIO = -1;
+
+    // Store Range and If-Range Header of every Request.
+    private final List<String[]> requestsIO = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        this.contentIO = random(300_000, 1);
+        this.etagIO = "\"v1\"";
+
+        serverIO = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverIO.createContext("/", this::handle);
+        serverIO.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        serverIO.stop(0);
+    }
+
+    @Test
+    void resumesInterruptedDownloadWithRange() throws Exception {
+        PluginDownloader downloaderIO = new PluginDownloader(directoryIO, 2000, 2000, 0);
+
+        this.cutIO = 100_000;
+
+        assertThrows(IOException.class, () -> downloaderIO.download("test", this.release(sha512(contentIO))));
+
+        Path archiveIO = downloaderIO.download("test", this.release(sha512(contentIO)));
+
+        assertArrayEquals(contentIO, Files.readAllBytes(archiveIO));
+        assertEquals("bytes=100000-", requestsIO.get(1)[0]);
+        assertEquals("\"v1\"", requestsIO.get(1)[1]);
+    }
+
+    @Test
+    void restartsDownloadIfArchiveChanged() throws Exception {
+        PluginDownloader downloaderIO = new PluginDownloader(directoryIO, 2000, 2000, 0);
+
+        this.cutIO = 100_000;
+
+        assertThrows(IOException.class, () -> downloaderIO.download("test", this.release(null)));
+
+        // Republish the Archive, If-Range doesn't match anymore.
+        this.contentIO = random(200_000, 2);
+        this.etagIO = "\"v2\"";
+
+        Path archiveIO = downloaderIO.download("test", this.release(null));
+
+        assertArrayEquals(contentIO, Files.readAllBytes(archiveIO));
+        assertEquals("bytes=100000-", requestsIO.get(1)[0]);
+    }
+
+    @Test
+    void doesNotResumeWithoutValidator() throws Exception {
+        PluginDownloader downloaderIO = new PluginDownloader(directoryIO, 2000, 2000, 0);
+
+        this.etagIO = null;
+        this.cutIO = 100_000;
+
+        assertThrows(IOException.class, () -> downloaderIO.download("test", this.release(null)));
+
+        Path archiveIO = downloaderIO.download("test", this.release(null));
+
+        assertArrayEquals(contentIO, Files.readAllBytes(archiveIO));
+        assertNull(requestsIO.get(1)[0]);
+    }
+
+    @Test
+    void rejectsChecksumMismatch() throws Exception {
+        PluginDownloader downloaderIO = new PluginDownloader(directoryIO, 2000, 2000, 2);
+
+        assertThrows(VerifyException.class, () -> downloaderIO.download("test", this.release(sha512(random(10, 3)))));
+
+        assertEquals(1, requestsIO.size());
+
+        try (var filesIO = Files.walk(directoryIO)) {
+            assertTrue(filesIO.noneMatch(Files::isRegularFile));
+        }
+    }
+
+    @Test
+    void restartsAfterUnsatisfiableRange() throws Exception {
+        PluginDownloader downloaderIO = new PluginDownloader(directoryIO, 2000, 2000, 1);
+
+        this.cutIO = 100_000;
+
+        assertThrows(IOException.class, () -> new PluginDownloader(directoryIO, 2000, 2000, 0).download("test", this.release(null)));
+
+        // Shrink the Archive under the same ETag, the Range starts behind its End.
+        this.contentIO = random(50_000, 4);
+
+        Path archiveIO = downloaderIO.download("test", this.release(sha512(contentIO)));
+
+        assertArrayEquals(contentIO, Files.readAllBytes(archiveIO));
+        assertEquals("bytes=100000-", requestsIO.get(1)[0]);
+        assertNull(requestsIO.get(2)[0]);
+    }
+
+    @Test
+    void restartsAfterUnexpectedRange() throws Exception {
+        PluginDownloader downloaderIO = new PluginDownloader(directoryIO, 2000, 2000, 0);
+
+        this.cutIO = 100_000;
+
+        assertThrows(IOException.class, () -> downloaderIO.download("test", this.release(null)));
+
+        // Answer the Range Request with a Range starting elsewhere.
+        this.shiftIO = 50_000;
+
+        Path archiveIO = downloaderIO.download("test", this.release(null));
+
+        assertArrayEquals(contentIO, Files.readAllBytes(archiveIO));
+        assertEquals("bytes=100000-", requestsIO.get(1)[0]);
+        assertNull(requestsIO.get(2)[0]);
+    }
+
+    @Test
+    void returnsOwnArchiveToEveryCaller() throws Exception {
+        PluginDownloader downloaderIO = new PluginDownloader(directoryIO, 2000, 2000, 0);
+
+        Path firstIO = downloaderIO.download("test", this.release(sha512(contentIO)));
+        Path secondIO = downloaderIO.download("test", this.release(sha512(contentIO)));
+
+        assertNotEquals(firstIO, secondIO);
+        assertEquals(firstIO.getFileName(), secondIO.getFileName());
+
+        // Discarding one Archive keeps the other.
+        downloaderIO.discard(firstIO);
+
+        assertFalse(Files.exists(firstIO));
+        assertArrayEquals(contentIO, Files.readAllBytes(secondIO));
+
+        downloaderIO.discard(secondIO);
+
+        try (var filesIO = Files.list(directoryIO)) {
+            assertEquals(0, filesIO.count());
+        }
+    }
+
+    @Test
+    void serializesConcurrentDownloadsOfSameRelease() throws Exception {
+        PluginDownloader downloaderIO = new PluginDownloader(directoryIO, 2000, 2000, 0);
+        ExecutorService executorIO = Executors.newFixedThreadPool(4);
+        CountDownLatch startIO = new CountDownLatch(1);
+        CountDownLatch downloadedIO = new CountDownLatch(4);
+
+        try {
+            List<Future<byte[]>> futuresIO = new ArrayList<>();
+
+            for (int indexIO = 0; indexIO < 4; indexIO++) {
+                futuresIO.add(executorIO.submit(() -> {
+                    startIO.await();
+
+                    Path archiveIO = downloaderIO.download("test", this.release(sha512(contentIO)));
+
+                    // Discard only once every Caller holds its Archive.
+                    downloadedIO.countDown();
+                    downloadedIO.await();
+
+                    byte[] bytesIO = Files.readAllBytes(archiveIO);
+
+                    downloaderIO.discard(archiveIO);
+
+                    return bytesIO;
+                }));
+            }
+
+            startIO.countDown();
+
+            for (Future<byte[]> futureIO : futuresIO) {
+                assertArrayEquals(contentIO, futureIO.get(10, TimeUnit.SECONDS));
+            }
+
+            try (var filesIO = Files.list(directoryIO)) {
+                assertEquals(0, filesIO.count());
+            }
+        } finally {
+            executorIO.shutdownNow();
+        }
+    }
+
+    /**
+     * Answers a request like a static file server: Range requests are served partially if If-Range matches, a
+     * Range behind the end is answered with 416. A set cut off ends the next response early, a set shift answers
+     * the next Range request with another range.
+     *
+     * @param exchangeIO the request
+     * @throws IOException if the response cannot be written
+     */
+    private void handle(HttpExchange exchangeIO) throws IOException {
+        String rangeIO = exchangeIO.getRequestHeaders().getFirst("Range");
+        String ifRangeIO = exchangeIO.getRequestHeaders().getFirst("If-Range");
+        byte[] bytesIO = contentIO;
+        String currentIO = etagIO;
+        int offsetIO = 0;
+
+        requestsIO.add(new String[]{rangeIO, ifRangeIO});
+
+        if (currentIO != null)
+            exchangeIO.getResponseHeaders().set("ETag", currentIO);
+
+        if (rangeIO != null && (ifRangeIO == null || ifRangeIO.equals(currentIO))) {
+            offsetIO = shiftIO >= 0 ? shiftIO : Integer.parseInt(rangeIO.substring("bytes=".length(), rangeIO.length() - 1));
+
+            this.shiftIO = -1;
+
+            if (offsetIO >= bytesIO.length) {
+                exchangeIO.sendResponseHeaders(416, -1);
+                exchangeIO.close();
+
+                return;
+            }
+
+            exchangeIO.getResponseHeaders().set("Content-Range", "bytes " + offsetIO + "-" + (bytesIO.length - 1) + "/" + bytesIO.length);
+        }
+
+        exchangeIO.sendResponseHeaders(exchangeIO.getResponseHeaders().containsKey("Content-Range") ? 206 : 200, bytesIO.length - offsetIO);
+
+        int endIO = cutIO >= 0 ? Math.min(offsetIO + cutIO, bytesIO.length) : bytesIO.length;
+
+        this.cutIO = -1;
+
+        try (OutputStream outputIO = exchangeIO.getResponseBody()) {
+            outputIO.write(bytesIO, offsetIO, endIO - offsetIO);
+        } catch (IOException ignored) {
+            // Client closed the Connection.
+        }
+    }
+
+    private PluginInfo.PluginRelease release(String sha512IO) {
+        PluginInfo.PluginRelease releaseIO = new PluginInfo.PluginRelease();
+
+        releaseIO.url = "http://127.0.0.1:" + serverIO.getAddress().getPort() + "/test-1.0.0.jar";
+        releaseIO.version = "1.0.0";
+        releaseIO.sha512sum = sha512IO;
+
+        return releaseIO;
+    }
+
+    private static byte[] random(int sizeIO, long seedIO) {
+        byte[] bytesIO = new byte[sizeIO];
+
+        new Random(seedIO).nextBytes(bytesIO);
+
+        return bytesIO;
+    }
+
+    private static String sha512(byte[] bytesIO) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-512").digest(bytesIO));
+    }
+}
@@ -0,0 +1,129 @@
+package de.bytestore.plugin.configuration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+import org.pf4j.DefaultVersionManager;
+import org.pf4j.VersionManager;
+import org.pf4j.update.DefaultUpdateRepository;
+import org.pf4j.update.PluginInfo;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the heap used reading a large plugins.json by pf4j with the streaming {@link TimedUpdateRepository}.
+ *
+ * The index holds 5,000 plugins with 30 releases each, half of them requiring another system version. Run with
+ * PLUGINS_BENCHMARK=true, the results are printed per variant.
+ */
+@EnabledIfEnvironmentVariable(named = "PLUGINS_BENCHMARK", matches = "true")
+class PluginIndexReaderBenchmark {
+    private static final int PLUGINS = 5000;
+
+    private static final int RELEASES = 30;
+
+    @TempDir
+    Path directoryIO;
+
+    @Test
+    void streamingReadAllocatesLess() throws Exception {
+        this.writeIndex();
+
+        VersionManager versionIO = new DefaultVersionManager();
+        Map<String, Boolean> resultsIO = new ConcurrentHashMap<>();
+        Predicate<PluginInfo.PluginRelease> filterIO = releaseIO -> resultsIO.computeIfAbsent(releaseIO.requires, requiresIO -> versionIO.checkVersionConstraint("1.0.0", requiresIO));
+
+        // Warm up both Variants.
+        new DefaultUpdateRepository("default", directoryIO.toUri().toURL()).getPlugins();
+        new TimedUpdateRepository("timed", directoryIO.toUri().toURL(), 1000, 1000, null, filterIO).getPlugins();
+
+        long[] defaultIO = measure("pf4j", () -> new DefaultUpdateRepository("default", this.url()).getPlugins());
+        long[] streamingIO = measure("streaming", () -> new TimedUpdateRepository("timed", this.url(), 1000, 1000, null, filterIO).getPlugins());
+
+        assertTrue(streamingIO[0] < defaultIO[0], "Streaming read allocated more than pf4j");
+    }
+
+    /**
+     * Reads the index and prints the allocated bytes, the heap peak and the kept releases.
+     *
+     * @param nameIO    the name of the variant
+     * @param supplierIO the read
+     * @return the allocated bytes and the heap peak
+     */
+    private static long[] measure(String nameIO, Supplier<Map<String, PluginInfo>> supplierIO) throws InterruptedException {
+        com.sun.management.ThreadMXBean threadIO = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        System.gc();
+        Thread.sleep(200);
+
+        for (MemoryPoolMXBean poolIO : ManagementFactory.getMemoryPoolMXBeans())
+            poolIO.resetPeakUsage();
+
+        long allocatedIO = threadIO.getThreadAllocatedBytes(Thread.currentThread().getId());
+        long startIO = System.nanoTime();
+
+        Map<String, PluginInfo> pluginsIO = supplierIO.get();
+
+        long timeIO = (System.nanoTime() - startIO) / 1_000_000;
+
+        allocatedIO = threadIO.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedIO;
+
+        long peakIO = 0;
+
+        for (MemoryPoolMXBean poolIO : ManagementFactory.getMemoryPoolMXBeans())
+            if (poolIO.getType() == MemoryType.HEAP)
+                peakIO += poolIO.getPeakUsage().getUsed();
+
+        int releasesIO = pluginsIO.values().stream().mapToInt(infoIO -> infoIO.releases.size()).sum();
+
+        System.out.printf("%s: plugins=%d releases=%d time=%d ms allocated=%d MB peak=%d MB%n", nameIO, pluginsIO.size(), releasesIO, timeIO, allocatedIO >> 20, peakIO >> 20);
+
+        return new long[]{allocatedIO, peakIO};
+    }
+
+    private java.net.URL url() {
+        try {
+            return directoryIO.toUri().toURL();
+        } catch (java.net.MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void writeIndex() throws Exception {
+        StringBuilder builderIO = new StringBuilder("[");
+
+        for (int pluginIO = 0; pluginIO < PLUGINS; pluginIO++) {
+            if (pluginIO > 0)
+                builderIO.append(',');
+
+            builderIO.append("{\"id\":\"plugin-").append(pluginIO).append("\",\"name\":\"Plugin ").append(pluginIO)
+                    .append("\",\"description\":\"A fairly long description of plugin number ").append(pluginIO)
+                    .append("\",\"provider\":\"ACME\",\"projectUrl\":\"https://example.com/p").append(pluginIO).append("\",\"releases\":[");
+
+            for (int releaseIO = 0; releaseIO < RELEASES; releaseIO++) {
+                if (releaseIO > 0)
+                    builderIO.append(',');
+
+                builderIO.append("{\"version\":\"").append(releaseIO / 10).append('.').append(releaseIO % 10)
+                        .append(".0\",\"date\":\"2024-0").append(1 + releaseIO % 9).append("-1").append(releaseIO % 10)
+                        .append("\",\"requires\":\"").append(releaseIO % 2 == 0 ? ">=1.0.0" : ">=9.0.0")
+                        .append("\",\"url\":\"plugin-").append(pluginIO).append('-').append(releaseIO)
+                        .append(".zip\",\"sha512sum\":\"").append(Integer.toHexString(pluginIO * 31 + releaseIO)).append("\"}");
+            }
+
+            builderIO.append("]}");
+        }
+
+        Files.writeString(directoryIO.resolve("plugins.json"), builderIO.append(']'));
+    }
+}
@@ -0,0 +1,100 @@
+package de.bytestore.plugin.configuration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pf4j.DefaultVersionManager;
+import org.pf4j.VersionManager;
+import org.pf4j.update.DefaultUpdateRepository;
+import org.pf4j.update.PluginInfo;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the streaming {@link PluginIndexReader} and the {@link TimedUpdateRepository} reading with it against the
+ * plugins.json parsing of pf4j.
+ */
+class PluginIndexReaderTest {
+    private static final String INDEX = """
+            [
+              {
+                "id": "alpha",
+                "name": "Alpha",
+                "description": "First Plugin",
+                "provider": "ACME",
+                "projectUrl": "https://example.com/alpha",
+                "unknown": {"nested": [1, 2, {"deep": true}]},
+                "releases": [
+                  {"version": "1.0.0", "date": "2024-01-10", "requires": ">=1.0.0", "url": "alpha-1.0.0.zip", "sha512sum": "abc"},
+                  {"version": "1.1.0", "date": "2024-02-10", "requires": "abc", "url": "alpha-1.1.0.zip"},
+                  {"version": "1.2.0", "date": "2024-03-10", "requires": ">=1.0.0 &&", "url": "alpha-1.2.0.zip"},
+                  {"version": "2.0.0", "date": "2024-04-10", "requires": ">=9.0.0", "url": "alpha-2.0.0.zip"}
+                ]
+              },
+              {
+                "id": "beta",
+                "releases": [
+                  {"version": "0.1.0", "date": "2023-12-01", "url": "beta-0.1.0.zip"}
+                ]
+              }
+            ]
+            """;
+
+    @TempDir
+    Path directoryIO;
+
+    @Test
+    void readsLikeDefaultUpdateRepository() throws Exception {
+        Files.writeString(directoryIO.resolve("plugins.json"), INDEX);
+
+        Map<String, PluginInfo> expectedIO = new DefaultUpdateRepository("default", directoryIO.toUri().toURL()).getPlugins();
+        Map<String, PluginInfo> actualIO = new TimedUpdateRepository("timed", directoryIO.toUri().toURL(), 1000, 1000, null, null).getPlugins();
+
+        assertEquals(expectedIO.size(), actualIO.size());
+
+        for (PluginInfo infoIO : actualIO.values()) {
+            PluginInfo otherIO = expectedIO.get(infoIO.id);
+
+            assertNotNull(otherIO);
+            assertEquals(otherIO.name, infoIO.name);
+            assertEquals(otherIO.description, infoIO.description);
+            assertEquals(otherIO.provider, infoIO.provider);
+            assertEquals(otherIO.projectUrl, infoIO.projectUrl);
+            assertEquals(otherIO.releases.size(), infoIO.releases.size());
+
+            for (int indexIO = 0; indexIO < infoIO.releases.size(); indexIO++) {
+                PluginInfo.PluginRelease releaseIO = infoIO.releases.get(indexIO);
+                PluginInfo.PluginRelease otherReleaseIO = otherIO.releases.get(indexIO);
+
+                assertEquals(otherReleaseIO.version, releaseIO.version);
+                assertEquals(otherReleaseIO.date, releaseIO.date);
+                assertEquals(otherReleaseIO.requires, releaseIO.requires);
+                assertEquals(otherReleaseIO.url, releaseIO.url);
+                assertEquals(otherReleaseIO.sha512sum, releaseIO.sha512sum);
+            }
+        }
+    }
+
+    @Test
+    void dropsOnlyReleasesWithMalformedRequirement() throws Exception {
+        VersionManager versionIO = new DefaultVersionManager();
+        Predicate<PluginInfo.PluginRelease> filterIO = releaseIO -> releaseIO.requires == null || versionIO.checkVersionConstraint("1.0.0", releaseIO.requires);
+
+        List<PluginInfo> pluginsIO = new PluginIndexReader(filterIO).read(stream(INDEX));
+
+        assertEquals(2, pluginsIO.size());
+        assertEquals(List.of("1.0.0"), pluginsIO.get(0).releases.stream().map(releaseIO -> releaseIO.version).toList());
+        assertEquals(List.of("0.1.0"), pluginsIO.get(1).releases.stream().map(releaseIO -> releaseIO.version).toList());
+    }
+
+    private static ByteArrayInputStream stream(String contentIO) {
+        return new ByteArrayInputStream(contentIO.getBytes(StandardCharsets.UTF_8));
+    }
+}
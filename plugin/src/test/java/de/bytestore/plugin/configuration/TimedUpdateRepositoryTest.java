@@ -0,0 +1,168 @@
+package de.bytestore.plugin.configuration;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pf4j.DefaultVersionManager;
+import org.pf4j.VersionManager;
+import org.pf4j.update.PluginInfo;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the {@link TimedUpdateRepository} against a local HTTP server answering conditional requests.
+ */
+class TimedUpdateRepositoryTest {
+    private static final String INDEX = """
+            [
+              {
+                "id": "alpha",
+                "releases": [
+                  {"version": "1.0.0", "date": "2024-01-10", "requires": ">=1.0.0", "url": "alpha-1.0.0.zip"},
+                  {"version": "2.0.0", "date": "2024-04-10", "requires": ">=2.0.0", "url": "alpha-2.0.0.zip"}
+                ]
+              }
+            ]
+            """;
+
+    @TempDir
+    Path directoryIO;
+
+    private HttpServer serverIO;
+
+    private URL urlIO;
+
+    // Store If-None-Match Header and Response Code of every Request.
+    private final List<String[]> requestsIO = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        serverIO = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverIO.createContext("/", this::handle);
+        serverIO.start();
+
+        this.urlIO = new URL("http://127.0.0.1:" + serverIO.getAddress().getPort() + "/");
+    }
+
+    @AfterEach
+    void stopServer() {
+        serverIO.stop(0);
+    }
+
+    @Test
+    void servesCachedIndexIfNotModified() {
+        Path cacheIO = directoryIO.resolve("cache");
+        TimedUpdateRepository repositoryIO = new TimedUpdateRepository("test", urlIO, 2000, 2000, cacheIO);
+
+        assertTrue(repositoryIO.fetch());
+
+        Map<String, PluginInfo> pluginsIO = repositoryIO.getPlugins();
+
+        // Keep the parsed Index if the cached one is not modified.
+        assertTrue(repositoryIO.fetch());
+        assertSame(pluginsIO, repositoryIO.getPlugins());
+
+        // Read the cached Index after a Restart.
+        TimedUpdateRepository restartedIO = new TimedUpdateRepository("test", urlIO, 2000, 2000, cacheIO);
+
+        assertTrue(restartedIO.fetch());
+        assertEquals(2, restartedIO.getPlugins().get("alpha").releases.size());
+        assertEquals(urlIO + "alpha-1.0.0.zip", restartedIO.getPlugins().get("alpha").releases.get(0).url);
+
+        assertEquals(3, requestsIO.size());
+        assertNull(requestsIO.get(0)[0]);
+        assertEquals("\"v1\"", requestsIO.get(1)[0]);
+        assertEquals("304", requestsIO.get(1)[1]);
+        assertEquals("304", requestsIO.get(2)[1]);
+    }
+
+    @Test
+    void keepsLastGoodIndexIfUnreachable() {
+        Path cacheIO = directoryIO.resolve("cache");
+        TimedUpdateRepository repositoryIO = new TimedUpdateRepository("test", urlIO, 500, 500, cacheIO);
+
+        assertTrue(repositoryIO.fetch());
+
+        serverIO.stop(0);
+
+        Map<String, PluginInfo> pluginsIO = repositoryIO.getPlugins();
+
+        repositoryIO.refresh();
+
+        assertSame(pluginsIO, repositoryIO.getPlugins());
+        assertFalse(repositoryIO.isAvailable());
+        assertNotNull(repositoryIO.getLastError());
+        assertEquals(1, repositoryIO.getFailures());
+
+        // Serve the cached Index if no Index is known yet.
+        TimedUpdateRepository restartedIO = new TimedUpdateRepository("test", urlIO, 500, 500, cacheIO);
+
+        assertFalse(restartedIO.fetch());
+        assertTrue(restartedIO.getPlugins().containsKey("alpha"));
+
+        // Serve an empty Index without Cache.
+        TimedUpdateRepository uncachedIO = new TimedUpdateRepository("test", urlIO, 500, 500, null);
+
+        assertFalse(uncachedIO.fetch());
+        assertTrue(uncachedIO.getPlugins().isEmpty());
+    }
+
+    @Test
+    void reusesOnlyWithSameCacheAndFilter() {
+        VersionManager managerIO = new DefaultVersionManager();
+        Path cacheIO = directoryIO.resolve("cache");
+        TimedUpdateRepository repositoryIO = new TimedUpdateRepository("test", urlIO, 2000, 2000, cacheIO, new CompatibleReleaseFilter(managerIO, "1.0.0"));
+
+        assertTrue(repositoryIO.isSame(urlIO, 2000, 2000, cacheIO, new CompatibleReleaseFilter(managerIO, "1.0.0")));
+        assertFalse(repositoryIO.isSame(urlIO, 2000, 2000, null, new CompatibleReleaseFilter(managerIO, "1.0.0")));
+        assertFalse(repositoryIO.isSame(urlIO, 2000, 2000, cacheIO, new CompatibleReleaseFilter(managerIO, "2.0.0")));
+        assertFalse(repositoryIO.isSame(urlIO, 2000, 2000, cacheIO, null));
+        assertFalse(repositoryIO.isSame(urlIO, 1000, 2000, cacheIO, new CompatibleReleaseFilter(managerIO, "1.0.0")));
+
+        // Releases are filtered for the Version of the Application.
+        assertEquals(1, repositoryIO.getPlugins().get("alpha").releases.size());
+    }
+
+    /**
+     * Answers requests for the plugins.json with an ETag, a matching If-None-Match is answered with 304.
+     *
+     * @param exchangeIO the request
+     * @throws IOException if the response cannot be written
+     */
+    private void handle(HttpExchange exchangeIO) throws IOException {
+        String matchIO = exchangeIO.getRequestHeaders().getFirst("If-None-Match");
+        byte[] bytesIO = INDEX.getBytes(StandardCharsets.UTF_8);
+
+        exchangeIO.getResponseHeaders().set("ETag", "\"v1\"");
+
+        if ("\"v1\"".equals(matchIO)) {
+            requestsIO.add(new String[]{matchIO, "304"});
+
+            exchangeIO.sendResponseHeaders(304, -1);
+            exchangeIO.close();
+
+            return;
+        }
+
+        requestsIO.add(new String[]{matchIO, "200"});
+
+        exchangeIO.sendResponseHeaders(200, bytesIO.length);
+
+        try (OutputStream outputIO = exchangeIO.getResponseBody()) {
+            outputIO.write(bytesIO);
+        }
+    }
+}
@@ -6,8 +6,6 @@ import org.pf4j.PluginWrapper;
 import org.pf4j.spring.SpringPlugin;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.ApplicationContext;
-import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
@@ -37,6 +35,9 @@ public class WelcomePlugin extends JmixPlugin {
      */
     public WelcomePlugin(PluginWrapper wrapper) {
         super(wrapper);
+
+        // Register Extensions and Components, the Context is refreshed once.
+        getContextBuilder().register(ConfigExtension.class).scan("de.bytestore.welcome");
     }
 
     /**
@@ -79,25 +80,4 @@ public class WelcomePlugin extends JmixPlugin {
     public void stop() {
         log.info("WelcomePlugin.stop()");
     }
-
-    /**
-     * Creates and initializes the application context specific to the WelcomePlugin.
-     * This method configures a Spring `AnnotationConfigApplicationContext` with a custom
-     * class loader, registers additional plugin-specific extensions, and scans a base
-     * package for components. Once everything is configured, the context is refreshed
-     * to complete its initialization.
-     *
-     * @return the fully initialized Spring `ApplicationContext` for the WelcomePlugin.
-     */
-    @Override
-    protected ApplicationContext createApplicationContext() {
-        AnnotationConfigApplicationContext applicationContext = new AnnotationConfigApplicationContext();
-        applicationContext.setClassLoader(getWrapper().getPluginClassLoader());
-        applicationContext.register(ConfigExtension.class);
-        applicationContext.scan("de.bytestore.welcome");
-
-        applicationContext.refresh();
-
-        return applicationContext;
-    }
 }
\ No newline at end of file
@@ -18,17 +18,17 @@ import java.util.List;
  * This class provides mechanisms to save plugin settings and render configuration UI components.
  *
  * It uses the ConfigService for persisting configuration data and retrieving it as required.
- * Additionally, this class demonstrates the integration of external beans and components,
- * with a workaround for using an externally loaded PluginService via {@link AutowireLoader}.
+ * Additionally, this class demonstrates the integration of external beans and components:
+ * the ConfigService is injected if it is exported to the plugin context ({@code plugins.context.exports}),
+ * otherwise it is looked up once via {@link AutowireLoader}.
  */
 @Component
 @Extension
 public class ConfigExtension implements PluginConfigExtensionPoint {
 
-    // Current Workaround for using external Beans...
-    // https://github.com/Gamer08YT/hostinger2024/blob/4062136bc1a8aa33bc80ba7ab9ced46892cb04b2/src/main/java/de/bytestore/hostinger/AutowireLoader.java#L19
-    // https://byte-storede.github.io/Hostinger-Docs/autowired.html
-    private static final ConfigService configService = AutowireLoader.getBean(ConfigService.class);
+    // Injected if exported by the Host, see plugins.context.exports.
+    @Autowired(required = false)
+    private ConfigService configService;
 
     // Create Dummy Field.
     private final TextField username = new TextField("Username");
@@ -44,8 +44,8 @@ public class ConfigExtension implements PluginConfigExtensionPoint {
      */
     @Override
     public void save() {
-        configService.setValue("welcome.username", username.getValue());
-        configService.setValue("welcome.debug", checkbox.getValue());
+        getConfigService().setValue("welcome.username", username.getValue());
+        getConfigService().setValue("welcome.debug", checkbox.getValue());
     }
 
     /**
@@ -57,12 +57,26 @@ public class ConfigExtension implements PluginConfigExtensionPoint {
     public List<com.vaadin.flow.component.Component> render() {
         List<com.vaadin.flow.component.Component> componentsIO = new ArrayList<>();
 
-        username.setValue((String) configService.getValue("welcome.username", "JmixUser"));
-        checkbox.setValue((Boolean) configService.getValue("welcome.debug", false));
+        username.setValue((String) getConfigService().getValue("welcome.username", "JmixUser"));
+        checkbox.setValue((Boolean) getConfigService().getValue("welcome.debug", false));
 
         componentsIO.add(username);
         componentsIO.add(checkbox);
 
         return componentsIO;
     }
+
+    /**
+     * Retrieves the ConfigService of the host, falling back to a lookup via {@link AutowireLoader}
+     * if it is not exported to the plugin context.
+     *
+     * @return the ConfigService of the host application
+     */
+    private ConfigService getConfigService() {
+        // Fallback for Hosts not exporting the ConfigService.
+        if (configService == null)
+            configService = AutowireLoader.getBean(ConfigService.class);
+
+        return configService;
+    }
 }